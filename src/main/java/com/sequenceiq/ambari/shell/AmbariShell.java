@@ -17,19 +17,42 @@
  */
 package com.sequenceiq.ambari.shell;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.shell.CommandLine;
+import org.springframework.shell.core.ExecutionStrategy;
 import org.springframework.shell.core.JLineShellComponent;
 import org.springframework.shell.event.ShellStatus;
 import org.springframework.shell.event.ShellStatusListener;
 
 import com.sequenceiq.ambari.client.AmbariClient;
+import com.sequenceiq.ambari.shell.daemon.DaemonProtocol;
+import com.sequenceiq.ambari.shell.daemon.ShellDaemon;
 import com.sequenceiq.ambari.shell.model.AmbariContext;
 import com.sequenceiq.ambari.shell.model.Hints;
+import com.sequenceiq.ambari.shell.script.ScriptParser;
+import com.sequenceiq.ambari.shell.script.ScriptRunner;
+import com.sequenceiq.ambari.shell.script.ScriptStep;
+import com.sequenceiq.ambari.shell.support.LazyInitializer;
+import com.sequenceiq.ambari.shell.support.StartupProfiler;
 
 /**
  * Shell bootstrap.
@@ -38,26 +61,63 @@ import com.sequenceiq.ambari.shell.model.Hints;
 @ComponentScan(basePackageClasses = {AmbariShell.class})
 public class AmbariShell implements CommandLineRunner, ShellStatusListener {
 
+  private static final String STARTUP_PROFILE = "--startup-profile";
+  private static final String LAZY_INIT = "--lazy-init";
+  private static final String DAEMON = "--daemon";
+
   @Autowired
   private CommandLine commandLine;
   @Autowired
   private JLineShellComponent shell;
   @Autowired
+  private ExecutionStrategy executionStrategy;
+  @Autowired
   private AmbariContext context;
   @Autowired
   private AmbariClient client;
+  @Autowired
+  private ExecutorService executorService;
+  @Value("${startup.timeout:30000}")
+  private long startupTimeout;
+  @Value("${daemon.port:0}")
+  private int daemonPort;
+  @Value("${script.parallelism:4}")
+  private int scriptParallelism;
+  @Value("${shell.home:${user.home}/.ambari-shell}")
+  private String shellHome;
+  @Autowired(required = false)
+  private StartupProfiler profiler;
 
   @Override
   public void run(String... arg) throws Exception {
     String[] shellCommandsToExecute = commandLine.getShellCommandsToExecute();
+    markStartupPhase("context refresh");
     if (shellCommandsToExecute != null) {
-      for (String cmd : shellCommandsToExecute) {
-        if (!shell.executeScriptLine(cmd)) {
-          break;
+      boolean success = true;
+      if (ScriptParser.isParallel(shellCommandsToExecute)) {
+        success = runParallelScript(shellCommandsToExecute);
+      } else {
+        for (String cmd : shellCommandsToExecute) {
+          success = shell.executeScriptLine(cmd);
+          markStartupPhase("first command");
+          if (!success) {
+            break;
+          }
         }
       }
+      printStartupProfile();
+      System.exit(success ? 0 : 1);
+    } else if (Arrays.asList(arg).contains(DAEMON)) {
+      String error = initContext();
+      if (error != null) {
+        System.out.println(error);
+        System.exit(1);
+      }
+      printStartupProfile();
+      new ShellDaemon(shell, daemonPort, DaemonProtocol.getDaemonFile(shellHome)).serve();
       System.exit(0);
     } else {
+      printStartupProfile();
       shell.addShellStatusListener(this);
       shell.start();
       shell.promptLoop();
@@ -65,30 +125,101 @@ public class AmbariShell implements CommandLineRunner, ShellStatusListener {
     }
   }
 
+  private boolean runParallelScript(String[] lines) {
+    boolean success = false;
+    try {
+      List<ScriptStep> steps = ScriptParser.parse(lines);
+      success = new ScriptRunner(shell, executionStrategy, scriptParallelism, System.out).run(steps);
+      markStartupPhase("script");
+    } catch (IllegalArgumentException e) {
+      System.out.println("Invalid script: " + e.getMessage());
+    }
+    return success;
+  }
+
   @Override
   public void onShellStatusChange(ShellStatus oldStatus, ShellStatus newStatus) {
     if (newStatus.getStatus() == ShellStatus.Status.STARTED) {
-      try {
-        String cluster = client.getClusterName();
-        boolean available = client.isBlueprintAvailable();
-        if (cluster == null) {
-          if (available) {
-            context.setHint(Hints.BUILD_CLUSTER);
-          } else {
-            context.setHint(Hints.ADD_BLUEPRINT);
+      context.setHint(Hints.CONNECTING);
+      executorService.submit(new Runnable() {
+        @Override
+        public void run() {
+          String error = initContext();
+          if (error != null) {
+            quit(error);
           }
+        }
+      });
+    }
+  }
+
+  /**
+   * Queries the cluster name and the blueprints in parallel, so the prompt
+   * can show up before the Ambari server responds. The queries run on their own
+   * threads as the caller may already occupy a thread of the shared executor.
+   *
+   * @return error message or null if the context is initialized
+   */
+  private String initContext() {
+    String error = null;
+    ExecutorService executor = Executors.newFixedThreadPool(2, new CustomizableThreadFactory("startup-"));
+    Future<String> clusterRequest = executor.submit(new Callable<String>() {
+      @Override
+      public String call() {
+        return client.getClusterName();
+      }
+    });
+    Future<Boolean> blueprintRequest = executor.submit(new Callable<Boolean>() {
+      @Override
+      public Boolean call() {
+        return client.isBlueprintAvailable();
+      }
+    });
+    try {
+      long deadline = System.currentTimeMillis() + startupTimeout;
+      String cluster = clusterRequest.get(startupTimeout, TimeUnit.MILLISECONDS);
+      boolean available = blueprintRequest.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+      if (cluster == null) {
+        if (available) {
+          context.setHint(Hints.BUILD_CLUSTER);
         } else {
-          context.setHint(Hints.PROGRESS);
+          context.setHint(Hints.ADD_BLUEPRINT);
         }
-        context.setCluster(cluster);
-        context.setBlueprintsAvailable(available);
-      } catch (Exception e) {
-        System.out.println(e.getMessage());
-        shell.executeCommand("quit");
+      } else {
+        context.setHint(Hints.PROGRESS);
       }
+      context.setCluster(cluster);
+      context.setBlueprintsAvailable(available);
+    } catch (TimeoutException e) {
+      error = String.format("The Ambari server did not respond in %d ms", startupTimeout);
+    } catch (ExecutionException e) {
+      error = e.getCause().getMessage();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      error = "Interrupted while connecting to the Ambari server";
+    } finally {
+      executor.shutdownNow();
+    }
+    return error;
+  }
+
+  private void markStartupPhase(String phase) {
+    if (profiler != null && !profiler.isMarked(phase)) {
+      profiler.mark(phase);
+    }
+  }
+
+  private void printStartupProfile() {
+    if (profiler != null) {
+      System.out.println(profiler.getReport());
     }
   }
 
+  private void quit(String message) {
+    System.out.println(message);
+    shell.executeCommand("quit");
+  }
+
 
   public static void main(String[] args) {
     if (args.length == 0) {
@@ -96,17 +227,35 @@ public class AmbariShell implements CommandLineRunner, ShellStatusListener {
         "\nAmbari Shell: Interactive command line tool for managing Apache Ambari.\n\n" +
           "Usage:\n" +
           "  java -jar ambari-shell.jar                  : Starts Ambari Shell in interactive mode.\n" +
-          "  java -jar ambari-shell.jar --cmdfile=<FILE> : Ambari Shell executes commands read from the file.\n\n" +
+          "  java -jar ambari-shell.jar --cmdfile=<FILE> : Ambari Shell executes commands read from the file and exits with\n" +
+          "                                                a non-zero status if a command fails.\n" +
+          "  java -jar ambari-shell.jar --daemon         : Ambari Shell keeps running and executes the commands sent by\n" +
+          "    java -cp ambari-shell.jar com.sequenceiq.ambari.shell.daemon.DaemonClient [--cmdfile=<FILE> | <COMMAND>...]\n\n" +
           "Options:\n" +
           "  --ambari.host=<HOSTNAME>       Hostname of the Ambari Server [default: localhost].\n" +
           "  --ambari.port=<PORT>           Port of the Ambari Server [default: 8080].\n" +
           "  --ambari.user=<USER>           Username of the Ambari admin [default: admin].\n" +
-          "  --ambari.password=<PASSWORD>   Password of the Ambari admin [default: admin].\n\n" +
+          "  --ambari.password=<PASSWORD>   Password of the Ambari admin [default: admin].\n" +
+          "  --startup.timeout=<MILLIS>     Time to wait for the Ambari Server on start [default: 30000].\n" +
+          "  --startup-profile              Prints the time spent in each startup phase and bean.\n" +
+          "  --lazy-init                    Creates the beans on first use.\n" +
+          "  --daemon.port=<PORT>           Loopback port of the daemon [default: random].\n" +
+          "  --script.parallelism=<N>       Commands of a cmdfile running at the same time [default: 4].\n\n" +
           "Note:\n" +
           "  At least one option is mandatory."
       );
       System.exit(1);
     }
-    new SpringApplicationBuilder(AmbariShell.class).showBanner(false).run(args);
+    List<String> options = Arrays.asList(args);
+    List<ApplicationContextInitializer<ConfigurableApplicationContext>> initializers =
+      new ArrayList<ApplicationContextInitializer<ConfigurableApplicationContext>>();
+    if (options.contains(STARTUP_PROFILE)) {
+      initializers.add(new StartupProfiler());
+    }
+    if (options.contains(LAZY_INIT)) {
+      initializers.add(new LazyInitializer());
+    }
+    new SpringApplicationBuilder(AmbariShell.class).showBanner(false)
+      .initializers(initializers.toArray(new ApplicationContextInitializer[initializers.size()])).run(args);
   }
 }
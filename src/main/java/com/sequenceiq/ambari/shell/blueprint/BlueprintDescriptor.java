@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.blueprint;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of a blueprint the shell works with, extracted by the {@link BlueprintParser}.
+ */
+public class BlueprintDescriptor {
+
+  private final String name;
+  private final String stackName;
+  private final String stackVersion;
+  private final Map<String, List<String>> hostGroups;
+  private final Map<String, String> cardinalities;
+  private final String hash;
+
+  /**
+   * @param name          name of the blueprint
+   * @param stackName     name of the stack
+   * @param stackVersion  version of the stack
+   * @param hostGroups    host group - components map
+   * @param cardinalities host group - cardinality map, host groups without cardinality are missing
+   * @param hash          content hash of the blueprint
+   */
+  public BlueprintDescriptor(String name, String stackName, String stackVersion, Map<String, List<String>> hostGroups,
+    Map<String, String> cardinalities, String hash) {
+    this.name = name;
+    this.stackName = stackName;
+    this.stackVersion = stackVersion;
+    this.hostGroups = Collections.unmodifiableMap(hostGroups);
+    this.cardinalities = Collections.unmodifiableMap(cardinalities);
+    this.hash = hash;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getStackName() {
+    return stackName;
+  }
+
+  public String getStackVersion() {
+    return stackVersion;
+  }
+
+  /**
+   * Returns the components of the host groups.
+   *
+   * @return host group - components map in the order of the blueprint
+   */
+  public Map<String, List<String>> getHostGroups() {
+    return hostGroups;
+  }
+
+  /**
+   * Returns the cardinality of a host group, e.g. 1, 1+, 1-3 or ALL.
+   *
+   * @param hostGroup name of the host group
+   * @return cardinality or null if not specified
+   */
+  public String getCardinality(String hostGroup) {
+    return cardinalities.get(hostGroup);
+  }
+
+  /**
+   * Returns the hash of the blueprint which does not depend on the formatting and the
+   * order of the fields.
+   *
+   * @return SHA-256 hash as hex string
+   */
+  public String getHash() {
+    return hash;
+  }
+}
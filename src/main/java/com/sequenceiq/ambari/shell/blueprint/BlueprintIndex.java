@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.blueprint;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.sequenceiq.ambari.client.AmbariClient;
+
+/**
+ * Remembers the content hash of the blueprints added from this machine, so unchanged
+ * blueprints are not posted again. The server returns the blueprints in a different form
+ * than they were posted, so the hashes computed by the {@link BlueprintParser} are stored
+ * in a local file per Ambari server and only the names are checked against the server,
+ * at most every few minutes.
+ */
+public class BlueprintIndex {
+
+  /**
+   * State of a blueprint compared to the server.
+   */
+  public enum Status {
+    NEW, UNCHANGED, CHANGED, EXISTS
+  }
+
+  private static final long REFRESH_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+
+  private final AmbariClient client;
+  private final File file;
+  private final long refreshInterval;
+  private final Properties hashes = new Properties();
+  private final Set<String> serverBlueprints = new HashSet<String>();
+  private boolean refreshed;
+  private long refreshTime;
+
+  public BlueprintIndex(AmbariClient client, File file) {
+    this(client, file, REFRESH_INTERVAL);
+  }
+
+  BlueprintIndex(AmbariClient client, File file, long refreshInterval) {
+    this.client = client;
+    this.file = file;
+    this.refreshInterval = refreshInterval;
+  }
+
+  /**
+   * Compares the blueprint with the one on the server with the same name.
+   *
+   * @param name name of the blueprint
+   * @param hash hash of the blueprint
+   * @return NEW if there is no such blueprint on the server, UNCHANGED or CHANGED if it
+   * was added from here, EXISTS if it was added by someone else
+   */
+  public synchronized Status check(String name, String hash) {
+    if (!refreshed || System.currentTimeMillis() - refreshTime >= refreshInterval) {
+      refresh();
+    }
+    if (!serverBlueprints.contains(name)) {
+      return Status.NEW;
+    }
+    String known = hashes.getProperty(name);
+    if (known == null) {
+      return Status.EXISTS;
+    }
+    return known.equals(hash) ? Status.UNCHANGED : Status.CHANGED;
+  }
+
+  /**
+   * Records a blueprint added to the server.
+   *
+   * @param name name of the blueprint
+   * @param hash hash of the blueprint
+   */
+  public synchronized void put(String name, String hash) {
+    serverBlueprints.add(name);
+    hashes.setProperty(name, hash);
+    save();
+  }
+
+  /**
+   * Reads the blueprint names from the server again on the next check, e.g. after the
+   * default blueprints are added.
+   */
+  public synchronized void invalidate() {
+    refreshed = false;
+  }
+
+  private void refresh() {
+    if (hashes.isEmpty()) {
+      load();
+    }
+    serverBlueprints.clear();
+    serverBlueprints.addAll(client.getBlueprintsMap().keySet());
+    if (hashes.keySet().retainAll(serverBlueprints)) {
+      save();
+    }
+    refreshed = true;
+    refreshTime = System.currentTimeMillis();
+  }
+
+  private void load() {
+    if (file.exists()) {
+      try {
+        InputStream in = new FileInputStream(file);
+        try {
+          hashes.load(in);
+        } finally {
+          in.close();
+        }
+      } catch (IOException e) {
+        // start with an empty index
+      }
+    }
+  }
+
+  private void save() {
+    File parent = file.getAbsoluteFile().getParentFile();
+    File temp = new File(parent, file.getName() + ".tmp");
+    try {
+      parent.mkdirs();
+      OutputStream out = new FileOutputStream(temp);
+      try {
+        hashes.store(out, "blueprint name = content hash");
+      } finally {
+        out.close();
+      }
+      if (!temp.renameTo(file)) {
+        file.delete();
+        temp.renameTo(file);
+      }
+    } catch (IOException e) {
+      // not important, the blueprints are posted again next time
+    }
+  }
+}
@@ -0,0 +1,281 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.blueprint;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads the name, the stack, the host groups with their components and cardinality and
+ * the content hash of a blueprint in a single streaming pass, without building a JSON
+ * tree, and checks the structure Ambari expects before the blueprint is posted.
+ * The hash is computed bottom-up from the hashes of the values, sorting the fields of
+ * the objects, so it does not depend on the formatting and the order of the fields.
+ */
+@Component
+public class BlueprintParser {
+
+  private static final Charset CHARSET = Charset.forName("UTF-8");
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  private static final Pattern CARDINALITY = Pattern.compile("\\d+|\\d+\\+|\\d+-\\d+|(?i:all)");
+  private static final Comparator<byte[]> UNSIGNED_ORDER = new Comparator<byte[]>() {
+    @Override
+    public int compare(byte[] o1, byte[] o2) {
+      for (int i = 0; i < Math.min(o1.length, o2.length); i++) {
+        int result = (o1[i] & 0xff) - (o2[i] & 0xff);
+        if (result != 0) {
+          return result;
+        }
+      }
+      return o1.length - o2.length;
+    }
+  };
+
+  private static final String BLUEPRINTS = "/Blueprints";
+  private static final String NAME = "/Blueprints/blueprint_name";
+  private static final String STACK_NAME = "/Blueprints/stack_name";
+  private static final String STACK_VERSION = "/Blueprints/stack_version";
+  private static final String HOST_GROUPS = "/host_groups";
+  private static final String HOST_GROUP = "/host_groups[]";
+  private static final String HOST_GROUP_NAME = "/host_groups[]/name";
+  private static final String HOST_GROUP_CARDINALITY = "/host_groups[]/cardinality";
+  private static final String COMPONENTS = "/host_groups[]/components";
+  private static final String COMPONENT = "/host_groups[]/components[]";
+  private static final String COMPONENT_NAME = "/host_groups[]/components[]/name";
+  private static final Set<String> VALIDATED_PATHS = new HashSet<String>(Arrays.asList(
+    BLUEPRINTS, NAME, STACK_NAME, STACK_VERSION, HOST_GROUPS));
+
+  private final JsonFactory jsonFactory;
+
+  @Autowired
+  public BlueprintParser(ObjectMapper jsonMapper) {
+    this.jsonFactory = jsonMapper.getJsonFactory();
+  }
+
+  /**
+   * Parses and validates the blueprint.
+   *
+   * @param json blueprint
+   * @return the parsed parts of the blueprint
+   * @throws IOException               if the blueprint is not a well-formed JSON
+   * @throws InvalidBlueprintException if the blueprint is not valid
+   */
+  public BlueprintDescriptor parse(String json) throws IOException, InvalidBlueprintException {
+    JsonParser parser = jsonFactory.createJsonParser(json);
+    try {
+      JsonToken token = parser.nextToken();
+      if (token != JsonToken.START_OBJECT) {
+        throw new InvalidBlueprintException(Collections.singletonList("The blueprint must be a JSON object"));
+      }
+      Extract extract = new Extract();
+      byte[] hash = read(parser, token, "", extract);
+      if (parser.nextToken() != null) {
+        throw new InvalidBlueprintException(Collections.singletonList("Unexpected content after the blueprint"));
+      }
+      return extract.toDescriptor(toHex(hash));
+    } finally {
+      parser.close();
+    }
+  }
+
+  private byte[] read(JsonParser parser, JsonToken token, String path, Extract extract) throws IOException {
+    if (token == null) {
+      throw new EOFException("Unexpected end of the blueprint");
+    }
+    MessageDigest digest = newDigest();
+    if (token == JsonToken.START_OBJECT) {
+      extract.onValue(path, token, null);
+      List<byte[]> fields = new ArrayList<byte[]>();
+      JsonToken next;
+      while ((next = parser.nextToken()) != JsonToken.END_OBJECT) {
+        if (next == null) {
+          throw new EOFException("Unexpected end of the blueprint");
+        }
+        String field = parser.getCurrentName();
+        byte[] value = read(parser, parser.nextToken(), path + "/" + field, extract);
+        MessageDigest fieldDigest = newDigest();
+        fieldDigest.update(field.getBytes(CHARSET));
+        fieldDigest.update((byte) 0);
+        fieldDigest.update(value);
+        fields.add(fieldDigest.digest());
+      }
+      Collections.sort(fields, UNSIGNED_ORDER);
+      digest.update((byte) '{');
+      for (byte[] field : fields) {
+        digest.update(field);
+      }
+    } else if (token == JsonToken.START_ARRAY) {
+      extract.onValue(path, token, null);
+      digest.update((byte) '[');
+      JsonToken next;
+      while ((next = parser.nextToken()) != JsonToken.END_ARRAY) {
+        digest.update(read(parser, next, path + "[]", extract));
+      }
+    } else {
+      String text = parser.getText();
+      extract.onValue(path, token, text);
+      digest.update((byte) token.ordinal());
+      digest.update(text.getBytes(CHARSET));
+    }
+    return digest.digest();
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    char[] result = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      result[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+      result[i * 2 + 1] = HEX[bytes[i] & 0xf];
+    }
+    return new String(result);
+  }
+
+  /**
+   * Collects the interesting values while the blueprint is read, every other value,
+   * e.g. the configurations, is only hashed.
+   */
+  private static final class Extract {
+    private final Map<String, JsonToken> types = new HashMap<String, JsonToken>();
+    private final Map<String, String> values = new HashMap<String, String>();
+    private final List<HostGroup> hostGroups = new ArrayList<HostGroup>();
+
+    private void onValue(String path, JsonToken token, String text) {
+      if (HOST_GROUP.equals(path)) {
+        hostGroups.add(new HostGroup());
+      } else if (path.startsWith(HOST_GROUP + "/") && !hostGroups.isEmpty()) {
+        onHostGroupValue(hostGroups.get(hostGroups.size() - 1), path, token, text);
+      } else if (VALIDATED_PATHS.contains(path)) {
+        types.put(path, token);
+        if (text != null) {
+          values.put(path, text);
+        }
+      }
+    }
+
+    private void onHostGroupValue(HostGroup hostGroup, String path, JsonToken token, String text) {
+      if (HOST_GROUP_NAME.equals(path)) {
+        hostGroup.name = token == JsonToken.VALUE_STRING ? text : null;
+      } else if (HOST_GROUP_CARDINALITY.equals(path)) {
+        hostGroup.cardinality = text;
+      } else if (COMPONENTS.equals(path)) {
+        hostGroup.componentsType = token;
+      } else if (COMPONENT.equals(path)) {
+        hostGroup.componentCount++;
+      } else if (COMPONENT_NAME.equals(path) && token == JsonToken.VALUE_STRING && !text.isEmpty()) {
+        hostGroup.components.add(text);
+      }
+    }
+
+    private BlueprintDescriptor toDescriptor(String hash) throws InvalidBlueprintException {
+      List<String> problems = new ArrayList<String>();
+      if (types.get(BLUEPRINTS) != JsonToken.START_OBJECT) {
+        problems.add("The Blueprints section is missing");
+      }
+      String name = getString(NAME, problems);
+      String stackName = getString(STACK_NAME, problems);
+      String stackVersion = getString(STACK_VERSION, problems);
+      Map<String, List<String>> components = new LinkedHashMap<String, List<String>>();
+      Map<String, String> cardinalities = new HashMap<String, String>();
+      if (types.get(HOST_GROUPS) != JsonToken.START_ARRAY || hostGroups.isEmpty()) {
+        problems.add("The host_groups list is missing or empty");
+      }
+      for (int i = 0; i < hostGroups.size(); i++) {
+        HostGroup hostGroup = hostGroups.get(i);
+        if (hostGroup.name == null || hostGroup.name.isEmpty()) {
+          problems.add(String.format("The name of host_groups[%d] is missing", i));
+          continue;
+        }
+        if (components.containsKey(hostGroup.name)) {
+          problems.add(String.format("Host group %s is defined more than once", hostGroup.name));
+          continue;
+        }
+        hostGroup.validate(problems);
+        components.put(hostGroup.name, hostGroup.components);
+        if (hostGroup.cardinality != null) {
+          cardinalities.put(hostGroup.name, hostGroup.cardinality);
+        }
+      }
+      if (!problems.isEmpty()) {
+        throw new InvalidBlueprintException(problems);
+      }
+      return new BlueprintDescriptor(name, stackName, stackVersion, components, cardinalities, hash);
+    }
+
+    private String getString(String path, List<String> problems) {
+      String value = values.get(path);
+      if (types.get(path) != JsonToken.VALUE_STRING || value.isEmpty()) {
+        problems.add(String.format("%s is missing", path.substring(1)));
+      }
+      return value;
+    }
+  }
+
+  /**
+   * Host group being read.
+   */
+  private static final class HostGroup {
+    private String name;
+    private String cardinality;
+    private JsonToken componentsType;
+    private int componentCount;
+    private final List<String> components = new ArrayList<String>();
+
+    private void validate(List<String> problems) {
+      if (componentsType != JsonToken.START_ARRAY || componentCount == 0) {
+        problems.add(String.format("Host group %s has no components", name));
+      } else if (components.size() != componentCount) {
+        problems.add(String.format("A component of host group %s has no name", name));
+      }
+      Set<String> unique = new HashSet<String>(components);
+      if (unique.size() != components.size()) {
+        problems.add(String.format("Host group %s lists a component more than once", name));
+      }
+      if (cardinality != null && !CARDINALITY.matcher(cardinality.trim()).matches()) {
+        problems.add(String.format("Host group %s has invalid cardinality: %s", name, cardinality));
+      }
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.blueprint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown if a blueprint is not structurally valid.
+ */
+public class InvalidBlueprintException extends Exception {
+
+  private final List<String> problems;
+
+  public InvalidBlueprintException(List<String> problems) {
+    super(join(problems));
+    this.problems = Collections.unmodifiableList(new ArrayList<String>(problems));
+  }
+
+  public List<String> getProblems() {
+    return problems;
+  }
+
+  private static String join(List<String> problems) {
+    StringBuilder result = new StringBuilder();
+    for (String problem : problems) {
+      if (result.length() > 0) {
+        result.append("; ");
+      }
+      result.append(problem);
+    }
+    return result.toString();
+  }
+}
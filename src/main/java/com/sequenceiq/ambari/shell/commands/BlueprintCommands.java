@@ -17,6 +17,7 @@
  */
 package com.sequenceiq.ambari.shell.commands;
 
+import static com.sequenceiq.ambari.shell.support.TableRenderer.renderMapValueMap;
 import static com.sequenceiq.ambari.shell.support.TableRenderer.renderMultiValueMap;
 import static com.sequenceiq.ambari.shell.support.TableRenderer.renderSingleMap;
 
@@ -24,11 +25,21 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.StringReader;
-import java.net.URL;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
-import org.codehaus.jackson.map.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.shell.core.CommandMarker;
 import org.springframework.shell.core.annotation.CliAvailabilityIndicator;
 import org.springframework.shell.core.annotation.CliCommand;
@@ -36,9 +47,17 @@ import org.springframework.shell.core.annotation.CliOption;
 import org.springframework.stereotype.Component;
 
 import com.sequenceiq.ambari.client.AmbariClient;
+import com.sequenceiq.ambari.shell.blueprint.BlueprintDescriptor;
+import com.sequenceiq.ambari.shell.blueprint.BlueprintIndex;
+import com.sequenceiq.ambari.shell.blueprint.BlueprintParser;
+import com.sequenceiq.ambari.shell.blueprint.InvalidBlueprintException;
 import com.sequenceiq.ambari.shell.completion.Blueprint;
+import com.sequenceiq.ambari.shell.converter.CompletionCache;
+import com.sequenceiq.ambari.shell.converter.CompletionResource;
 import com.sequenceiq.ambari.shell.model.AmbariContext;
 import com.sequenceiq.ambari.shell.model.Hints;
+import com.sequenceiq.ambari.shell.support.ArchiveReader;
+import com.sequenceiq.ambari.shell.support.CachingUrlReader;
 
 import groovyx.net.http.HttpResponseException;
 
@@ -50,15 +69,34 @@ import groovyx.net.http.HttpResponseException;
 @Component
 public class BlueprintCommands implements CommandMarker {
 
+  private static final int MAX_PARALLEL_UPLOADS = 8;
+  private static final String ADDED = "Added";
+  private static final Map<BlueprintIndex.Status, String> UPLOAD_RESULTS =
+    new EnumMap<BlueprintIndex.Status, String>(BlueprintIndex.Status.class);
+
+  static {
+    UPLOAD_RESULTS.put(BlueprintIndex.Status.NEW, ADDED);
+    UPLOAD_RESULTS.put(BlueprintIndex.Status.UNCHANGED, "Unchanged");
+    UPLOAD_RESULTS.put(BlueprintIndex.Status.CHANGED, "Changed, not added");
+    UPLOAD_RESULTS.put(BlueprintIndex.Status.EXISTS, "Exists, not added");
+  }
+
   private AmbariClient client;
   private AmbariContext context;
-  private ObjectMapper jsonMapper;
+  private BlueprintParser blueprintParser;
+  private CompletionCache completionCache;
+  private BlueprintIndex blueprintIndex;
+  private CachingUrlReader urlReader;
 
   @Autowired
-  public BlueprintCommands(AmbariClient client, AmbariContext context, ObjectMapper jsonMapper) {
+  public BlueprintCommands(AmbariClient client, AmbariContext context, BlueprintParser blueprintParser,
+    CompletionCache completionCache, BlueprintIndex blueprintIndex, CachingUrlReader urlReader) {
     this.client = client;
     this.context = context;
-    this.jsonMapper = jsonMapper;
+    this.blueprintParser = blueprintParser;
+    this.completionCache = completionCache;
+    this.blueprintIndex = blueprintIndex;
+    this.urlReader = urlReader;
   }
 
   /**
@@ -115,33 +153,48 @@ public class BlueprintCommands implements CommandMarker {
 
   /**
    * Adds a blueprint to the Ambari server either through an URL or from a file.
-   * If both specified the file takes precedence.
+   * If both specified the file takes precedence. Many blueprints can be added at once
+   * from the JSON files of a directory or an archive.
    *
-   * @param url  -optional, URL containing the blueprint json
-   * @param file - optional, file containing the blueprint json
+   * @param url     -optional, URL containing the blueprint json
+   * @param file    - optional, file containing the blueprint json
+   * @param dir     - optional, directory containing blueprint json files
+   * @param archive - optional, zip or tar.gz archive containing blueprint json files
    * @return status message
    */
-  @CliCommand(value = "blueprint add", help = "Add a new blueprint with either --url or --file")
+  @CliCommand(value = "blueprint add", help = "Add a new blueprint with either --url, --file, --dir or --archive")
   public String addBlueprint(
     @CliOption(key = "url", mandatory = false, help = "URL of the blueprint to download from") String url,
-    @CliOption(key = "file", mandatory = false, help = "File which contains the blueprint") File file) {
+    @CliOption(key = "file", mandatory = false, help = "File which contains the blueprint") File file,
+    @CliOption(key = "dir", mandatory = false, help = "Directory which contains the blueprint json files") File dir,
+    @CliOption(key = "archive", mandatory = false, help = "Zip or tar.gz archive of blueprint json files") File archive) {
+    if (dir != null || archive != null) {
+      return addBlueprints(dir, archive);
+    }
     String message;
     try {
       String json = file == null ? readContent(url) : readContent(file);
       if (json != null) {
-        client.addBlueprint(json);
+        BlueprintDescriptor blueprint = blueprintParser.parse(json);
+        String name = blueprint.getName();
+        BlueprintIndex.Status status = addIfChanged(json, blueprint);
+        if (status == BlueprintIndex.Status.NEW) {
+          completionCache.invalidate(CompletionResource.BLUEPRINT);
+          message = String.format("Blueprint: '%s' has been added", name);
+        } else if (status == BlueprintIndex.Status.UNCHANGED) {
+          message = String.format("Blueprint: '%s' is unchanged, skipped", name);
+        } else if (status == BlueprintIndex.Status.CHANGED) {
+          message = String.format("Blueprint: '%s' differs from the one on the server, not added", name);
+        } else {
+          message = String.format("Blueprint: '%s' already exists on the server, not added", name);
+        }
         context.setHint(Hints.BUILD_CLUSTER);
         context.setBlueprintsAvailable(true);
-        message = String.format("Blueprint: '%s' has been added", getBlueprintName(json));
       } else {
         message = "No blueprint specified";
       }
     } catch (HttpResponseException e) {
-        try {
-            message = "Cannot add blueprint: " + IOUtils.toString((StringReader) e.getResponse().getData());
-        } catch (Exception ex) {
-            message = "Cannot add blueprint: " + e.getMessage();
-        }
+      message = "Cannot add blueprint: " + getErrorMessage(e);
     } catch (Exception e){
       message = "Cannot add blueprint: " + e.getMessage();
     }
@@ -168,6 +221,8 @@ public class BlueprintCommands implements CommandMarker {
     String message = "Default blueprints added";
     try {
       client.addDefaultBlueprints();
+      blueprintIndex.invalidate();
+      completionCache.invalidate(CompletionResource.BLUEPRINT);
       context.setHint(Hints.BUILD_CLUSTER);
       context.setBlueprintsAvailable(true);
     } catch (Exception e) {
@@ -176,33 +231,125 @@ public class BlueprintCommands implements CommandMarker {
     return message;
   }
 
-  private String readContent(File file) {
-    String content = null;
+  private String addBlueprints(File dir, File archive) {
+    Map<String, String> sources = new TreeMap<String, String>();
     try {
-      content = IOUtils.toString(new FileInputStream(file));
+      if (dir != null) {
+        if (!dir.isDirectory()) {
+          return String.format("Cannot add blueprints: %s is not a directory", dir);
+        }
+        for (File file : FileUtils.listFiles(dir, new String[]{"json"}, true)) {
+          sources.put(file.getPath(), FileUtils.readFileToString(file));
+        }
+      }
+      if (archive != null) {
+        for (Map.Entry<String, String> entry : ArchiveReader.read(archive, ".json").entrySet()) {
+          sources.put(archive.getName() + ":" + entry.getKey(), entry.getValue());
+        }
+      }
     } catch (IOException e) {
-      // not important
+      return "Cannot add blueprints: " + e.getMessage();
+    }
+    if (sources.isEmpty()) {
+      return "No blueprint found";
+    }
+    Map<String, Future<String[]>> uploads = new LinkedHashMap<String, Future<String[]>>();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_PARALLEL_UPLOADS, sources.size()),
+      new CustomizableThreadFactory("blueprint-"));
+    try {
+      for (final Map.Entry<String, String> source : sources.entrySet()) {
+        uploads.put(source.getKey(), executor.submit(new Callable<String[]>() {
+          @Override
+          public String[] call() {
+            return upload(source.getValue());
+          }
+        }));
+      }
+      return renderUploads(uploads);
+    } finally {
+      executor.shutdownNow();
     }
-    return content;
   }
 
-  private String readContent(String url) {
-    String content = null;
+  private String[] upload(String json) {
+    String name = "";
+    String result;
     try {
-      content = IOUtils.toString(new URL(url));
+      BlueprintDescriptor blueprint = blueprintParser.parse(json);
+      name = blueprint.getName();
+      result = UPLOAD_RESULTS.get(addIfChanged(json, blueprint));
+    } catch (HttpResponseException e) {
+      result = "Failed: " + getErrorMessage(e);
     } catch (IOException e) {
-      // not important
+      result = "Not a blueprint";
+    } catch (InvalidBlueprintException e) {
+      result = "Invalid: " + e.getMessage();
+    } catch (Exception e) {
+      result = "Failed: " + e.getMessage();
     }
-    return content;
+    return new String[]{name, result};
   }
 
-  private String getBlueprintName(String json) {
-    String result = "";
+  private String renderUploads(Map<String, Future<String[]>> uploads) {
+    Map<String, Map<String, String>> rows = new LinkedHashMap<String, Map<String, String>>();
+    int added = 0;
+    for (Map.Entry<String, Future<String[]>> upload : uploads.entrySet()) {
+      String[] result;
+      try {
+        result = upload.getValue().get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        result = new String[]{"", "Interrupted"};
+      } catch (ExecutionException e) {
+        result = new String[]{"", "Failed: " + e.getCause().getMessage()};
+      }
+      if (ADDED.equals(result[1])) {
+        added++;
+      }
+      rows.put(upload.getKey(), Collections.singletonMap(result[0], result[1]));
+    }
+    if (added > 0) {
+      completionCache.invalidate(CompletionResource.BLUEPRINT);
+      context.setHint(Hints.BUILD_CLUSTER);
+      context.setBlueprintsAvailable(true);
+    }
+    return String.format("Added %d of %d blueprints\n%s", added, uploads.size(),
+      renderMapValueMap(rows, "FILE", "BLUEPRINT", "RESULT"));
+  }
+
+  private String getErrorMessage(HttpResponseException e) {
+    try {
+      return IOUtils.toString((StringReader) e.getResponse().getData());
+    } catch (Exception ex) {
+      return e.getMessage();
+    }
+  }
+
+  private String readContent(File file) {
+    String content = null;
     try {
-      result = jsonMapper.readTree(json.getBytes()).get("Blueprints").get("blueprint_name").asText();
+      content = IOUtils.toString(new FileInputStream(file));
     } catch (IOException e) {
       // not important
     }
-    return result;
+    return content;
+  }
+
+  private String readContent(String url) throws IOException {
+    return url == null ? null : urlReader.read(url);
+  }
+
+  /**
+   * Posts the blueprint unless the index knows it is on the server already.
+   *
+   * @return NEW if the blueprint is posted, the status in the index otherwise
+   */
+  private BlueprintIndex.Status addIfChanged(String json, BlueprintDescriptor blueprint) throws HttpResponseException {
+    BlueprintIndex.Status status = blueprintIndex.check(blueprint.getName(), blueprint.getHash());
+    if (status == BlueprintIndex.Status.NEW) {
+      client.addBlueprint(json);
+      blueprintIndex.put(blueprint.getName(), blueprint.getHash());
+    }
+    return status;
   }
 }
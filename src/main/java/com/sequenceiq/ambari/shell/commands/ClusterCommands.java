@@ -20,13 +20,18 @@ package com.sequenceiq.ambari.shell.commands;
 import static com.sequenceiq.ambari.shell.support.TableRenderer.renderMultiValueMap;
 import static com.sequenceiq.ambari.shell.support.TableRenderer.renderSingleMap;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import org.apache.commons.io.IOUtils;
+import org.codehaus.jackson.map.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.shell.core.CommandMarker;
 import org.springframework.shell.core.annotation.CliAvailabilityIndicator;
@@ -38,10 +43,16 @@ import com.sequenceiq.ambari.client.AmbariClient;
 import com.sequenceiq.ambari.client.InvalidHostGroupHostAssociation;
 import com.sequenceiq.ambari.shell.completion.Blueprint;
 import com.sequenceiq.ambari.shell.completion.Host;
+import com.sequenceiq.ambari.shell.converter.CompletionCache;
+import com.sequenceiq.ambari.shell.converter.CompletionResource;
 import com.sequenceiq.ambari.shell.flash.FlashService;
 import com.sequenceiq.ambari.shell.model.AmbariContext;
 import com.sequenceiq.ambari.shell.model.FocusType;
 import com.sequenceiq.ambari.shell.model.Hints;
+import com.sequenceiq.ambari.shell.model.HostAssignments;
+import com.sequenceiq.ambari.shell.placement.PlacementEngine;
+import com.sequenceiq.ambari.shell.support.AssignmentFileReader;
+import com.sequenceiq.ambari.shell.support.HostSelector;
 
 import groovyx.net.http.HttpResponseException;
 
@@ -53,16 +64,25 @@ import groovyx.net.http.HttpResponseException;
 @Component
 public class ClusterCommands implements CommandMarker {
 
+  private static final String AMBARI_STRATEGY = "ambari";
+
   private AmbariClient client;
   private AmbariContext context;
   private FlashService flashService;
-  private Map<String, List<String>> hostGroups;
+  private CompletionCache completionCache;
+  private ObjectMapper jsonMapper;
+  private PlacementEngine placementEngine;
+  private volatile HostAssignments assignments;
 
   @Autowired
-  public ClusterCommands(AmbariClient client, AmbariContext context, FlashService flashService) {
+  public ClusterCommands(AmbariClient client, AmbariContext context, FlashService flashService, CompletionCache completionCache,
+    ObjectMapper jsonMapper, PlacementEngine placementEngine) {
     this.client = client;
     this.context = context;
     this.flashService = flashService;
+    this.completionCache = completionCache;
+    this.jsonMapper = jsonMapper;
+    this.placementEngine = placementEngine;
   }
 
   /**
@@ -111,24 +131,83 @@ public class ClusterCommands implements CommandMarker {
   }
 
   /**
-   * Assign hosts to host groups provided in the blueprint.
+   * Assign hosts to host groups provided in the blueprint. Hosts can be given one by one, as a comma
+   * separated list with wildcards, as a regular expression or in a CSV/JSON file. The hosts are fetched
+   * from the server once per command.
    *
    * @param host  host to assign
+   * @param hosts comma separated host names or wildcards
+   * @param regex regular expression matching the host names
+   * @param file  CSV or JSON file of host - host group assignments
    * @param group which host group to
    * @return status message
    */
   @CliCommand(value = "cluster assign", help = "Assign host to host group")
   public String assign(
-    @CliOption(key = "host", mandatory = true, help = "Fully qualified host name") Host host,
-    @CliOption(key = "hostGroup", mandatory = true, help = "Host group which to assign the host") String group) {
+    @CliOption(key = "host", mandatory = false, help = "Fully qualified host name") Host host,
+    @CliOption(key = "hosts", mandatory = false, help = "Comma separated host names, * and ? can be used as wildcards") String hosts,
+    @CliOption(key = "regex", mandatory = false, help = "Regular expression matching the host names") String regex,
+    @CliOption(key = "file", mandatory = false, help = "CSV (host,hostGroup) or JSON (hostGroup: hosts) file of assignments") File file,
+    @CliOption(key = "hostGroup", mandatory = false, help = "Host group which to assign the host") String group) {
+    if (host == null && hosts == null && regex == null && file == null) {
+      return "One of --host, --hosts, --regex or --file is required";
+    }
+    if (group == null && file == null) {
+      return "The --hostGroup option is required";
+    }
+    HostSelector selector = new HostSelector(client.getHostNames().keySet());
+    if (host != null && hosts == null && regex == null && file == null) {
+      return assign(selector, host.getName(), group);
+    }
+    Map<String, String> rejected = new LinkedHashMap<String, String>();
+    Map<String, List<String>> requested = new LinkedHashMap<String, List<String>>();
+    try {
+      if (file != null) {
+        requested.putAll(AssignmentFileReader.read(file, jsonMapper));
+      }
+    } catch (IOException e) {
+      return "Cannot read the assignments: " + e.getMessage();
+    }
+    if (group != null) {
+      List<String> selected = new ArrayList<String>();
+      if (host != null) {
+        selected.addAll(selector.selectList(host.getName(), rejected));
+      }
+      if (hosts != null) {
+        selected.addAll(selector.selectList(hosts, rejected));
+      }
+      if (regex != null) {
+        try {
+          List<String> matches = selector.select(Pattern.compile(regex));
+          if (matches.isEmpty()) {
+            rejected.put(regex, "no matching host");
+          }
+          selected.addAll(matches);
+        } catch (PatternSyntaxException e) {
+          return "Invalid regular expression: " + e.getDescription();
+        }
+      }
+      List<String> groupHosts = requested.get(group);
+      if (groupHosts == null) {
+        requested.put(group, selected);
+      } else {
+        groupHosts.addAll(selected);
+      }
+    }
+    return assign(selector, requested, rejected);
+  }
+
+  private String assign(HostSelector selector, String hostName, String group) {
     String message;
-    String hostName = host.getName();
-    if (client.getHostNames().keySet().contains(hostName)) {
-      if (addHostToGroup(hostName, group)) {
+    if (selector.contains(hostName)) {
+      HostAssignments.Result result = assignments.assign(hostName, group);
+      if (result == HostAssignments.Result.ASSIGNED) {
         context.setHint(Hints.CREATE_CLUSTER);
         message = String.format("%s has been added to %s", hostName, group);
-      } else {
+      } else if (result == HostAssignments.Result.UNKNOWN_HOST_GROUP) {
         message = String.format("%s is not a valid host group", group);
+      } else {
+        message = String.format("%s is already assigned to %s", hostName, assignments.getHostGroup(hostName));
       }
     } else {
       message = String.format("%s is not a valid hostname", hostName);
@@ -136,6 +215,44 @@ public class ClusterCommands implements CommandMarker {
     return message;
   }
 
+  private String assign(HostSelector selector, Map<String, List<String>> requested, Map<String, String> rejected) {
+    Map<String, List<String>> accepted = new LinkedHashMap<String, List<String>>();
+    int acceptedCount = 0;
+    for (Map.Entry<String, List<String>> entry : requested.entrySet()) {
+      String group = entry.getKey();
+      for (String hostName : entry.getValue()) {
+        HostAssignments.Result result = selector.contains(hostName) ? assignments.assign(hostName, group) : null;
+        if (result == null) {
+          rejected.put(hostName, "unknown host");
+        } else if (result == HostAssignments.Result.UNKNOWN_HOST_GROUP) {
+          rejected.put(hostName, String.format("unknown host group %s", group));
+        } else if (result != HostAssignments.Result.ASSIGNED) {
+          rejected.put(hostName, String.format("already assigned to %s", assignments.getHostGroup(hostName)));
+        } else {
+          List<String> groupHosts = accepted.get(group);
+          if (groupHosts == null) {
+            groupHosts = new ArrayList<String>();
+            accepted.put(group, groupHosts);
+          }
+          groupHosts.add(hostName);
+          acceptedCount++;
+        }
+      }
+    }
+    if (acceptedCount > 0) {
+      context.setHint(Hints.CREATE_CLUSTER);
+    }
+    StringBuilder message = new StringBuilder(
+      String.format("Accepted %d host(s), rejected %d", acceptedCount, rejected.size()));
+    if (acceptedCount > 0) {
+      message.append("\n").append(renderMultiValueMap(accepted, "HOSTGROUP", "HOST"));
+    }
+    if (!rejected.isEmpty()) {
+      message.append("\n").append(renderSingleMap(rejected, "REJECTED", "REASON"));
+    }
+    return message.toString();
+  }
+
   /**
    * Checks whether the cluster auto command is available or not.
    *
@@ -147,16 +264,23 @@ public class ClusterCommands implements CommandMarker {
   }
 
   /**
-   * Tries to auto associate hosts to host groups.
+   * Tries to auto associate hosts to host groups. The hosts are placed in the shell based on their
+   * resources unless the ambari strategy is selected, which asks the server for recommendations.
    *
+   * @param strategy name of the placement strategy
    * @return prints the auto assignments
    */
   @CliCommand(value = "cluster autoAssign", help = "Automatically assigns hosts to different host groups base on the provided strategy")
-  public String autoAssign() throws InvalidHostGroupHostAssociation {
+  public String autoAssign(
+    @CliOption(key = "strategy", mandatory = false,
+      help = "spread-masters (default), fill-workers, rack-aware or ambari for the server recommendation") String strategy)
+    throws InvalidHostGroupHostAssociation {
       try {
-          Map<String, List<String>> assignments = client.recommendAssignments(context.getFocusValue());
-          if (!assignments.isEmpty()) {
-              hostGroups = assignments;
+          Map<String, List<String>> recommended = AMBARI_STRATEGY.equals(strategy)
+            ? client.recommendAssignments(context.getFocusValue())
+            : placementEngine.place(context.getFocusValue(), strategy == null ? PlacementEngine.DEFAULT_STRATEGY : strategy);
+          if (!recommended.isEmpty()) {
+              assignments = HostAssignments.of(recommended);
               context.setHint(Hints.CREATE_CLUSTER);
           }
           return showAssignments();
@@ -182,7 +306,7 @@ public class ClusterCommands implements CommandMarker {
    */
   @CliCommand(value = "cluster preview", help = "Shows the currently assigned hosts")
   public String showAssignments() {
-    return renderMultiValueMap(hostGroups, "HOSTGROUP", "HOST");
+    return renderMultiValueMap(assignments.toMap(), "HOSTGROUP", "HOST");
   }
 
   /**
@@ -207,7 +331,8 @@ public class ClusterCommands implements CommandMarker {
     String message = "Successfully created the cluster";
     String blueprint = context.getFocusValue();
     try {
-      client.createCluster(blueprint, blueprint, hostGroups);
+      client.createCluster(blueprint, blueprint, assignments.toMap());
+      invalidateClusterCompletions();
       context.setCluster(blueprint);
       context.resetFocus();
       context.setHint(Hints.PROGRESS);
@@ -272,35 +397,18 @@ public class ClusterCommands implements CommandMarker {
 
   private void deleteCluster(String id) throws HttpResponseException {
     client.deleteCluster(id);
+    invalidateClusterCompletions();
   }
 
-  private void createNewHostGroups() {
-    Map<String, List<String>> groups = new HashMap<String, List<String>>();
-    for (String hostGroup : client.getHostGroups(context.getFocusValue())) {
-      groups.put(hostGroup, new ArrayList<String>());
-    }
-    this.hostGroups = groups;
+  private void invalidateClusterCompletions() {
+    completionCache.invalidate(CompletionResource.HOST, CompletionResource.SERVICE, CompletionResource.CONFIG_TYPE);
   }
 
-  private boolean addHostToGroup(String host, String group) {
-    boolean result = true;
-    List<String> hosts = hostGroups.get(group);
-    if (hosts == null) {
-      result = false;
-    } else {
-      hosts.add(host);
-    }
-    return result;
+  private void createNewHostGroups() {
+    this.assignments = new HostAssignments(client.getHostGroups(context.getFocusValue()));
   }
 
   private boolean isHostAssigned() {
-    boolean result = false;
-    for (String group : hostGroups.keySet()) {
-      if (!hostGroups.get(group).isEmpty()) {
-        result = true;
-        break;
-      }
-    }
-    return result;
+    return assignments.isHostAssigned();
   }
 }
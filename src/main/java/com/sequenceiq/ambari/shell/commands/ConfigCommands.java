@@ -17,19 +17,40 @@
  */
 package com.sequenceiq.ambari.shell.commands;
 
+import static com.sequenceiq.ambari.shell.support.TableRenderer.renderMapValueMap;
+import static com.sequenceiq.ambari.shell.support.TableRenderer.renderRows;
 import static com.sequenceiq.ambari.shell.support.TableRenderer.renderSingleMap;
+import static java.util.Collections.singletonMap;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
-import org.apache.hadoop.conf.Configuration;
+import org.apache.commons.io.FileUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.shell.core.CommandMarker;
 import org.springframework.shell.core.annotation.CliAvailabilityIndicator;
 import org.springframework.shell.core.annotation.CliCommand;
@@ -38,7 +59,14 @@ import org.springframework.stereotype.Component;
 
 import com.sequenceiq.ambari.client.AmbariClient;
 import com.sequenceiq.ambari.shell.completion.ConfigType;
+import com.sequenceiq.ambari.shell.converter.CompletionCache;
+import com.sequenceiq.ambari.shell.converter.CompletionResource;
 import com.sequenceiq.ambari.shell.model.AmbariContext;
+import com.sequenceiq.ambari.shell.support.ConfigCache;
+import com.sequenceiq.ambari.shell.support.ConfigHistory;
+import com.sequenceiq.ambari.shell.support.ConfigSearch;
+import com.sequenceiq.ambari.shell.support.ConfigXml;
+import com.sequenceiq.ambari.shell.support.TarGzWriter;
 
 /**
  * Configuration related commands used in the shell.
@@ -48,13 +76,26 @@ import com.sequenceiq.ambari.shell.model.AmbariContext;
 @Component
 public class ConfigCommands implements CommandMarker {
 
+  private static final int MAX_PARALLEL_DOWNLOADS = 8;
+  private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+  private static final String MISSING = "<missing>";
+
   private AmbariClient client;
   private AmbariContext context;
+  private CompletionCache completionCache;
+  private ConfigCache configCache;
+  private ConfigSearch configSearch;
+  private ConfigHistory configHistory;
 
   @Autowired
-  public ConfigCommands(AmbariClient client, AmbariContext context) {
+  public ConfigCommands(AmbariClient client, AmbariContext context, CompletionCache completionCache,
+    ConfigCache configCache, ConfigSearch configSearch, ConfigHistory configHistory) {
     this.client = client;
     this.context = context;
+    this.completionCache = completionCache;
+    this.configCache = configCache;
+    this.configSearch = configSearch;
+    this.configHistory = configHistory;
   }
 
   /**
@@ -71,10 +112,104 @@ public class ConfigCommands implements CommandMarker {
    * Prints the desired configuration.
    */
   @CliCommand(value = "configuration show", help = "Prints the desired configuration")
-  public String showConfig(@CliOption(key = "type", mandatory = true, help = "Type of the configuration") ConfigType configType) {
+  public String showConfig(@CliOption(key = "type", mandatory = true, help = "Type of the configuration") ConfigType configType)
+    throws IOException {
+    return renderSingleMap(configCache.get(context.getCluster(), configType.getName()), "KEY", "VALUE");
+  }
+
+  /**
+   * Checks whether the configuration search command is available or not.
+   *
+   * @return true if available false otherwise
+   */
+  @CliAvailabilityIndicator("configuration search")
+  public boolean isConfigSearchCommandAvailable() {
+    return context.isConnectedToCluster();
+  }
+
+  /**
+   * Searches the keys and values of every configuration type.
+   */
+  @CliCommand(value = "configuration search", help = "Searches the keys and values of every configuration type")
+  public String searchConfig(@CliOption(key = "key", help = "Regular expression to find in the keys") String key,
+                             @CliOption(key = "value", help = "Regular expression to find in the values") String value)
+    throws IOException {
+    if (key == null && value == null) {
+      return "Specify --key or --value";
+    }
+    Pattern keyPattern;
+    Pattern valuePattern;
+    try {
+      keyPattern = key == null ? null : Pattern.compile(key);
+      valuePattern = value == null ? null : Pattern.compile(value);
+    } catch (PatternSyntaxException e) {
+      return "Invalid regular expression: " + e.getDescription();
+    }
+    Map<String, Map<String, String>> result = configSearch.search(context.getCluster(), keyPattern, valuePattern);
+    return result.isEmpty() ? "No matching configuration" : renderMapValueMap(result, "TYPE", "KEY", "VALUE");
+  }
+
+  /**
+   * Checks whether the configuration history command is available or not.
+   *
+   * @return true if available false otherwise
+   */
+  @CliAvailabilityIndicator({"configuration history", "configuration diff"})
+  public boolean isConfigHistoryCommandAvailable() {
+    return context.isConnectedToCluster();
+  }
+
+  /**
+   * Lists the versions of a configuration type seen by the shell.
+   */
+  @CliCommand(value = "configuration history", help = "Lists the versions of a configuration type seen by the shell")
+  public String showConfigHistory(
+    @CliOption(key = "type", mandatory = true, help = "Type of the configuration") ConfigType configType) {
+    List<ConfigHistory.Version> versions = configHistory.getHistory(context.getCluster(), configType.getName());
+    if (versions.isEmpty()) {
+      return "No version of " + configType.getName() + " has been recorded";
+    }
+    SimpleDateFormat format = new SimpleDateFormat(DATE_FORMAT);
+    List<String[]> rows = new ArrayList<String[]>();
+    for (ConfigHistory.Version version : versions) {
+      rows.add(new String[]{version.getTag(), format.format(new Date(version.getTime())), version.getSource(),
+        String.valueOf(version.getChangeCount())});
+    }
+    return renderRows(rows, "TAG", "RECORDED", "SOURCE", "CHANGED KEYS");
+  }
+
+  /**
+   * Compares two recorded versions of a configuration type without downloading them.
+   */
+  @CliCommand(value = "configuration diff", help = "Compares two recorded versions of a configuration type")
+  public String diffConfig(
+    @CliOption(key = "type", mandatory = true, help = "Type of the configuration") ConfigType configType,
+    @CliOption(key = "from", mandatory = true, help = "Tag of the old version") String from,
+    @CliOption(key = "to", help = "Tag of the new version; default is the last recorded version") String to) {
     String configTypeName = configType.getName();
-    Map<String, Map<String, String>> configMap = client.getServiceConfigMap(configTypeName);
-    return renderSingleMap(configMap.get(configTypeName), "KEY", "VALUE");
+    String cluster = context.getCluster();
+    String toTag = to;
+    if (toTag == null) {
+      List<ConfigHistory.Version> versions = configHistory.getHistory(cluster, configTypeName);
+      if (versions.isEmpty()) {
+        return "No version of " + configTypeName + " has been recorded";
+      }
+      toTag = versions.get(versions.size() - 1).getTag();
+    }
+    Map<String, String[]> diff;
+    try {
+      diff = configHistory.diff(cluster, configTypeName, from, toTag);
+    } catch (IllegalArgumentException e) {
+      return e.getMessage();
+    }
+    if (diff.isEmpty()) {
+      return String.format("No difference between %s and %s", from, toTag);
+    }
+    List<String[]> rows = new ArrayList<String[]>();
+    for (Map.Entry<String, String[]> change : diff.entrySet()) {
+      rows.add(new String[]{change.getKey(), valueOrMissing(change.getValue()[0]), valueOrMissing(change.getValue()[1])});
+    }
+    return renderRows(rows, "KEY", from, toTag);
   }
 
   /**
@@ -94,19 +229,16 @@ public class ConfigCommands implements CommandMarker {
   public String setConfig(@CliOption(key = "type", mandatory = true, help = "Type of the configuration") ConfigType configType,
                           @CliOption(key = "url", help = "URL of the config") String url,
                           @CliOption(key = "file", help = "File of the config") File file) throws IOException {
-    Configuration configuration = new Configuration(false);
-    if (file == null) {
-      configuration.addResource(new URL(url));
-    } else {
-      configuration.addResource(new FileInputStream(file));
-    }
-    Map<String, String> config = new HashMap<String, String>();
-    Iterator<Map.Entry<String, String>> iterator = configuration.iterator();
-    while (iterator.hasNext()) {
-      Map.Entry<String, String> entry = iterator.next();
-      config.put(entry.getKey(), entry.getValue());
+    Map<String, String> config;
+    InputStream in = new BufferedInputStream(file == null ? new URL(url).openStream() : new FileInputStream(file));
+    try {
+      config = ConfigXml.read(in);
+    } finally {
+      in.close();
     }
     client.modifyConfiguration(configType.getName(), config);
+    completionCache.invalidate(CompletionResource.CONFIG_TYPE);
+    recordChange(configType.getName(), "set");
     return "Restart is required!\n" + renderSingleMap(config, "KEY", "VALUE");
   }
 
@@ -121,17 +253,58 @@ public class ConfigCommands implements CommandMarker {
   }
 
   /**
-   * Modify the desired configuration.
+   * Modifies many keys of the desired configuration at once. Only the changed keys are
+   * shown and the new version is saved only if something changed.
    */
   @CliCommand(value = "configuration modify", help = "Modify the desired configuration")
   public String modifyConfig(@CliOption(key = "type", mandatory = true, help = "Type of the configuration") ConfigType configType,
-                             @CliOption(key = "key", mandatory = true, help = "Key of the config") String key,
-                             @CliOption(key = "value", mandatory = true, help = "Value of the config") String value) {
+                             @CliOption(key = "key", help = "Key of the config") String key,
+                             @CliOption(key = "value", help = "Value of the config") String value,
+                             @CliOption(key = "set", help = "Comma separated key=value pairs, escape commas in values with \\") String pairs,
+                             @CliOption(key = "file", help = "Properties file of the new values") File file,
+                             @CliOption(key = "preview", specifiedDefaultValue = "true", unspecifiedDefaultValue = "false",
+                               help = "Shows the changes without saving them") boolean preview) throws IOException {
+    Map<String, String> changes = new LinkedHashMap<String, String>();
+    if (file != null) {
+      changes.putAll(readProperties(file));
+    }
+    if (pairs != null) {
+      try {
+        changes.putAll(parsePairs(pairs));
+      } catch (IllegalArgumentException e) {
+        return e.getMessage();
+      }
+    }
+    if (key != null) {
+      if (value == null) {
+        return "Value of " + key + " is not specified";
+      }
+      changes.put(key, value);
+    }
+    if (changes.isEmpty()) {
+      return "No changes specified";
+    }
     String configTypeName = configType.getName();
-    Map<String, String> config = client.getServiceConfigMap(configTypeName).get(configTypeName);
-    config.put(key, value);
+    Map<String, String> config = new HashMap<String, String>(configCache.get(context.getCluster(), configTypeName));
+    Map<String, Map<String, String>> diff = new TreeMap<String, Map<String, String>>();
+    for (Map.Entry<String, String> change : changes.entrySet()) {
+      String old = config.get(change.getKey());
+      if (!change.getValue().equals(old)) {
+        diff.put(change.getKey(), singletonMap(old == null ? "" : old, change.getValue()));
+        config.put(change.getKey(), change.getValue());
+      }
+    }
+    if (diff.isEmpty()) {
+      return "No changes in " + configTypeName;
+    }
+    String table = renderMapValueMap(diff, "KEY", "OLD", "NEW");
+    if (preview) {
+      return String.format("%d key(s) would change in %s\n%s", diff.size(), configTypeName, table);
+    }
     client.modifyConfiguration(configTypeName, config);
-    return "Restart is required!\n" + renderSingleMap(config, "KEY", "VALUE");
+    completionCache.invalidate(CompletionResource.CONFIG_TYPE);
+    recordChange(configTypeName, "modify");
+    return String.format("Restart is required!\n%d key(s) changed in %s\n%s", diff.size(), configTypeName, table);
   }
 
   /**
@@ -145,20 +318,152 @@ public class ConfigCommands implements CommandMarker {
   }
 
   /**
-   * Modify the desired configuration.
+   * Downloads the desired configuration of a type, or of every type in parallel, as
+   * Hadoop configuration XML files, optionally packed into a tar.gz archive.
    */
   @CliCommand(value = "configuration download", help = "Downloads the desired configuration")
-  public String downloadConfig(@CliOption(key = "type", mandatory = true, help = "Type of the configuration") ConfigType configType) throws IOException {
-    String configTypeName = configType.getName();
-    Map<String, String> config = client.getServiceConfigMap(configTypeName).get(configTypeName);
-    Configuration configuration = new Configuration(false);
-    for (String key : config.keySet()) {
-      configuration.set(key, config.get(key));
+  public String downloadConfig(
+    @CliOption(key = "type", help = "Type of the configuration") ConfigType configType,
+    @CliOption(key = "all", specifiedDefaultValue = "true", unspecifiedDefaultValue = "false",
+      help = "Downloads every configuration type as <type>.xml") boolean all,
+    @CliOption(key = "dir", help = "Directory of the files; default is the current directory") File dir,
+    @CliOption(key = "archive", help = "tar.gz archive of the files") File archive) throws IOException {
+    if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+      return "Cannot create the directory: " + dir.getAbsolutePath();
+    }
+    if (!all) {
+      if (configType == null) {
+        return "Specify either --type or --all";
+      }
+      String configTypeName = configType.getName();
+      File file = new File(dir, configTypeName);
+      writeConfig(configCache.get(context.getCluster(), configTypeName), file);
+      return "Configuration saved to: " + file.getAbsolutePath();
+    }
+    long start = System.currentTimeMillis();
+    Map<String, String> desiredConfigs = configCache.getDesiredTags(context.getCluster());
+    if (desiredConfigs.isEmpty()) {
+      return "No configuration found";
+    }
+    File target = archive == null || dir != null ? dir : createTempDir();
+    try {
+      Map<String, String> failures = new TreeMap<String, String>();
+      Map<String, File> files = downloadAll(desiredConfigs, target, failures);
+      long bytes = 0;
+      for (File file : files.values()) {
+        bytes += file.length();
+      }
+      String location = target == null ? new File("").getAbsolutePath() : target.getAbsolutePath();
+      if (archive != null) {
+        writeArchive(files, archive);
+        location = archive.getAbsolutePath();
+      }
+      String report = String.format("Downloaded %d of %d configuration types, %d bytes in %d ms to %s", files.size(),
+        desiredConfigs.size(), bytes, System.currentTimeMillis() - start, location);
+      return failures.isEmpty() ? report : report + "\n" + renderSingleMap(failures, "TYPE", "ERROR");
+    } finally {
+      if (target != dir) {
+        FileUtils.deleteQuietly(target);
+      }
     }
-    File file = new File(configTypeName);
-    FileWriter writer = new FileWriter(file);
-    configuration.writeXml(writer);
-    return "Configuration saved to: " + file.getAbsolutePath();
   }
 
+  private Map<String, File> downloadAll(Map<String, String> desiredConfigs, final File dir, Map<String, String> failures) {
+    Map<String, Future<File>> downloads = new TreeMap<String, Future<File>>();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_PARALLEL_DOWNLOADS, desiredConfigs.size()),
+      new CustomizableThreadFactory("config-"));
+    try {
+      for (final Map.Entry<String, String> desiredConfig : desiredConfigs.entrySet()) {
+        downloads.put(desiredConfig.getKey(), executor.submit(new Callable<File>() {
+          @Override
+          public File call() throws IOException {
+            File file = new File(dir, desiredConfig.getKey() + ".xml");
+            writeConfig(configCache.get(context.getCluster(), desiredConfig.getKey(), desiredConfig.getValue()), file);
+            return file;
+          }
+        }));
+      }
+      Map<String, File> files = new TreeMap<String, File>();
+      for (Map.Entry<String, Future<File>> download : downloads.entrySet()) {
+        try {
+          files.put(download.getKey(), download.getValue().get());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          failures.put(download.getKey(), "Interrupted");
+        } catch (ExecutionException e) {
+          failures.put(download.getKey(), e.getCause().getMessage());
+        }
+      }
+      return files;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private String valueOrMissing(String value) {
+    return value == null ? MISSING : value;
+  }
+
+  private void recordChange(String configTypeName, String source) {
+    try {
+      configCache.reload(context.getCluster(), configTypeName, source);
+    } catch (IOException e) {
+      // not important, the new version is recorded when it is fetched
+    }
+  }
+
+  private void writeConfig(Map<String, String> config, File file) throws IOException {
+    OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+    try {
+      ConfigXml.write(new TreeMap<String, String>(config), out);
+    } finally {
+      out.close();
+    }
+  }
+
+  private void writeArchive(Map<String, File> files, File archive) throws IOException {
+    TarGzWriter writer = new TarGzWriter(archive);
+    try {
+      for (File file : files.values()) {
+        writer.add(file.getName(), file);
+      }
+    } finally {
+      writer.close();
+    }
+  }
+
+  private File createTempDir() throws IOException {
+    File dir = File.createTempFile("configurations", "");
+    if (!dir.delete() || !dir.mkdir()) {
+      throw new IOException("Cannot create " + dir);
+    }
+    return dir;
+  }
+
+  private Map<String, String> readProperties(File file) throws IOException {
+    Properties properties = new Properties();
+    InputStream in = new FileInputStream(file);
+    try {
+      properties.load(in);
+    } finally {
+      in.close();
+    }
+    Map<String, String> result = new TreeMap<String, String>();
+    for (String name : properties.stringPropertyNames()) {
+      result.put(name, properties.getProperty(name));
+    }
+    return result;
+  }
+
+  private Map<String, String> parsePairs(String pairs) {
+    Map<String, String> result = new LinkedHashMap<String, String>();
+    for (String pair : pairs.split("(?<!\\\\),")) {
+      int separator = pair.indexOf('=');
+      if (separator <= 0) {
+        throw new IllegalArgumentException("Not a key=value pair: " + pair);
+      }
+      result.put(pair.substring(0, separator).trim(), pair.substring(separator + 1).replace("\\,", ","));
+    }
+    return result;
+  }
 }
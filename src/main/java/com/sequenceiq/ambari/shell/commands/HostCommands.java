@@ -28,6 +28,7 @@ import org.springframework.stereotype.Component;
 
 import com.sequenceiq.ambari.client.AmbariClient;
 import com.sequenceiq.ambari.shell.completion.Host;
+import com.sequenceiq.ambari.shell.flash.FlashService;
 import com.sequenceiq.ambari.shell.model.AmbariContext;
 import com.sequenceiq.ambari.shell.model.FocusType;
 
@@ -41,11 +42,13 @@ public class HostCommands implements CommandMarker {
 
   private AmbariClient client;
   private AmbariContext context;
+  private FlashService flashService;
 
   @Autowired
-  public HostCommands(AmbariClient client, AmbariContext context) {
+  public HostCommands(AmbariClient client, AmbariContext context, FlashService flashService) {
     this.client = client;
     this.context = context;
+    this.flashService = flashService;
   }
 
   /**
@@ -117,4 +120,27 @@ public class HostCommands implements CommandMarker {
   public String hostComponents() {
     return renderSingleMap(client.getHostComponentsMap(context.getFocusValue()), "COMPONENT", "STATE");
   }
+
+  /**
+   * Checks whether the host heartbeat command is available or not.
+   *
+   * @return true if available false otherwise
+   */
+  @CliAvailabilityIndicator("host heartbeat")
+  public boolean isHostHeartbeatCommandAvailable() {
+    return true;
+  }
+
+  /**
+   * Shows the heartbeat of the hosts as a flash message until the hosts are healthy.
+   *
+   * @param hosts number of hosts to wait for
+   * @return status message
+   */
+  @CliCommand(value = "host heartbeat", help = "Shows the heartbeat of the hosts until they are all healthy")
+  public String heartbeat(
+    @CliOption(key = "hosts", unspecifiedDefaultValue = "0", help = "Number of hosts to wait for") int hosts) {
+    return flashService.showHeartbeat(hosts) ? "Watching the heartbeat of the hosts"
+      : "The heartbeat of the hosts is already shown";
+  }
 }
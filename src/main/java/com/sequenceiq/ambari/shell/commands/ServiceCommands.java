@@ -18,8 +18,17 @@
 package com.sequenceiq.ambari.shell.commands;
 
 import static com.sequenceiq.ambari.shell.support.TableRenderer.renderMapValueMap;
+import static com.sequenceiq.ambari.shell.support.TableRenderer.renderRows;
 import static com.sequenceiq.ambari.shell.support.TableRenderer.renderSingleMap;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.shell.core.CommandMarker;
 import org.springframework.shell.core.annotation.CliAvailabilityIndicator;
@@ -29,7 +38,11 @@ import org.springframework.stereotype.Component;
 
 import com.sequenceiq.ambari.client.AmbariClient;
 import com.sequenceiq.ambari.shell.completion.Service;
+import com.sequenceiq.ambari.shell.flash.FlashService;
 import com.sequenceiq.ambari.shell.model.AmbariContext;
+import com.sequenceiq.ambari.shell.support.RequestTracker;
+import com.sequenceiq.ambari.shell.support.RollingRestart;
+import com.sequenceiq.ambari.shell.support.ServiceOrchestrator;
 
 /**
  * Service related commands used in the shell.
@@ -41,11 +54,20 @@ public class ServiceCommands implements CommandMarker {
 
   private AmbariClient client;
   private AmbariContext context;
+  private RequestTracker requestTracker;
+  private ServiceOrchestrator serviceOrchestrator;
+  private RollingRestart rollingRestart;
+  private FlashService flashService;
 
   @Autowired
-  public ServiceCommands(AmbariClient client, AmbariContext context) {
+  public ServiceCommands(AmbariClient client, AmbariContext context, RequestTracker requestTracker,
+    ServiceOrchestrator serviceOrchestrator, RollingRestart rollingRestart, FlashService flashService) {
     this.client = client;
     this.context = context;
+    this.requestTracker = requestTracker;
+    this.serviceOrchestrator = serviceOrchestrator;
+    this.rollingRestart = rollingRestart;
+    this.flashService = flashService;
   }
 
   /**
@@ -100,25 +122,46 @@ public class ServiceCommands implements CommandMarker {
 
   /**
    * Stops a service or all services if no service name is provided.
+   * With --wait the command returns when the stop request finishes and fails if the request fails.
+   * With --ordered every service is stopped after the services depending on it, independent
+   * services at the same time, and the command waits for each of them.
    *
+   * @param service name of the service
+   * @param wait    whether to wait for the request to finish
+   * @param timeout maximum time to wait in seconds
+   * @param ordered whether to follow the dependencies of the services
    * @return service list
    */
   @CliCommand(value = "services stop", help = "Stops a service/all the running services")
-  public String stopServices(@CliOption(key = "service", mandatory = false, help = "Name of the service to stop") Service service) {
+  public String stopServices(
+    @CliOption(key = "service", mandatory = false, help = "Name of the service to stop") Service service,
+    @CliOption(key = "wait", mandatory = false, specifiedDefaultValue = "true", unspecifiedDefaultValue = "false",
+      help = "Waits until the services are stopped") boolean wait,
+    @CliOption(key = "timeout", mandatory = false, unspecifiedDefaultValue = "3600",
+      help = "Maximum time to wait in seconds") int timeout,
+    @CliOption(key = "ordered", mandatory = false, specifiedDefaultValue = "true", unspecifiedDefaultValue = "false",
+      help = "Stops the services in the order of their dependencies") boolean ordered) {
+    if (ordered) {
+      return orchestrate(service, false, timeout);
+    }
     String message;
+    int requestId = 0;
     try {
       if (service != null) {
         String serviceName = service.getName();
         message = "Stopping " + serviceName;
-        client.stopService(serviceName);
+        requestId = client.stopService(serviceName);
       } else {
         message = "Stopping all services..";
-        client.stopAllServices();
+        requestId = client.stopAllServices();
       }
     } catch (Exception e) {
       message = "Cannot stop services";
+      if (wait) {
+        throw new IllegalStateException(message, e);
+      }
     }
-    return String.format("%s\n\n%s", message, servicesList());
+    return waitForRequest(message, requestId, wait, timeout);
   }
 
   /**
@@ -133,24 +176,196 @@ public class ServiceCommands implements CommandMarker {
 
   /**
    * Starts a service or all services if no service name is provided.
+   * With --wait the command returns when the start request finishes and fails if the request fails.
+   * With --ordered every service is started after its dependencies, independent
+   * services at the same time, and the command waits for each of them.
    *
+   * @param service name of the service
+   * @param wait    whether to wait for the request to finish
+   * @param timeout maximum time to wait in seconds
+   * @param ordered whether to follow the dependencies of the services
    * @return service list
    */
   @CliCommand(value = "services start", help = "Starts a service/all the services")
-  public String startServices(@CliOption(key = "service", mandatory = false, help = "Name of the service to start") Service service) {
+  public String startServices(
+    @CliOption(key = "service", mandatory = false, help = "Name of the service to start") Service service,
+    @CliOption(key = "wait", mandatory = false, specifiedDefaultValue = "true", unspecifiedDefaultValue = "false",
+      help = "Waits until the services are started") boolean wait,
+    @CliOption(key = "timeout", mandatory = false, unspecifiedDefaultValue = "3600",
+      help = "Maximum time to wait in seconds") int timeout,
+    @CliOption(key = "ordered", mandatory = false, specifiedDefaultValue = "true", unspecifiedDefaultValue = "false",
+      help = "Starts the services in the order of their dependencies") boolean ordered) {
+    if (ordered) {
+      return orchestrate(service, true, timeout);
+    }
     String message;
+    int requestId = 0;
     try {
       if (service != null) {
         String serviceName = service.getName();
         message = "Starting " + serviceName;
-        client.startService(serviceName);
+        requestId = client.startService(serviceName);
       } else {
-        client.startAllServices();
+        requestId = client.startAllServices();
         message = "Starting all services..";
       }
     } catch (Exception e) {
       message = "Cannot start services";
+      if (wait) {
+        throw new IllegalStateException(message, e);
+      }
+    }
+    return waitForRequest(message, requestId, wait, timeout);
+  }
+
+  /**
+   * Checks whether the services restart command is available or not.
+   *
+   * @return true if available false otherwise
+   */
+  @CliAvailabilityIndicator("services restart")
+  public boolean isServiceRestartCommandAvailable() {
+    return context.isConnectedToCluster();
+  }
+
+  /**
+   * Restarts a component on all of its hosts. With --rolling the hosts are restarted in batches, a batch is done
+   * when the component is STARTED on each of its hosts, and no new batch starts above --max-failures failed hosts.
+   *
+   * @param component   name of the component
+   * @param rolling     whether to restart the hosts in batches
+   * @param batchSize   number of hosts restarted together
+   * @param maxParallel number of batches running at the same time
+   * @param maxFailures number of failed hosts tolerated
+   * @param timeout     maximum time to wait for a request in seconds
+   * @return the result of each batch
+   */
+  @CliCommand(value = "services restart", help = "Restarts a component on all of its hosts, --rolling in batches")
+  public String restartComponent(
+    @CliOption(key = "component", mandatory = true, help = "Name of the component, e.g. DATANODE") String component,
+    @CliOption(key = "rolling", mandatory = false, specifiedDefaultValue = "true", unspecifiedDefaultValue = "false",
+      help = "Restarts the hosts in batches") boolean rolling,
+    @CliOption(key = "batch-size", mandatory = false, unspecifiedDefaultValue = "1",
+      help = "Number of hosts restarted together") int batchSize,
+    @CliOption(key = "max-parallel", mandatory = false, unspecifiedDefaultValue = "1",
+      help = "Number of batches running at the same time") int maxParallel,
+    @CliOption(key = "max-failures", mandatory = false, unspecifiedDefaultValue = "0",
+      help = "Number of failed hosts tolerated before stopping") int maxFailures,
+    @CliOption(key = "timeout", mandatory = false, unspecifiedDefaultValue = "3600",
+      help = "Maximum time to wait for a request in seconds") int timeout) {
+    if (batchSize < 1 || maxParallel < 1) {
+      return "The batch size and the parallelism must be positive";
+    }
+    if (batchSize > RollingRestart.MAX_BATCH_SIZE) {
+      return String.format("The batch size cannot be more than %d", RollingRestart.MAX_BATCH_SIZE);
+    }
+    List<RollingRestart.Batch> batches;
+    try {
+      // without --rolling every host is restarted at once, in batches of the largest size
+      batches = rollingRestart.plan(context.getCluster(), component, rolling ? batchSize : RollingRestart.MAX_BATCH_SIZE);
+      if (!batches.isEmpty()) {
+        flashService.showRestartProgress(component, batches);
+        rollingRestart.restart(context.getCluster(), component, batches, rolling ? maxParallel : batches.size(),
+          maxFailures, TimeUnit.SECONDS.toMillis(timeout));
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Cannot restart %s: %s", component, e.getMessage()), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(String.format("Interrupted while restarting %s", component), e);
+    }
+    if (batches.isEmpty()) {
+      return String.format("No host has %s", component);
+    }
+    List<String[]> rows = new ArrayList<String[]>();
+    int hosts = 0;
+    int restarted = 0;
+    boolean success = true;
+    for (RollingRestart.Batch batch : batches) {
+      List<String> batchHosts = batch.getHosts();
+      rows.add(new String[]{String.valueOf(batch.getIndex()), batchHosts.get(0), batchHosts.get(batchHosts.size() - 1),
+        String.valueOf(batch.getFailedHosts().size()), batch.getResult()});
+      hosts += batchHosts.size();
+      if (batch.isSuccessful()) {
+        restarted += batchHosts.size();
+      } else {
+        success = false;
+      }
+    }
+    String result = String.format("Restarted %s on %d of %d hosts\n%s", component, restarted, hosts,
+      renderRows(rows, "BATCH", "FIRST HOST", "LAST HOST", "FAILED", "RESULT"));
+    if (!success) {
+      throw new IllegalStateException(result);
+    }
+    return result;
+  }
+
+  /**
+   * Starts or stops the service and its prerequisites, or every installed service, in the order of their dependencies.
+   * Any failure fails the command, the services depending on the failed one are skipped.
+   */
+  private String orchestrate(Service service, boolean start, int timeout) {
+    String verb = start ? "start" : "stop";
+    List<ServiceOrchestrator.Outcome> outcomes;
+    try {
+      Collection<String> services = client.getServicesMap().keySet();
+      if (service != null) {
+        services = serviceOrchestrator.withPrerequisites(service.getName(), services, start);
+      }
+      if (start) {
+        outcomes = serviceOrchestrator.start(context.getCluster(), services, TimeUnit.SECONDS.toMillis(timeout));
+      } else {
+        outcomes = serviceOrchestrator.stop(context.getCluster(), services, TimeUnit.SECONDS.toMillis(timeout));
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Cannot %s services: %s", verb, e.getMessage()), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(String.format("Interrupted while the services %s", verb), e);
+    }
+    if (outcomes.isEmpty()) {
+      return "No service to " + verb;
+    }
+    Map<String, String> rows = new LinkedHashMap<String, String>();
+    boolean success = true;
+    for (ServiceOrchestrator.Outcome outcome : outcomes) {
+      rows.put(outcome.getService(), outcome.getMessage());
+      success &= outcome.isSuccessful();
+    }
+    String table = renderSingleMap(rows, "SERVICE", "RESULT");
+    if (!success) {
+      throw new IllegalStateException(String.format("Cannot %s every service\n%s", verb, table));
+    }
+    return table;
+  }
+
+  /**
+   * Waits for the request if asked to. A failed or unfinished request is thrown as an exception,
+   * so the shell reports the command as failed and a command file stops with a non-zero exit status.
+   */
+  private String waitForRequest(String message, int requestId, boolean wait, int timeout) {
+    String result = message;
+    if (wait && requestId > 0) {
+      RequestTracker.RequestState state;
+      try {
+        state = requestTracker.await(context.getCluster(), requestId, TimeUnit.SECONDS.toMillis(timeout));
+      } catch (IOException e) {
+        throw new IllegalStateException(String.format("Cannot follow request %d: %s", requestId, e.getMessage()), e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(String.format("Interrupted while waiting for request %d", requestId), e);
+      }
+      if (!state.isFinished()) {
+        throw new IllegalStateException(String.format("Request %d did not finish in %d seconds: %s %.0f%%",
+          requestId, timeout, state.getStatus(), state.getProgress()));
+      }
+      if (!state.isSuccessful()) {
+        throw new IllegalStateException(String.format("Request %d finished with %s", requestId, state.getStatus()));
+      }
+      result = String.format("%s\nRequest %d completed", message, requestId);
+    } else if (requestId > 0) {
+      flashService.showRequestProgress(context.getCluster(), requestId, message);
     }
-    return String.format("%s\n\n%s", message, servicesList());
+    return String.format("%s\n\n%s", result, servicesList());
   }
 }
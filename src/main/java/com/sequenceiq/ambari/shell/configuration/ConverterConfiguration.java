@@ -17,9 +17,14 @@
  */
 package com.sequenceiq.ambari.shell.configuration;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.shell.converters.AvailableCommandsConverter;
 import org.springframework.shell.converters.BigDecimalConverter;
 import org.springframework.shell.converters.BigIntegerConverter;
@@ -40,6 +45,8 @@ import org.springframework.shell.core.Converter;
 
 import com.sequenceiq.ambari.client.AmbariClient;
 import com.sequenceiq.ambari.shell.converter.BlueprintConverter;
+import com.sequenceiq.ambari.shell.converter.CompletionCache;
+import com.sequenceiq.ambari.shell.converter.CompletionResource;
 import com.sequenceiq.ambari.shell.converter.ConfigTypeConverter;
 import com.sequenceiq.ambari.shell.converter.HostConverter;
 import com.sequenceiq.ambari.shell.converter.ServiceConverter;
@@ -52,6 +59,28 @@ public class ConverterConfiguration {
 
   @Autowired
   private AmbariClient client;
+  @Autowired
+  private Environment environment;
+
+  /**
+   * Completion candidates are cached per resource. The time to live can be overridden in seconds,
+   * e.g: --completion.ttl.host=300, the number of candidates offered with --completion.limit=50 and
+   * the time a completion waits for the Ambari server in milliseconds with --completion.timeout=500
+   */
+  @Bean
+  CompletionCache completionCache() {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("completion-");
+    threadFactory.setDaemon(true);
+    // at most one load per resource is running at a time
+    CompletionCache cache = new CompletionCache(Executors.newCachedThreadPool(threadFactory));
+    for (CompletionResource resource : CompletionResource.values()) {
+      Integer ttl = environment.getProperty("completion.ttl." + resource.getName(), Integer.class, resource.getDefaultTtl());
+      cache.setTtl(resource, ttl, TimeUnit.SECONDS);
+    }
+    cache.setLimit(environment.getProperty("completion.limit", Integer.class, cache.getLimit()));
+    cache.setTimeout(environment.getProperty("completion.timeout", Long.class, cache.getTimeout()), TimeUnit.MILLISECONDS);
+    return cache;
+  }
 
   @Bean
   Converter simpleFileConverter() {
@@ -135,21 +164,21 @@ public class ConverterConfiguration {
 
   @Bean
   Converter blueprintConverter() {
-    return new BlueprintConverter(client);
+    return new BlueprintConverter(client, completionCache());
   }
 
   @Bean
   Converter hostConverter() {
-    return new HostConverter(client);
+    return new HostConverter(client, completionCache());
   }
 
   @Bean
   Converter serviceConverter() {
-    return new ServiceConverter(client);
+    return new ServiceConverter(client, completionCache());
   }
 
   @Bean
   Converter configConverter() {
-    return new ConfigTypeConverter(client);
+    return new ConfigTypeConverter(client, completionCache());
   }
 }
@@ -17,10 +17,14 @@
  */
 package com.sequenceiq.ambari.shell.configuration;
 
+import java.io.File;
+
 import org.codehaus.jackson.map.ObjectMapper;
+import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
 import org.springframework.scheduling.concurrent.ThreadPoolExecutorFactoryBean;
 import org.springframework.shell.CommandLine;
@@ -30,11 +34,23 @@ import org.springframework.shell.commands.HelpCommands;
 import org.springframework.shell.commands.ScriptCommands;
 import org.springframework.shell.commands.VersionCommands;
 import org.springframework.shell.core.CommandMarker;
+import org.springframework.shell.core.ExecutionStrategy;
 import org.springframework.shell.core.JLineShellComponent;
 import org.springframework.shell.plugin.HistoryFileNameProvider;
 import org.springframework.shell.plugin.support.DefaultHistoryFileNameProvider;
 
 import com.sequenceiq.ambari.client.AmbariClient;
+import com.sequenceiq.ambari.shell.blueprint.BlueprintIndex;
+import com.sequenceiq.ambari.shell.customization.AmbariExecutionStrategy;
+import com.sequenceiq.ambari.shell.support.AmbariRestClient;
+import com.sequenceiq.ambari.shell.support.CachingUrlReader;
+import com.sequenceiq.ambari.shell.support.ConfigCache;
+import com.sequenceiq.ambari.shell.support.ConfigHistory;
+import com.sequenceiq.ambari.shell.support.ConfigSearch;
+import com.sequenceiq.ambari.shell.support.RequestTracker;
+import com.sequenceiq.ambari.shell.support.RollingRestart;
+import com.sequenceiq.ambari.shell.support.ServiceOrchestrator;
+import com.sequenceiq.ambari.shell.support.ThreadBoundClientSource;
 
 /**
  * Spring bean definitions.
@@ -42,6 +58,11 @@ import com.sequenceiq.ambari.client.AmbariClient;
 @Configuration
 public class ShellConfiguration {
 
+  private static final int THREAD_POOL_SIZE = 4;
+  private static final int DOWNLOAD_CONNECT_TIMEOUT = 10000;
+  private static final int DOWNLOAD_READ_TIMEOUT = 60000;
+  private static final long MAX_DOWNLOAD_SIZE = 10 * 1024 * 1024;
+
   @Value("${ambari.host:localhost}")
   private String host;
 
@@ -57,9 +78,67 @@ public class ShellConfiguration {
   @Value("${cmdfile:}")
   private String cmdFile;
 
+  @Value("${shell.home:${user.home}/.ambari-shell}")
+  private String shellHome;
+
+  /**
+   * The underlying HTTP client of the AmbariClient uses a single connection
+   * so an instance must not be shared between threads. The shell, the flash
+   * monitors, the completion loaders and the script workers all talk to the
+   * server concurrently, so every thread gets its own client behind this proxy.
+   */
   @Bean
+  @Primary
   AmbariClient createAmbariClient() {
-    return new AmbariClient(host, port, user, password);
+    ProxyFactory proxyFactory = new ProxyFactory();
+    proxyFactory.setTargetSource(new ThreadBoundClientSource(host, port, user, password));
+    proxyFactory.setProxyTargetClass(true);
+    return (AmbariClient) proxyFactory.getProxy();
+  }
+
+  @Bean
+  AmbariRestClient ambariRestClient() {
+    return new AmbariRestClient(host, port, user, password, getObjectMapper());
+  }
+
+  @Bean
+  RequestTracker requestTracker() {
+    return new RequestTracker(ambariRestClient());
+  }
+
+  @Bean
+  ServiceOrchestrator serviceOrchestrator() {
+    return new ServiceOrchestrator(createAmbariClient(), requestTracker(), new File(shellHome, "service-dependencies.properties"));
+  }
+
+  @Bean
+  RollingRestart rollingRestart() {
+    return new RollingRestart(ambariRestClient(), requestTracker());
+  }
+
+  @Bean
+  ConfigCache configCache() {
+    return new ConfigCache(ambariRestClient(), configHistory());
+  }
+
+  @Bean
+  ConfigHistory configHistory() {
+    return new ConfigHistory(new File(shellHome, "configurations/" + host + "_" + port));
+  }
+
+  @Bean
+  ConfigSearch configSearch() {
+    return new ConfigSearch(configCache());
+  }
+
+  @Bean
+  BlueprintIndex blueprintIndex() {
+    return new BlueprintIndex(createAmbariClient(), new File(shellHome, "blueprints/" + host + "_" + port + ".properties"));
+  }
+
+  @Bean
+  CachingUrlReader cachingUrlReader() {
+    return new CachingUrlReader(new File(shellHome, "cache"), DOWNLOAD_CONNECT_TIMEOUT, DOWNLOAD_READ_TIMEOUT, MAX_DOWNLOAD_SIZE);
   }
 
   @Bean
@@ -72,9 +151,20 @@ public class ShellConfiguration {
     return new DefaultHistoryFileNameProvider();
   }
 
+  @Bean
+  ExecutionStrategy executionStrategy() {
+    return new AmbariExecutionStrategy();
+  }
+
   @Bean(name = "shell")
   JLineShellComponent shell() {
-    return new JLineShellComponent();
+    final ExecutionStrategy executionStrategy = executionStrategy();
+    return new JLineShellComponent() {
+      @Override
+      protected ExecutionStrategy getExecutionStrategy() {
+        return executionStrategy;
+      }
+    };
   }
 
   @Bean
@@ -85,7 +175,9 @@ public class ShellConfiguration {
 
   @Bean
   ThreadPoolExecutorFactoryBean getThreadPoolExecutorFactoryBean() {
-    return new ThreadPoolExecutorFactoryBean();
+    ThreadPoolExecutorFactoryBean factoryBean = new ThreadPoolExecutorFactoryBean();
+    factoryBean.setCorePoolSize(THREAD_POOL_SIZE);
+    return factoryBean;
   }
 
   @Bean
@@ -20,9 +20,11 @@ package com.sequenceiq.ambari.shell.converter;
 import java.lang.reflect.Constructor;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.springframework.shell.core.Completion;
 import org.springframework.shell.core.Converter;
+import org.springframework.shell.core.MethodTarget;
 
 import com.sequenceiq.ambari.client.AmbariClient;
 import com.sequenceiq.ambari.shell.completion.AbstractCompletion;
@@ -30,9 +32,13 @@ import com.sequenceiq.ambari.shell.completion.AbstractCompletion;
 public abstract class AbstractConverter<T extends AbstractCompletion> implements Converter<T> {
 
   private AmbariClient client;
+  private CompletionCache cache;
+  private CompletionResource resource;
 
-  protected AbstractConverter(AmbariClient client) {
+  protected AbstractConverter(AmbariClient client, CompletionCache cache, CompletionResource resource) {
     this.client = client;
+    this.cache = cache;
+    this.resource = resource;
   }
 
   @Override
@@ -45,6 +51,16 @@ public abstract class AbstractConverter<T extends AbstractCompletion> implements
     }
   }
 
+  @Override
+  public boolean getAllPossibleValues(List<Completion> completions, Class<?> targetType, String existingData, String optionContext, MethodTarget target) {
+    return getAllPossibleValues(completions, cache.complete(resource, existingData, new Callable<Collection<String>>() {
+      @Override
+      public Collection<String> call() {
+        return loadCandidates();
+      }
+    }));
+  }
+
   public boolean getAllPossibleValues(List<Completion> completions, Collection<String> values) {
     for (String value : values) {
       completions.add(new Completion(value));
@@ -56,4 +72,12 @@ public abstract class AbstractConverter<T extends AbstractCompletion> implements
     return client;
   }
 
+  /**
+   * Loads the completion candidates from the Ambari server. The result is cached
+   * by the {@link CompletionCache}, so this is not called on every keystroke.
+   *
+   * @return candidates
+   */
+  protected abstract Collection<String> loadCandidates();
+
 }
@@ -17,18 +17,15 @@
  */
 package com.sequenceiq.ambari.shell.converter;
 
-import java.util.List;
-
-import org.springframework.shell.core.Completion;
-import org.springframework.shell.core.MethodTarget;
+import java.util.Collection;
 
 import com.sequenceiq.ambari.client.AmbariClient;
 import com.sequenceiq.ambari.shell.completion.Blueprint;
 
 public class BlueprintConverter extends AbstractConverter<Blueprint> {
 
-  public BlueprintConverter(AmbariClient client) {
-    super(client);
+  public BlueprintConverter(AmbariClient client, CompletionCache cache) {
+    super(client, cache, CompletionResource.BLUEPRINT);
   }
 
   @Override
@@ -37,7 +34,7 @@ public class BlueprintConverter extends AbstractConverter<Blueprint> {
   }
 
   @Override
-  public boolean getAllPossibleValues(List<Completion> completions, Class<?> targetType, String existingData, String optionContext, MethodTarget target) {
-    return getAllPossibleValues(completions, getClient().getBlueprintsMap().keySet());
+  protected Collection<String> loadCandidates() {
+    return getClient().getBlueprintsMap().keySet();
   }
 }
@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.converter;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable, sorted set of completion candidates. Looking up the candidates
+ * of a prefix is a binary search, so only the matching slice is touched.
+ */
+public final class CandidateIndex {
+
+  private final String[] candidates;
+
+  public CandidateIndex(Collection<String> values) {
+    String[] sorted = values.toArray(new String[values.size()]);
+    Arrays.sort(sorted);
+    this.candidates = sorted;
+  }
+
+  /**
+   * Returns the candidates starting with the given prefix in alphabetical order.
+   *
+   * @param prefix already typed text, null or empty matches every candidate
+   * @param limit  maximum number of candidates to return
+   * @return matching candidates
+   */
+  public List<String> complete(String prefix, int limit) {
+    String start = prefix == null ? "" : prefix;
+    List<String> result = new ArrayList<String>(Math.min(limit, 16));
+    for (int i = lowerBound(start); i < candidates.length && result.size() < limit; i++) {
+      if (!candidates[i].startsWith(start)) {
+        break;
+      }
+      result.add(candidates[i]);
+    }
+    return result;
+  }
+
+  /**
+   * Checks whether the candidate is in the index.
+   *
+   * @param value value to look for
+   * @return true if present false otherwise
+   */
+  public boolean contains(String value) {
+    return value != null && Arrays.binarySearch(candidates, value) >= 0;
+  }
+
+  public int size() {
+    return candidates.length;
+  }
+
+  public List<String> values() {
+    return unmodifiableList(asList(candidates));
+  }
+
+  private int lowerBound(String prefix) {
+    int index = Arrays.binarySearch(candidates, prefix);
+    return index < 0 ? -index - 1 : index;
+  }
+}
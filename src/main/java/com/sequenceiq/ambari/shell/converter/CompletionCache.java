@@ -0,0 +1,232 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.converter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the completion candidates of the converters, so pressing TAB does not
+ * require a REST call every time. The candidates are always loaded in the background;
+ * the completing thread waits for them at most until the configured deadline, after that
+ * it gets the last known candidates (if any) and the load finishes in the background.
+ * Expired candidates are served right away while they are refreshed. Invalidated
+ * candidates are reloaded on the next access.
+ */
+public class CompletionCache {
+
+  private static final int DEFAULT_LIMIT = 100;
+  private static final long DEFAULT_TIMEOUT = 150;
+
+  private final ExecutorService executor;
+  private final Map<CompletionResource, Long> ttls = new EnumMap<CompletionResource, Long>(CompletionResource.class);
+  private final Map<CompletionResource, AtomicLong> generations = new EnumMap<CompletionResource, AtomicLong>(CompletionResource.class);
+  private final ConcurrentMap<CompletionResource, Entry> entries = new ConcurrentHashMap<CompletionResource, Entry>();
+  private final ConcurrentMap<CompletionResource, Refresh> refreshes = new ConcurrentHashMap<CompletionResource, Refresh>();
+  private volatile int limit = DEFAULT_LIMIT;
+  private volatile long timeout = DEFAULT_TIMEOUT;
+
+  public CompletionCache(ExecutorService executor) {
+    this.executor = executor;
+    for (CompletionResource resource : CompletionResource.values()) {
+      ttls.put(resource, TimeUnit.SECONDS.toMillis(resource.getDefaultTtl()));
+      generations.put(resource, new AtomicLong());
+    }
+  }
+
+  /**
+   * Overrides the default time to live of a resource's candidates.
+   *
+   * @param resource resource to configure
+   * @param ttl      time to live
+   * @param unit     unit of the time to live
+   */
+  public void setTtl(CompletionResource resource, long ttl, TimeUnit unit) {
+    ttls.put(resource, unit.toMillis(ttl));
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * Sets the maximum number of candidates returned for a single completion.
+   *
+   * @param limit maximum number of candidates
+   */
+  public void setLimit(int limit) {
+    this.limit = limit;
+  }
+
+  public long getTimeout() {
+    return timeout;
+  }
+
+  /**
+   * Sets how long a completion waits for candidates which are not loaded yet.
+   *
+   * @param timeout deadline of the completion
+   * @param unit    unit of the deadline
+   */
+  public void setTimeout(long timeout, TimeUnit unit) {
+    this.timeout = unit.toMillis(timeout);
+  }
+
+  /**
+   * Returns the candidates of the resource starting with the already typed text,
+   * at most as many as the configured limit.
+   *
+   * @param resource resource to complete
+   * @param prefix   already typed text
+   * @param loader   loads the candidates from the Ambari server
+   * @return matching candidates, empty if they cannot be loaded in time
+   */
+  public List<String> complete(CompletionResource resource, String prefix, Callable<Collection<String>> loader) {
+    CandidateIndex index = get(resource, loader);
+    return index == null ? Collections.<String>emptyList() : index.complete(prefix, limit);
+  }
+
+  /**
+   * Returns the candidates of the resource. Never blocks longer than the configured timeout.
+   *
+   * @param resource resource to complete
+   * @param loader   loads the candidates from the Ambari server
+   * @return candidates, the last known ones or null if they cannot be loaded in time
+   */
+  public CandidateIndex get(CompletionResource resource, Callable<Collection<String>> loader) {
+    Entry entry = entries.get(resource);
+    if (entry != null && !entry.isExpired(ttls.get(resource))) {
+      return entry.index;
+    }
+    Future<CandidateIndex> refresh = refresh(resource, loader);
+    if (entry != null && entry.valid) {
+      return entry.index;
+    }
+    CandidateIndex lastKnown = entry == null ? null : entry.index;
+    try {
+      CandidateIndex index = refresh.get(timeout, TimeUnit.MILLISECONDS);
+      return index == null ? lastKnown : index;
+    } catch (TimeoutException e) {
+      return lastKnown;
+    } catch (ExecutionException e) {
+      return lastKnown;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return lastKnown;
+    }
+  }
+
+  /**
+   * Marks the cached candidates of the given resources as outdated. Should be called
+   * after every command which changes them.
+   *
+   * @param resources resources to invalidate
+   */
+  public void invalidate(CompletionResource... resources) {
+    for (CompletionResource resource : resources) {
+      generations.get(resource).incrementAndGet();
+      Entry entry = entries.get(resource);
+      if (entry != null) {
+        entries.replace(resource, entry, entry.invalidate());
+      }
+      // a load started before the change might return outdated candidates
+      refreshes.remove(resource);
+    }
+  }
+
+  private Future<CandidateIndex> refresh(CompletionResource resource, Callable<Collection<String>> loader) {
+    Refresh refresh = new Refresh(resource, loader, generations.get(resource).get());
+    while (true) {
+      Refresh running = refreshes.putIfAbsent(resource, refresh);
+      if (running == null) {
+        executor.execute(refresh);
+        return refresh;
+      }
+      if (!running.isDone()) {
+        return running;
+      }
+      refreshes.remove(resource, running);
+    }
+  }
+
+  private final class Refresh extends FutureTask<CandidateIndex> {
+    private final CompletionResource resource;
+
+    private Refresh(final CompletionResource resource, final Callable<Collection<String>> loader, final long generation) {
+      super(new Callable<CandidateIndex>() {
+        @Override
+        public CandidateIndex call() throws Exception {
+          Collection<String> values = loader.call();
+          CandidateIndex index = new CandidateIndex(values == null ? Collections.<String>emptyList() : values);
+          if (generations.get(resource).get() == generation) {
+            entries.put(resource, new Entry(index, true));
+          } else {
+            Entry current = entries.get(resource);
+            if (current == null || !current.valid) {
+              entries.put(resource, new Entry(index, false));
+            }
+          }
+          return index;
+        }
+      });
+      this.resource = resource;
+    }
+
+    @Override
+    protected void done() {
+      refreshes.remove(resource, this);
+    }
+  }
+
+  private static final class Entry {
+    private final CandidateIndex index;
+    private final long loaded;
+    private final boolean valid;
+
+    private Entry(CandidateIndex index, boolean valid) {
+      this(index, System.currentTimeMillis(), valid);
+    }
+
+    private Entry(CandidateIndex index, long loaded, boolean valid) {
+      this.index = index;
+      this.loaded = loaded;
+      this.valid = valid;
+    }
+
+    private Entry invalidate() {
+      return new Entry(index, loaded, false);
+    }
+
+    private boolean isExpired(long ttl) {
+      return !valid || System.currentTimeMillis() - loaded >= ttl;
+    }
+  }
+}
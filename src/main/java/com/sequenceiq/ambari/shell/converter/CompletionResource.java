@@ -0,0 +1,65 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.converter;
+
+/**
+ * Resources the shell provides completion candidates for.
+ */
+public enum CompletionResource {
+
+  /**
+   * Names of the blueprints known by the Ambari server.
+   */
+  BLUEPRINT("blueprint", 300),
+
+  /**
+   * Names of the hosts registered to the Ambari server.
+   */
+  HOST("host", 60),
+
+  /**
+   * Names of the installed services.
+   */
+  SERVICE("service", 60),
+
+  /**
+   * Names of the configuration types of the cluster.
+   */
+  CONFIG_TYPE("configType", 300);
+
+  private final String name;
+  private final int defaultTtl;
+
+  private CompletionResource(String name, int defaultTtl) {
+    this.name = name;
+    this.defaultTtl = defaultTtl;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns how long the candidates are considered to be fresh if not configured otherwise.
+   *
+   * @return time to live in seconds
+   */
+  public int getDefaultTtl() {
+    return defaultTtl;
+  }
+}
@@ -17,18 +17,15 @@
  */
 package com.sequenceiq.ambari.shell.converter;
 
-import java.util.List;
-
-import org.springframework.shell.core.Completion;
-import org.springframework.shell.core.MethodTarget;
+import java.util.Collection;
 
 import com.sequenceiq.ambari.client.AmbariClient;
 import com.sequenceiq.ambari.shell.completion.ConfigType;
 
 public class ConfigTypeConverter extends AbstractConverter<ConfigType> {
 
-  public ConfigTypeConverter(AmbariClient client) {
-    super(client);
+  public ConfigTypeConverter(AmbariClient client, CompletionCache cache) {
+    super(client, cache, CompletionResource.CONFIG_TYPE);
   }
 
   @Override
@@ -37,7 +34,7 @@ public class ConfigTypeConverter extends AbstractConverter<ConfigType> {
   }
 
   @Override
-  public boolean getAllPossibleValues(List<Completion> completions, Class<?> aClass, String s, String s2, MethodTarget methodTarget) {
-    return getAllPossibleValues(completions, getClient().getServiceConfigMap().keySet());
+  protected Collection<String> loadCandidates() {
+    return getClient().getServiceConfigMap().keySet();
   }
 }
@@ -17,18 +17,15 @@
  */
 package com.sequenceiq.ambari.shell.converter;
 
-import java.util.List;
-
-import org.springframework.shell.core.Completion;
-import org.springframework.shell.core.MethodTarget;
+import java.util.Collection;
 
 import com.sequenceiq.ambari.client.AmbariClient;
 import com.sequenceiq.ambari.shell.completion.Host;
 
 public class HostConverter extends AbstractConverter<Host> {
 
-  public HostConverter(AmbariClient client) {
-    super(client);
+  public HostConverter(AmbariClient client, CompletionCache cache) {
+    super(client, cache, CompletionResource.HOST);
   }
 
   @Override
@@ -37,7 +34,7 @@ public class HostConverter extends AbstractConverter<Host> {
   }
 
   @Override
-  public boolean getAllPossibleValues(List<Completion> completions, Class<?> targetType, String existingData, String optionContext, MethodTarget target) {
-    return getAllPossibleValues(completions, getClient().getHostNames().keySet());
+  protected Collection<String> loadCandidates() {
+    return getClient().getHostNames().keySet();
   }
 }
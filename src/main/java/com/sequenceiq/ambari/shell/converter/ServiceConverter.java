@@ -17,18 +17,15 @@
  */
 package com.sequenceiq.ambari.shell.converter;
 
-import java.util.List;
-
-import org.springframework.shell.core.Completion;
-import org.springframework.shell.core.MethodTarget;
+import java.util.Collection;
 
 import com.sequenceiq.ambari.client.AmbariClient;
 import com.sequenceiq.ambari.shell.completion.Service;
 
 public class ServiceConverter extends AbstractConverter<Service> {
 
-  public ServiceConverter(AmbariClient client) {
-    super(client);
+  public ServiceConverter(AmbariClient client, CompletionCache cache) {
+    super(client, cache, CompletionResource.SERVICE);
   }
 
   @Override
@@ -37,7 +34,7 @@ public class ServiceConverter extends AbstractConverter<Service> {
   }
 
   @Override
-  public boolean getAllPossibleValues(List<Completion> completions, Class<?> targetType, String existingData, String optionContext, MethodTarget target) {
-    return getAllPossibleValues(completions, getClient().getServicesMap().keySet());
+  protected Collection<String> loadCandidates() {
+    return getClient().getServicesMap().keySet();
   }
 }
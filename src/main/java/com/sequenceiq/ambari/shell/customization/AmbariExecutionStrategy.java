@@ -0,0 +1,100 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.customization;
+
+import static java.util.Arrays.asList;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+import org.springframework.shell.core.ExecutionStrategy;
+import org.springframework.shell.core.annotation.CliCommand;
+import org.springframework.shell.event.ParseResult;
+import org.springframework.shell.support.logging.HandlerUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Executes the commands of the shell. The default strategy of Spring Shell runs one command at a time,
+ * which would serialize the parallel blocks of the command files and the clients of the daemon. Commands
+ * which change the focus or the host assignments, write the local configuration files or run other
+ * commands run alone, every other command runs at the same time.
+ */
+public class AmbariExecutionStrategy implements ExecutionStrategy {
+
+  private static final Set<String> EXCLUSIVE_COMMANDS = new HashSet<String>(asList(
+    "cluster assign", "cluster autoAssign", "cluster build", "cluster create", "cluster reset",
+    "configuration download", "configuration modify", "configuration set", "configuration show",
+    "host focus", "script"));
+
+  private final Logger logger = HandlerUtils.getLogger(getClass());
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  @Override
+  public Object execute(ParseResult parseResult) throws RuntimeException {
+    boolean exclusive = isExclusive(parseResult);
+    if (!exclusive) {
+      lock.readLock().lock();
+    } else {
+      lock.writeLock().lock();
+    }
+    try {
+      return ReflectionUtils.invokeMethod(parseResult.getMethod(), parseResult.getInstance(), parseResult.getArguments());
+    } catch (RuntimeException e) {
+      logger.severe("Command failed " + e);
+      throw e;
+    } finally {
+      if (!exclusive) {
+        lock.readLock().unlock();
+      } else {
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  @Override
+  public boolean isReadyForCommands() {
+    return true;
+  }
+
+  @Override
+  public void terminate() {
+    // nothing to release
+  }
+
+  /**
+   * Checks whether the command has to run alone or not.
+   *
+   * @param parseResult parsed command
+   * @return true if no other command can run together with the command
+   */
+  static boolean isExclusive(ParseResult parseResult) {
+    CliCommand command = parseResult.getMethod().getAnnotation(CliCommand.class);
+    if (command == null) {
+      return true;
+    }
+    for (String name : command.value()) {
+      if (EXCLUSIVE_COMMANDS.contains(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.daemon;
+
+import static com.sequenceiq.ambari.shell.daemon.DaemonProtocol.CHARSET;
+import static com.sequenceiq.ambari.shell.daemon.DaemonProtocol.FAILURE;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Thin client of the {@link ShellDaemon}. Sends the commands given as arguments, read
+ * from a --cmdfile or from the standard input to the running daemon and prints the output.
+ * A daemon started with a custom --shell.home is found with the same option.
+ * Uses the JDK only, so it starts in milliseconds:
+ * <pre>
+ *   java -cp ambari-shell.jar com.sequenceiq.ambari.shell.daemon.DaemonClient "blueprint list" "host list"
+ * </pre>
+ */
+public final class DaemonClient {
+
+  private static final String CMD_FILE = "--cmdfile=";
+  private static final String SHELL_HOME = "--shell.home=";
+
+  private DaemonClient() {
+    throw new IllegalStateException();
+  }
+
+  public static void main(String[] args) {
+    String shellHome = null;
+    String[] commands = args;
+    if (args.length > 0 && args[0].startsWith(SHELL_HOME)) {
+      shellHome = args[0].substring(SHELL_HOME.length());
+      commands = Arrays.copyOfRange(args, 1, args.length);
+    }
+    File daemonFile = DaemonProtocol.getDaemonFile(shellHome);
+    if (!daemonFile.exists()) {
+      System.err.println("No running Ambari Shell daemon, start one with: java -jar ambari-shell.jar --daemon");
+      System.exit(FAILURE);
+    }
+    try {
+      System.exit(send(DaemonProtocol.readDaemonFile(daemonFile), readCommands(commands)));
+    } catch (IOException e) {
+      System.err.println("Cannot communicate with the Ambari Shell daemon: " + e.getMessage());
+      System.exit(FAILURE);
+    }
+  }
+
+  private static List<String> readCommands(String[] args) throws IOException {
+    if (args.length == 0) {
+      return readLines(System.in);
+    }
+    if (args.length == 1 && args[0].startsWith(CMD_FILE)) {
+      return readLines(new FileInputStream(args[0].substring(CMD_FILE.length())));
+    }
+    return Arrays.asList(args);
+  }
+
+  private static List<String> readLines(InputStream inputStream) throws IOException {
+    List<String> lines = new ArrayList<String>();
+    BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, CHARSET));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+    } finally {
+      reader.close();
+    }
+    return lines;
+  }
+
+  private static int send(String[] daemon, List<String> commands) throws IOException {
+    Socket socket = new Socket(InetAddress.getByName("127.0.0.1"), Integer.parseInt(daemon[0]));
+    try {
+      Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), CHARSET));
+      writer.write(daemon[1] + "\n");
+      for (String command : commands) {
+        writer.write(command + "\n");
+      }
+      writer.flush();
+      socket.shutdownOutput();
+      BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), CHARSET));
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (DaemonProtocol.isExitLine(line)) {
+          return DaemonProtocol.getExitStatus(line);
+        }
+        System.out.println(line);
+      }
+      return FAILURE;
+    } finally {
+      socket.close();
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.daemon;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.EnumSet;
+
+/**
+ * Shared between the {@link ShellDaemon} and the {@link DaemonClient}. Must not depend
+ * on anything but the JDK, because the client runs without the rest of the shell.
+ * <p/>
+ * The client connects to the loopback port found in the daemon file, sends the token
+ * found in the same file, then the commands one per line. The daemon answers with the
+ * output of the commands followed by the exit status line.
+ */
+public final class DaemonProtocol {
+
+  public static final Charset CHARSET = Charset.forName("UTF-8");
+  public static final String EXIT_PREFIX = "#ambari-shell-exit:";
+  public static final int SUCCESS = 0;
+  public static final int FAILURE = 1;
+  public static final int UNAUTHORIZED = 2;
+
+  private static final String SHELL_HOME = ".ambari-shell";
+  private static final String DAEMON_FILE = "daemon";
+
+  private DaemonProtocol() {
+    throw new IllegalStateException();
+  }
+
+  /**
+   * Returns the file which holds the port and the token of the running daemon.
+   *
+   * @param shellHome home directory of the shell or null for the default ~/.ambari-shell
+   * @return daemon file in the home directory of the shell
+   */
+  public static File getDaemonFile(String shellHome) {
+    File home = shellHome == null ? new File(System.getProperty("user.home"), SHELL_HOME) : new File(shellHome);
+    return new File(home, DAEMON_FILE);
+  }
+
+  /**
+   * Writes the port and the token readable only by the owner. The file is created with
+   * these permissions, so it is never readable by others, not even for a moment. A missing
+   * home directory of the shell is created accessible only by the owner.
+   *
+   * @param file  daemon file
+   * @param port  port the daemon listens on
+   * @param token secret the clients have to send
+   * @throws IOException if the file cannot be written
+   */
+  public static void writeDaemonFile(File file, int port, String token) throws IOException {
+    Path parent = file.getAbsoluteFile().getParentFile().toPath();
+    Path path = file.toPath();
+    Files.deleteIfExists(path);
+    try {
+      Files.createDirectories(parent, PosixFilePermissions.asFileAttribute(
+        EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE)));
+      Files.createFile(path, PosixFilePermissions.asFileAttribute(
+        EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE)));
+    } catch (UnsupportedOperationException e) {
+      Files.createDirectories(parent);
+      Files.createFile(path);
+      file.setReadable(false, false);
+      file.setReadable(true, true);
+    }
+    BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), CHARSET));
+    try {
+      writer.write(port + "\n" + token + "\n");
+    } finally {
+      writer.close();
+    }
+  }
+
+  /**
+   * Reads the port and the token of the running daemon.
+   *
+   * @param file daemon file
+   * @return port and token
+   * @throws IOException if the file cannot be read
+   */
+  public static String[] readDaemonFile(File file) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), CHARSET));
+    try {
+      String port = reader.readLine();
+      String token = reader.readLine();
+      if (port == null || token == null) {
+        throw new IOException("Invalid daemon file: " + file);
+      }
+      return new String[]{port.trim(), token.trim()};
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Checks whether the line is the last line of the daemon's answer.
+   *
+   * @param line line sent by the daemon
+   * @return true if it holds the exit status
+   */
+  public static boolean isExitLine(String line) {
+    return line.startsWith(EXIT_PREFIX);
+  }
+
+  /**
+   * Returns the exit status held by the exit line.
+   *
+   * @param line exit line
+   * @return exit status
+   */
+  public static int getExitStatus(String line) {
+    try {
+      return Integer.parseInt(line.substring(EXIT_PREFIX.length()).trim());
+    } catch (NumberFormatException e) {
+      return FAILURE;
+    }
+  }
+}
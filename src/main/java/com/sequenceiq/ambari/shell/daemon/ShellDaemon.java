@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.daemon;
+
+import static com.sequenceiq.ambari.shell.daemon.DaemonProtocol.CHARSET;
+import static com.sequenceiq.ambari.shell.daemon.DaemonProtocol.EXIT_PREFIX;
+import static com.sequenceiq.ambari.shell.daemon.DaemonProtocol.FAILURE;
+import static com.sequenceiq.ambari.shell.daemon.DaemonProtocol.SUCCESS;
+import static com.sequenceiq.ambari.shell.daemon.DaemonProtocol.UNAUTHORIZED;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+import org.springframework.shell.core.CommandResult;
+import org.springframework.shell.core.JLineShellComponent;
+
+/**
+ * Keeps the shell running and executes the commands sent by the {@link DaemonClient}, so
+ * scripted invocations do not pay for the JVM start, the Spring context and the first
+ * connection to the Ambari server. Listens on the loopback interface only and requires
+ * the token of the daemon file, which is readable only by its owner. Clients are served
+ * one after the other, because the shell executes a single command at a time.
+ */
+public class ShellDaemon {
+
+  private static final int READ_TIMEOUT = 30000;
+  private static final int TOKEN_BITS = 130;
+  private static final int TOKEN_RADIX = 32;
+
+  private final JLineShellComponent shell;
+  private final int port;
+  private final File daemonFile;
+  private volatile boolean running = true;
+
+  public ShellDaemon(JLineShellComponent shell, int port, File daemonFile) {
+    this.shell = shell;
+    this.port = port;
+    this.daemonFile = daemonFile;
+  }
+
+  /**
+   * Serves the clients until one of them sends the quit or the exit command.
+   *
+   * @throws IOException if the daemon cannot listen on the port
+   */
+  public void serve() throws IOException {
+    ServerSocket server = new ServerSocket(port, 0, InetAddress.getByName("127.0.0.1"));
+    try {
+      String token = new BigInteger(TOKEN_BITS, new SecureRandom()).toString(TOKEN_RADIX);
+      DaemonProtocol.writeDaemonFile(daemonFile, server.getLocalPort(), token);
+      System.out.println("Ambari Shell daemon is listening on port " + server.getLocalPort());
+      while (running) {
+        Socket socket = server.accept();
+        try {
+          handle(socket, token);
+        } catch (IOException e) {
+          // the client went away, serve the next one
+        } finally {
+          socket.close();
+        }
+      }
+    } finally {
+      server.close();
+      daemonFile.delete();
+    }
+  }
+
+  private void handle(Socket socket, String token) throws IOException {
+    socket.setSoTimeout(READ_TIMEOUT);
+    BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), CHARSET));
+    Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), CHARSET));
+    int status = SUCCESS;
+    if (isAuthorized(reader.readLine(), token)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String command = line.trim();
+        if (command.isEmpty() || command.startsWith("//") || command.startsWith(";")) {
+          continue;
+        }
+        if ("quit".equals(command) || "exit".equals(command)) {
+          running = false;
+          break;
+        }
+        if (!execute(command, writer)) {
+          status = FAILURE;
+          break;
+        }
+      }
+    } else {
+      status = UNAUTHORIZED;
+    }
+    writer.write(EXIT_PREFIX + status + "\n");
+    writer.flush();
+  }
+
+  private boolean execute(String command, Writer writer) throws IOException {
+    CommandResult result = shell.executeCommand(command);
+    if (result.getResult() != null) {
+      writer.write(result.getResult() + "\n");
+    }
+    if (!result.isSuccess()) {
+      Throwable exception = result.getException();
+      writer.write(String.format("Command failed: %s%s\n", command, exception == null ? "" : ", " + exception.getMessage()));
+    }
+    writer.flush();
+    return result.isSuccess();
+  }
+
+  private boolean isAuthorized(String received, String token) {
+    return received != null && MessageDigest.isEqual(token.getBytes(CHARSET), received.trim().getBytes(CHARSET));
+  }
+}
@@ -17,43 +17,73 @@
  */
 package com.sequenceiq.ambari.shell.flash;
 
-import static java.lang.Thread.sleep;
-
-import java.util.logging.Level;
-
-import org.springframework.shell.core.JLineShellComponent;
+import java.util.Random;
 
 /**
- * Base class for showing flash messages.
+ * Base class for showing flash messages. A flash is a monitor polled by the {@link FlashService}:
+ * often while its text changes and with an exponentially growing, jittered interval while it does
+ * not. The text is written to the flash slot of the monitor only when it changes.
  */
-public abstract class AbstractFlash implements Runnable {
+public abstract class AbstractFlash {
 
-  private static final int SLEEP_TIME = 1500;
-  private volatile boolean stop;
-  private FlashType flashType;
-  private JLineShellComponent shell;
+  private static final long MIN_SLEEP_TIME = 1000;
+  private static final long MAX_SLEEP_TIME = 16000;
+  private final Random random = new Random();
+  private final FlashType flashType;
+  private final String slot;
+  private String lastText;
+  private long interval = MIN_SLEEP_TIME;
+
+  protected AbstractFlash(FlashType flashType) {
+    this(flashType, null);
+  }
 
-  protected AbstractFlash(JLineShellComponent shell, FlashType flashType) {
-    this.shell = shell;
+  /**
+   * @param flashType type of the flash
+   * @param id        distinguishes the flashes of the same type shown at the same time, can be null
+   */
+  protected AbstractFlash(FlashType flashType, String id) {
     this.flashType = flashType;
+    this.slot = id == null ? flashType.getName() : flashType.getName() + "-" + id;
+  }
+
+  /**
+   * Returns the name of the flash slot of this monitor.
+   *
+   * @return slot name
+   */
+  public String getSlot() {
+    return slot;
+  }
+
+  public FlashType getFlashType() {
+    return flashType;
   }
 
-  @Override
-  public void run() {
-    while (!stop) {
-      String text = null;
-      try {
-        text = getText();
-        if (text.isEmpty()) {
-          stop = true;
-        }
-        sleep(SLEEP_TIME);
-      } catch (Exception e) {
-        // ignore
-      } finally {
-        shell.flash(Level.SEVERE, text == null ? "" : text, flashType.getName());
+  /**
+   * Reads the text once and writes it if it has changed.
+   *
+   * @param writer receives the changed text
+   * @return time until the next poll in milliseconds or -1 if the flash is removed
+   */
+  long poll(FlashWriter writer) {
+    String text = null;
+    try {
+      text = getText();
+    } catch (Exception e) {
+      // ignore
+    }
+    if (text != null && !text.equals(lastText)) {
+      writer.write(slot, text);
+      lastText = text;
+      interval = MIN_SLEEP_TIME;
+      if (text.isEmpty()) {
+        return -1;
       }
+    } else {
+      interval = Math.min(interval * 2, MAX_SLEEP_TIME);
     }
+    return jitter(interval);
   }
 
   /**
@@ -63,4 +93,28 @@ public abstract class AbstractFlash implements Runnable {
    * @return message
    */
   public abstract String getText();
+
+  /**
+   * Tells whether the shell should exit once the flash is removed.
+   *
+   * @return false by default
+   */
+  public boolean isExitRequested() {
+    return false;
+  }
+
+  /**
+   * Spreads the polls of the flashes started together between the half and the whole interval.
+   */
+  protected long jitter(long interval) {
+    return interval / 2 + (long) (random.nextDouble() * (interval / 2));
+  }
+
+  /**
+   * Receives the changed texts of the flashes.
+   */
+  interface FlashWriter {
+
+    void write(String slot, String text);
+  }
 }
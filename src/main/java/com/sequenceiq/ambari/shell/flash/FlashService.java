@@ -17,32 +17,132 @@
  */
 package com.sequenceiq.ambari.shell.flash;
 
-import java.util.concurrent.ExecutorService;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.shell.core.JLineShellComponent;
 import org.springframework.stereotype.Service;
 
 import com.sequenceiq.ambari.client.AmbariClient;
+import com.sequenceiq.ambari.shell.support.RequestTracker;
+import com.sequenceiq.ambari.shell.support.RollingRestart;
 
 /**
- * Service for managing the flashes.
+ * Service for managing the flashes. Every flash is a monitor with its own flash slot, polled by a
+ * shared scheduler instead of a thread of its own. The scheduler has 2 threads, so no more than 2
+ * polls talk to the server at the same time however many flashes are shown. The changed texts are
+ * collected for a short while and written to the terminal together. If a removed flash requests
+ * it, the shell is quit from a thread of its own so the scheduler is never blocked by the shutdown.
  */
 @Service
 public class FlashService {
 
+  private static final int POLLING_THREADS = 2;
+  private static final long WRITE_DELAY = 100;
+
   private AmbariClient client;
   private JLineShellComponent shell;
-  private ExecutorService executorService;
+  private RequestTracker requestTracker;
+  private final ScheduledExecutorService scheduler;
+  private final ConcurrentMap<String, AbstractFlash> flashes = new ConcurrentHashMap<String, AbstractFlash>();
+  private final ConcurrentMap<String, String> pendingTexts = new ConcurrentHashMap<String, String>();
+  private final AtomicBoolean writeScheduled = new AtomicBoolean();
+  private final AbstractFlash.FlashWriter writer = new AbstractFlash.FlashWriter() {
+    @Override
+    public void write(String slot, String text) {
+      pendingTexts.put(slot, text);
+      if (writeScheduled.compareAndSet(false, true)) {
+        scheduler.schedule(new Runnable() {
+          @Override
+          public void run() {
+            writePendingTexts();
+          }
+        }, WRITE_DELAY, TimeUnit.MILLISECONDS);
+      }
+    }
+  };
 
   @Autowired
-  public FlashService(AmbariClient client, JLineShellComponent shell, ExecutorService executorService) {
+  public FlashService(AmbariClient client, JLineShellComponent shell, RequestTracker requestTracker) {
     this.client = client;
     this.shell = shell;
-    this.executorService = executorService;
+    this.requestTracker = requestTracker;
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("flash-");
+    threadFactory.setDaemon(true);
+    this.scheduler = Executors.newScheduledThreadPool(POLLING_THREADS, threadFactory);
   }
 
   public void showInstallProgress(boolean exit) {
-    executorService.submit(new InstallProgress(shell, client, exit));
+    show(new InstallProgress(client, exit));
+  }
+
+  public void showRequestProgress(String cluster, int requestId, String title) {
+    show(new RequestProgress(requestTracker, cluster, requestId, title));
+  }
+
+  public void showRestartProgress(String component, List<RollingRestart.Batch> batches) {
+    show(new RestartProgress(component, batches));
+  }
+
+  public boolean showHeartbeat(int expectedHosts) {
+    return show(new HeartbeatProgress(client, expectedHosts));
+  }
+
+  /**
+   * Starts polling a flash unless a flash is already shown in its slot.
+   *
+   * @param flash flash to show
+   * @return true if the flash is started false if its slot is taken
+   */
+  public boolean show(AbstractFlash flash) {
+    boolean free = flashes.putIfAbsent(flash.getSlot(), flash) == null;
+    if (free) {
+      schedule(flash, 0);
+    }
+    return free;
+  }
+
+  private void schedule(final AbstractFlash flash, long delay) {
+    scheduler.schedule(new Runnable() {
+      @Override
+      public void run() {
+        long next = flash.poll(writer);
+        if (next < 0) {
+          flashes.remove(flash.getSlot(), flash);
+          if (flash.isExitRequested()) {
+            quitShell();
+          }
+        } else {
+          schedule(flash, next);
+        }
+      }
+    }, delay, TimeUnit.MILLISECONDS);
+  }
+
+  private void quitShell() {
+    new Thread(new Runnable() {
+      @Override
+      public void run() {
+        shell.executeCommand("quit");
+      }
+    }, "flash-quit").start();
+  }
+
+  private void writePendingTexts() {
+    writeScheduled.set(false);
+    for (String slot : pendingTexts.keySet()) {
+      String text = pendingTexts.remove(slot);
+      if (text != null) {
+        shell.flash(Level.SEVERE, text, slot);
+      }
+    }
   }
 }
@@ -25,7 +25,22 @@ public enum FlashType {
   /**
    * Install progress percentage flash.
    */
-  INSTALL("install");
+  INSTALL("install"),
+
+  /**
+   * Progress of a request started by a command, e.g. starting a service.
+   */
+  REQUEST("request"),
+
+  /**
+   * Progress of the batches of a rolling restart.
+   */
+  RESTART("restart"),
+
+  /**
+   * Heartbeat of the hosts until they are all healthy.
+   */
+  HEARTBEAT("heartbeat");
 
   private String name;
 
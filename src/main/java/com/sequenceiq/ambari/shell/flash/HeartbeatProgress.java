@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.flash;
+
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.sequenceiq.ambari.client.AmbariClient;
+
+/**
+ * Shows the heartbeat of the hosts, e.g. while the agents of new hosts register, until the
+ * expected number of hosts are healthy or the hosts cannot be read several times in a row.
+ */
+public class HeartbeatProgress extends AbstractFlash {
+
+  private static final String HEALTHY = "HEALTHY";
+  private static final int MAX_LISTED_HOSTS = 3;
+  private static final int MAX_FAILURES = 3;
+  private final AmbariClient client;
+  private final int expectedHosts;
+  private volatile boolean done;
+  private int failures;
+
+  /**
+   * @param client        client of the Ambari server
+   * @param expectedHosts number of hosts to wait for, 0 to wait for the registered ones only
+   */
+  public HeartbeatProgress(AmbariClient client, int expectedHosts) {
+    super(FlashType.HEARTBEAT);
+    this.client = client;
+    this.expectedHosts = expectedHosts;
+  }
+
+  @Override
+  public String getText() {
+    StringBuilder sb = new StringBuilder();
+    if (!done) {
+      Map<String, String> hosts;
+      try {
+        hosts = client.getHostNames();
+        failures = 0;
+      } catch (RuntimeException e) {
+        if (++failures < MAX_FAILURES) {
+          throw e;
+        }
+        done = true;
+        return "Hosts: cannot read the heartbeat of the hosts";
+      }
+      TreeSet<String> unhealthy = new TreeSet<String>();
+      for (Map.Entry<String, String> host : hosts.entrySet()) {
+        if (!HEALTHY.equals(host.getValue())) {
+          unhealthy.add(host.getKey());
+        }
+      }
+      int healthy = hosts.size() - unhealthy.size();
+      int expected = Math.max(expectedHosts, hosts.size());
+      sb.append(String.format("Hosts: %d of %d healthy", healthy, expected));
+      if (!unhealthy.isEmpty()) {
+        sb.append(", no heartbeat: ");
+        int listed = 0;
+        for (String host : unhealthy) {
+          if (listed++ == MAX_LISTED_HOSTS) {
+            sb.append(", ...");
+            break;
+          }
+          sb.append(listed > 1 ? ", " : "").append(host);
+        }
+      }
+      done = healthy >= expected;
+    }
+    return sb.toString();
+  }
+}
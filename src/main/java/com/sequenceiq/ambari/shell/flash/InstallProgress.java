@@ -21,8 +21,6 @@ import static java.lang.Math.round;
 
 import java.math.BigDecimal;
 
-import org.springframework.shell.core.JLineShellComponent;
-
 import com.sequenceiq.ambari.client.AmbariClient;
 
 /**
@@ -36,8 +34,8 @@ public class InstallProgress extends AbstractFlash {
   private AmbariClient client;
   private volatile boolean done;
 
-  public InstallProgress(JLineShellComponent shell, AmbariClient client, boolean exit) {
-    super(shell, FlashType.INSTALL);
+  public InstallProgress(AmbariClient client, boolean exit) {
+    super(FlashType.INSTALL);
     this.client = client;
     this.exit = exit;
   }
@@ -70,11 +68,12 @@ public class InstallProgress extends AbstractFlash {
       } else {
         sb.append("Installation: WAITING..");
       }
-    } else {
-      if (exit) {
-        System.exit(0);
-      }
     }
     return sb.toString();
   }
+
+  @Override
+  public boolean isExitRequested() {
+    return exit;
+  }
 }
@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.flash;
+
+import java.io.IOException;
+
+import com.sequenceiq.ambari.shell.support.RequestTracker;
+
+/**
+ * Shows the progress of a single request, e.g. starting a service, until it finishes
+ * or its state cannot be read several times in a row.
+ */
+public class RequestProgress extends AbstractFlash {
+
+  private static final int BAR_LENGTH = 10;
+  private static final double PERCENT_PER_BAR = 10;
+  private static final int MAX_FAILURES = 3;
+  private final RequestTracker requestTracker;
+  private final String cluster;
+  private final int requestId;
+  private final String title;
+  private volatile boolean done;
+  private int failures;
+
+  public RequestProgress(RequestTracker requestTracker, String cluster, int requestId, String title) {
+    super(FlashType.REQUEST, String.valueOf(requestId));
+    this.requestTracker = requestTracker;
+    this.cluster = cluster;
+    this.requestId = requestId;
+    this.title = title;
+  }
+
+  @Override
+  public String getText() {
+    StringBuilder sb = new StringBuilder();
+    if (!done) {
+      RequestTracker.RequestState state;
+      try {
+        state = requestTracker.getState(cluster, requestId);
+        failures = 0;
+      } catch (IOException e) {
+        if (++failures < MAX_FAILURES) {
+          throw new IllegalStateException(e);
+        }
+        done = true;
+        return String.format("%s: cannot read the state of the request (%s)", title, e.getMessage());
+      }
+      sb.append(title).append(": ");
+      if (state.isFinished()) {
+        sb.append(state.getStatus());
+        done = true;
+      } else {
+        sb.append(String.format("%.2f%% ", state.getProgress()));
+        for (int i = 0; i < BAR_LENGTH; i++) {
+          sb.append(i < (int) (state.getProgress() / PERCENT_PER_BAR) ? "=" : "-");
+        }
+      }
+    }
+    return sb.toString();
+  }
+}
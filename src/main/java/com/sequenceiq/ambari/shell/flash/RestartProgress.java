@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.flash;
+
+import java.util.List;
+
+import com.sequenceiq.ambari.shell.support.RollingRestart;
+
+/**
+ * Shows how many batches of a rolling restart are done. The batches are read from memory,
+ * so this flash does not use the server.
+ */
+public class RestartProgress extends AbstractFlash {
+
+  private final String component;
+  private final List<RollingRestart.Batch> batches;
+  private volatile boolean done;
+
+  public RestartProgress(String component, List<RollingRestart.Batch> batches) {
+    super(FlashType.RESTART, component);
+    this.component = component;
+    this.batches = batches;
+  }
+
+  @Override
+  public String getText() {
+    StringBuilder sb = new StringBuilder();
+    if (!done) {
+      int finished = 0;
+      int failedHosts = 0;
+      for (RollingRestart.Batch batch : batches) {
+        if (batch.isFinished()) {
+          finished++;
+          failedHosts += batch.getFailedHosts().size();
+        }
+      }
+      sb.append(String.format("Restart %s: %d of %d batches done, %d failed host(s)",
+        component, finished, batches.size(), failedHosts));
+      done = finished == batches.size();
+    }
+    return sb.toString();
+  }
+}
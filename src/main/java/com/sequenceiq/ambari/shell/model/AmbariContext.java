@@ -25,10 +25,10 @@ import org.springframework.stereotype.Component;
 @Component
 public class AmbariContext {
 
-  private String cluster;
-  private boolean blueprintsAvailable;
-  private Focus focus;
-  private Hints hint;
+  private volatile String cluster;
+  private volatile boolean blueprintsAvailable;
+  private volatile Focus focus;
+  private volatile Hints hint;
 
   public AmbariContext() {
     this.focus = getRootFocus();
@@ -22,6 +22,11 @@ package com.sequenceiq.ambari.shell.model;
  */
 public enum Hints {
 
+  /**
+   * Hint while the shell is waiting for the Ambari server on start.
+   */
+  CONNECTING("Connecting to the Ambari server, the available commands are shown in a moment."),
+
   /**
    * Hint for adding blueprints.
    */
@@ -0,0 +1,124 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Host - host group assignments of the cluster being built. Besides the hosts of
+ * each host group it indexes the host group of each host, so a host can be
+ * assigned to a single host group only and the checks do not scan the groups.
+ * Safe to use from multiple threads.
+ */
+public class HostAssignments {
+
+  /**
+   * Outcome of an assignment.
+   */
+  public enum Result {
+    ASSIGNED, ALREADY_ASSIGNED, CONFLICT, UNKNOWN_HOST_GROUP
+  }
+
+  private final Map<String, Set<String>> groups = new LinkedHashMap<String, Set<String>>();
+  private final Map<String, String> hostToGroup = new HashMap<String, String>();
+  private final AtomicInteger assigned = new AtomicInteger();
+
+  public HostAssignments(Collection<String> hostGroups) {
+    for (String hostGroup : hostGroups) {
+      groups.put(hostGroup, new LinkedHashSet<String>());
+    }
+  }
+
+  /**
+   * Creates the assignments from a host group - hosts map. If a host is listed
+   * in more host groups it is assigned to the first one.
+   *
+   * @param hostGroups host group - hosts map
+   * @return assignments
+   */
+  public static HostAssignments of(Map<String, List<String>> hostGroups) {
+    HostAssignments assignments = new HostAssignments(hostGroups.keySet());
+    for (Map.Entry<String, List<String>> entry : hostGroups.entrySet()) {
+      for (String host : entry.getValue()) {
+        assignments.assign(host, entry.getKey());
+      }
+    }
+    return assignments;
+  }
+
+  /**
+   * Assigns a host to a host group unless it is assigned already.
+   *
+   * @param host      host name
+   * @param hostGroup host group name
+   * @return result of the assignment
+   */
+  public synchronized Result assign(String host, String hostGroup) {
+    Set<String> hosts = groups.get(hostGroup);
+    if (hosts == null) {
+      return Result.UNKNOWN_HOST_GROUP;
+    }
+    String current = hostToGroup.get(host);
+    if (current != null) {
+      return current.equals(hostGroup) ? Result.ALREADY_ASSIGNED : Result.CONFLICT;
+    }
+    hosts.add(host);
+    hostToGroup.put(host, hostGroup);
+    assigned.incrementAndGet();
+    return Result.ASSIGNED;
+  }
+
+  /**
+   * Returns the host group of the host.
+   *
+   * @param host host name
+   * @return host group or null if the host is not assigned
+   */
+  public synchronized String getHostGroup(String host) {
+    return hostToGroup.get(host);
+  }
+
+  public int getAssignedCount() {
+    return assigned.get();
+  }
+
+  public boolean isHostAssigned() {
+    return assigned.get() > 0;
+  }
+
+  /**
+   * Returns a copy of the assignments.
+   *
+   * @return host group - hosts map in the order of assignment
+   */
+  public synchronized Map<String, List<String>> toMap() {
+    Map<String, List<String>> result = new LinkedHashMap<String, List<String>>();
+    for (Map.Entry<String, Set<String>> entry : groups.entrySet()) {
+      result.put(entry.getKey(), new ArrayList<String>(entry.getValue()));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,79 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.placement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.sequenceiq.ambari.shell.model.HostAssignments;
+
+/**
+ * Base class of the strategies which place the master host groups first, then
+ * share the remaining hosts between the worker host groups.
+ */
+public abstract class AbstractPlacementStrategy implements PlacementStrategy {
+
+  @Override
+  public Map<String, List<String>> place(List<HostGroupSpec> hostGroups, List<HostFacts> hosts) {
+    List<String> names = new ArrayList<String>();
+    List<HostGroupSpec> masters = new ArrayList<HostGroupSpec>();
+    List<HostGroupSpec> workers = new ArrayList<HostGroupSpec>();
+    int required = 0;
+    for (HostGroupSpec hostGroup : hostGroups) {
+      names.add(hostGroup.getName());
+      if (hostGroup.isWorker()) {
+        workers.add(hostGroup);
+      } else {
+        masters.add(hostGroup);
+        required += hostGroup.getCardinality();
+      }
+    }
+    if (required > hosts.size()) {
+      throw new IllegalArgumentException(
+        String.format("The master host groups require %d hosts, but only %d available", required, hosts.size()));
+    }
+    List<HostFacts> free = new ArrayList<HostFacts>(hosts);
+    Collections.sort(free, HostFacts.BY_CAPACITY);
+    HostAssignments assignments = new HostAssignments(names);
+    placeMasters(masters, free, assignments);
+    if (!workers.isEmpty()) {
+      placeWorkers(workers, free, assignments);
+    }
+    return assignments.toMap();
+  }
+
+  /**
+   * Assigns as many hosts to each master host group as its cardinality.
+   *
+   * @param masters     master host groups
+   * @param free        unassigned hosts ordered by capacity, the assigned hosts must be removed
+   * @param assignments assignments to add to
+   */
+  protected abstract void placeMasters(List<HostGroupSpec> masters, List<HostFacts> free, HostAssignments assignments);
+
+  /**
+   * Assigns the remaining hosts to the worker host groups.
+   *
+   * @param workers     worker host groups, at least one
+   * @param free        unassigned hosts ordered by capacity
+   * @param assignments assignments to add to
+   */
+  protected abstract void placeWorkers(List<HostGroupSpec> workers, List<HostFacts> free, HostAssignments assignments);
+}
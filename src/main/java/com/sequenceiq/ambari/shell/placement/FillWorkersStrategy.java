@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.placement;
+
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.springframework.stereotype.Component;
+
+import com.sequenceiq.ambari.shell.model.HostAssignments;
+
+/**
+ * Keeps the hosts with the most resources for the workers: the master host groups get
+ * the smallest hosts and the rest is shared between the worker host groups, always
+ * giving the next host to the worker host group with the least memory so far.
+ */
+@Component
+public class FillWorkersStrategy extends AbstractPlacementStrategy {
+
+  public static final String NAME = "fill-workers";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  protected void placeMasters(List<HostGroupSpec> masters, List<HostFacts> free, HostAssignments assignments) {
+    for (HostGroupSpec master : masters) {
+      for (int i = 0; i < master.getCardinality(); i++) {
+        assignments.assign(free.remove(free.size() - 1).getName(), master.getName());
+      }
+    }
+  }
+
+  @Override
+  protected void placeWorkers(List<HostGroupSpec> workers, List<HostFacts> free, HostAssignments assignments) {
+    PriorityQueue<Load> loads = new PriorityQueue<Load>();
+    for (int i = 0; i < workers.size(); i++) {
+      loads.add(new Load(workers.get(i).getName(), i));
+    }
+    for (HostFacts host : free) {
+      Load load = loads.poll();
+      assignments.assign(host.getName(), load.hostGroup);
+      load.memory += host.getMemory();
+      load.hosts++;
+      loads.add(load);
+    }
+  }
+
+  private static final class Load implements Comparable<Load> {
+    private final String hostGroup;
+    private final int index;
+    private long memory;
+    private int hosts;
+
+    private Load(String hostGroup, int index) {
+      this.hostGroup = hostGroup;
+      this.index = index;
+    }
+
+    @Override
+    public int compareTo(Load o) {
+      if (memory != o.memory) {
+        return memory < o.memory ? -1 : 1;
+      }
+      if (hosts != o.hosts) {
+        return hosts < o.hosts ? -1 : 1;
+      }
+      return index - o.index;
+    }
+  }
+}
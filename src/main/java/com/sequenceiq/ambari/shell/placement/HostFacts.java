@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.placement;
+
+import java.util.Comparator;
+
+/**
+ * Resources of a host used to place it into a host group.
+ */
+public class HostFacts {
+
+  /**
+   * Orders the hosts by memory, cpu count and disk size descending, then by name.
+   */
+  public static final Comparator<HostFacts> BY_CAPACITY = new Comparator<HostFacts>() {
+    @Override
+    public int compare(HostFacts o1, HostFacts o2) {
+      int result = compare(o2.memory, o1.memory);
+      if (result == 0) {
+        result = compare(o2.cpuCount, o1.cpuCount);
+      }
+      if (result == 0) {
+        result = compare(o2.disk, o1.disk);
+      }
+      return result == 0 ? o1.name.compareTo(o2.name) : result;
+    }
+
+    private int compare(long x, long y) {
+      return x < y ? -1 : (x == y ? 0 : 1);
+    }
+  };
+
+  public static final String DEFAULT_RACK = "/default-rack";
+
+  private final String name;
+  private final int cpuCount;
+  private final long memory;
+  private final long disk;
+  private final String rack;
+
+  /**
+   * @param name     host name
+   * @param cpuCount number of cpus
+   * @param memory   total memory in KB
+   * @param disk     total disk size in KB
+   * @param rack     rack of the host, the default rack is used if null
+   */
+  public HostFacts(String name, int cpuCount, long memory, long disk, String rack) {
+    this.name = name;
+    this.cpuCount = cpuCount;
+    this.memory = memory;
+    this.disk = disk;
+    this.rack = rack == null || rack.isEmpty() ? DEFAULT_RACK : rack;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getCpuCount() {
+    return cpuCount;
+  }
+
+  public long getMemory() {
+    return memory;
+  }
+
+  public long getDisk() {
+    return disk;
+  }
+
+  public String getRack() {
+    return rack;
+  }
+}
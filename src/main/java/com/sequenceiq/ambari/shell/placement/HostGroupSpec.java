@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.placement;
+
+import static java.util.Arrays.asList;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Host group of a blueprint to place hosts into. Host groups with worker components
+ * share the hosts, the rest are master host groups which need a fixed number of hosts.
+ */
+public class HostGroupSpec {
+
+  private static final Set<String> WORKER_COMPONENTS = new HashSet<String>(asList(
+    "DATANODE", "NODEMANAGER", "TASKTRACKER", "HBASE_REGIONSERVER", "SUPERVISOR"));
+
+  private final String name;
+  private final List<String> components;
+  private final int cardinality;
+
+  /**
+   * @param name        name of the host group
+   * @param components  components of the host group
+   * @param cardinality number of hosts required by a master host group
+   */
+  public HostGroupSpec(String name, List<String> components, int cardinality) {
+    this.name = name;
+    this.components = Collections.unmodifiableList(components);
+    this.cardinality = Math.max(1, cardinality);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public List<String> getComponents() {
+    return components;
+  }
+
+  public int getCardinality() {
+    return cardinality;
+  }
+
+  /**
+   * Checks whether the host group contains any worker component or not.
+   *
+   * @return true if it is a worker host group false otherwise
+   */
+  public boolean isWorker() {
+    for (String component : components) {
+      if (WORKER_COMPONENTS.contains(component)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
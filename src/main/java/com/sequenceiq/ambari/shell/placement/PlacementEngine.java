@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.placement;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.sequenceiq.ambari.client.AmbariClient;
+import com.sequenceiq.ambari.shell.support.AmbariRestClient;
+
+/**
+ * Assigns the hosts to the host groups of a blueprint in the shell, based on the
+ * resources of the hosts, using one of the registered placement strategies.
+ */
+@Component
+public class PlacementEngine {
+
+  public static final String DEFAULT_STRATEGY = SpreadMastersStrategy.NAME;
+
+  private static final String HOST_FACTS_PATH =
+    "hosts?fields=Hosts/host_name,Hosts/cpu_count,Hosts/total_mem,Hosts/disk_info,Hosts/rack_info";
+  private static final Pattern CARDINALITY = Pattern.compile("^\\s*(\\d{1,6})");
+
+  private final AmbariClient client;
+  private final AmbariRestClient restClient;
+  private final ObjectMapper jsonMapper;
+  private final Map<String, PlacementStrategy> strategies = new TreeMap<String, PlacementStrategy>();
+
+  @Autowired
+  public PlacementEngine(AmbariClient client, AmbariRestClient restClient, ObjectMapper jsonMapper,
+    List<PlacementStrategy> strategies) {
+    this.client = client;
+    this.restClient = restClient;
+    this.jsonMapper = jsonMapper;
+    for (PlacementStrategy strategy : strategies) {
+      this.strategies.put(strategy.getName(), strategy);
+    }
+  }
+
+  /**
+   * Assigns the registered hosts to the host groups of the blueprint.
+   *
+   * @param blueprint    name of the blueprint
+   * @param strategyName name of the strategy
+   * @return host group - hosts map
+   * @throws IOException              if the blueprint or the hosts cannot be read
+   * @throws IllegalArgumentException if the strategy is unknown or there are not enough hosts
+   */
+  public Map<String, List<String>> place(String blueprint, String strategyName) throws IOException {
+    PlacementStrategy strategy = strategies.get(strategyName);
+    if (strategy == null) {
+      throw new IllegalArgumentException(
+        String.format("Unknown strategy: %s, use one of %s", strategyName, strategies.keySet()));
+    }
+    return strategy.place(getHostGroups(blueprint), getHostFacts());
+  }
+
+  /**
+   * Reads the host groups of the blueprint with their components and cardinality.
+   *
+   * @param blueprint name of the blueprint
+   * @return host groups
+   * @throws IOException if the blueprint cannot be parsed
+   */
+  List<HostGroupSpec> getHostGroups(String blueprint) throws IOException {
+    List<HostGroupSpec> result = new ArrayList<HostGroupSpec>();
+    JsonNode root = jsonMapper.readTree(client.getBlueprintAsJson(blueprint));
+    for (JsonNode hostGroup : root.path("host_groups")) {
+      List<String> components = new ArrayList<String>();
+      for (JsonNode component : hostGroup.path("components")) {
+        components.add(component.path("name").asText());
+      }
+      result.add(new HostGroupSpec(hostGroup.path("name").asText(), components,
+        parseCardinality(hostGroup.path("cardinality").asText())));
+    }
+    return result;
+  }
+
+  /**
+   * Reads the resources of all registered hosts with a single request.
+   *
+   * @return resources of the hosts
+   * @throws IOException if the request fails
+   */
+  List<HostFacts> getHostFacts() throws IOException {
+    List<HostFacts> result = new ArrayList<HostFacts>();
+    for (JsonNode item : restClient.get(HOST_FACTS_PATH).path("items")) {
+      JsonNode host = item.path("Hosts");
+      long disk = 0;
+      for (JsonNode mount : host.path("disk_info")) {
+        disk += parseLong(mount.path("size").asText());
+      }
+      result.add(new HostFacts(host.path("host_name").asText(), host.path("cpu_count").asInt(),
+        host.path("total_mem").asLong(), disk, host.path("rack_info").asText()));
+    }
+    return result;
+  }
+
+  private int parseCardinality(String cardinality) {
+    Matcher matcher = CARDINALITY.matcher(cardinality);
+    return matcher.find() ? Integer.parseInt(matcher.group(1)) : 1;
+  }
+
+  private long parseLong(String value) {
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,45 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.placement;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns hosts to the host groups of a blueprint. Implementations registered as
+ * Spring beans are available in the cluster autoAssign command by their name.
+ */
+public interface PlacementStrategy {
+
+  /**
+   * Name of the strategy used on the command line.
+   *
+   * @return name of the strategy
+   */
+  String getName();
+
+  /**
+   * Places the hosts into the host groups. A host is assigned to one host group at most.
+   *
+   * @param hostGroups host groups of the blueprint
+   * @param hosts      available hosts
+   * @return host group - hosts map
+   * @throws IllegalArgumentException if there are not enough hosts for the master host groups
+   */
+  Map<String, List<String>> place(List<HostGroupSpec> hostGroups, List<HostFacts> hosts);
+}
@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.placement;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.sequenceiq.ambari.shell.model.HostAssignments;
+
+/**
+ * Spreads the hosts over the racks, so losing a rack does not take down a whole host group:
+ * the consecutive master hosts are taken from different racks, starting with the hosts with
+ * the most resources, and the hosts of every rack are dealt out to all worker host groups.
+ */
+@Component
+public class RackAwareStrategy extends AbstractPlacementStrategy {
+
+  public static final String NAME = "rack-aware";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  protected void placeMasters(List<HostGroupSpec> masters, List<HostFacts> free, HostAssignments assignments) {
+    List<LinkedList<HostFacts>> racks = new ArrayList<LinkedList<HostFacts>>(groupByRack(free).values());
+    int rack = 0;
+    for (HostGroupSpec master : masters) {
+      for (int i = 0; i < master.getCardinality(); i++) {
+        while (racks.get(rack % racks.size()).isEmpty()) {
+          rack++;
+        }
+        HostFacts host = racks.get(rack % racks.size()).removeFirst();
+        assignments.assign(host.getName(), master.getName());
+        free.remove(host);
+        rack++;
+      }
+    }
+  }
+
+  @Override
+  protected void placeWorkers(List<HostGroupSpec> workers, List<HostFacts> free, HostAssignments assignments) {
+    int size = workers.size();
+    int next = 0;
+    for (List<HostFacts> rack : groupByRack(free).values()) {
+      for (HostFacts host : rack) {
+        assignments.assign(host.getName(), workers.get(next++ % size).getName());
+      }
+    }
+  }
+
+  private Map<String, LinkedList<HostFacts>> groupByRack(List<HostFacts> hosts) {
+    Map<String, LinkedList<HostFacts>> racks = new LinkedHashMap<String, LinkedList<HostFacts>>();
+    for (HostFacts host : hosts) {
+      LinkedList<HostFacts> rack = racks.get(host.getRack());
+      if (rack == null) {
+        rack = new LinkedList<HostFacts>();
+        racks.put(host.getRack(), rack);
+      }
+      rack.add(host);
+    }
+    return racks;
+  }
+}
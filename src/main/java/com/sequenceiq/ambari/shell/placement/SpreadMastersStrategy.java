@@ -0,0 +1,56 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.placement;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.sequenceiq.ambari.shell.model.HostAssignments;
+
+/**
+ * Gives the hosts with the most resources to the master host groups, each on its
+ * own host, and deals the rest out to the worker host groups evenly.
+ */
+@Component
+public class SpreadMastersStrategy extends AbstractPlacementStrategy {
+
+  public static final String NAME = "spread-masters";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  protected void placeMasters(List<HostGroupSpec> masters, List<HostFacts> free, HostAssignments assignments) {
+    for (HostGroupSpec master : masters) {
+      for (int i = 0; i < master.getCardinality(); i++) {
+        assignments.assign(free.remove(0).getName(), master.getName());
+      }
+    }
+  }
+
+  @Override
+  protected void placeWorkers(List<HostGroupSpec> workers, List<HostFacts> free, HostAssignments assignments) {
+    int size = workers.size();
+    for (int i = 0; i < free.size(); i++) {
+      assignments.assign(free.get(i).getName(), workers.get(i % size).getName());
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.script;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the command files which run some of their commands in parallel.
+ * Besides the plain commands, which run one after the other, a script can contain:
+ * <pre>
+ * parallel {
+ *   blueprint add --file a.json
+ *   blueprint add --file b.json
+ * }
+ * multi: blueprint add --file multi-node.json
+ * single: blueprint add --file single-node.json
+ * build after multi: cluster build --blueprint multi-node
+ * </pre>
+ * The commands of a parallel block start together once the previous command is
+ * finished and the next command waits for all of them. A command can be named
+ * with a label and a labelled command can wait for the earlier commands listed
+ * after the 'after' keyword instead of the previous one.
+ */
+public final class ScriptParser {
+
+  private static final String BLOCK_START = "parallel {";
+  private static final String BLOCK_END = "}";
+  private static final Pattern LABEL =
+    Pattern.compile("^([A-Za-z][\\w-]*)(?:\\s+after\\s+([\\w-]+(?:\\s*,\\s*[\\w-]+)*))?\\s*:\\s+(.+)$");
+
+  private ScriptParser() {
+    throw new IllegalStateException();
+  }
+
+  /**
+   * Checks whether the script uses parallel blocks or labels or not.
+   *
+   * @param lines lines of the script
+   * @return true if the script is not a simple list of commands
+   */
+  public static boolean isParallel(String[] lines) {
+    for (String line : lines) {
+      String trimmed = line.trim();
+      if (BLOCK_START.equals(trimmed) || LABEL.matcher(trimmed).matches()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Parses the script into steps. Comments and empty lines are skipped.
+   *
+   * @param lines lines of the script
+   * @return steps in the order of the script
+   * @throws IllegalArgumentException if the script is invalid
+   */
+  public static List<ScriptStep> parse(String[] lines) {
+    List<ScriptStep> steps = new ArrayList<ScriptStep>();
+    Map<String, Integer> labels = new HashMap<String, Integer>();
+    Set<Integer> previous = new LinkedHashSet<Integer>();
+    Set<Integer> block = null;
+    int blockLine = 0;
+    for (int i = 0; i < lines.length; i++) {
+      int lineNumber = i + 1;
+      String line = lines[i].trim();
+      if (line.isEmpty() || line.startsWith("//") || line.startsWith(";")) {
+        continue;
+      }
+      if (BLOCK_START.equals(line)) {
+        if (block != null) {
+          throw new IllegalArgumentException(String.format("Line %d: parallel blocks cannot be nested", lineNumber));
+        }
+        block = new LinkedHashSet<Integer>();
+        blockLine = lineNumber;
+        continue;
+      }
+      if (BLOCK_END.equals(line)) {
+        if (block == null) {
+          throw new IllegalArgumentException(String.format("Line %d: no parallel block to close", lineNumber));
+        }
+        if (!block.isEmpty()) {
+          previous = block;
+        }
+        block = null;
+        continue;
+      }
+      String name = null;
+      String command = line;
+      Set<Integer> dependencies = new LinkedHashSet<Integer>(previous);
+      Matcher matcher = LABEL.matcher(line);
+      if (matcher.matches()) {
+        name = matcher.group(1);
+        command = matcher.group(3).trim();
+        if (labels.containsKey(name)) {
+          throw new IllegalArgumentException(String.format("Line %d: duplicate label '%s'", lineNumber, name));
+        }
+        if (matcher.group(2) != null) {
+          dependencies.clear();
+          for (String dependency : matcher.group(2).split("\\s*,\\s*")) {
+            Integer index = labels.get(dependency);
+            if (index == null) {
+              throw new IllegalArgumentException(
+                String.format("Line %d: label '%s' is not defined before", lineNumber, dependency));
+            }
+            dependencies.add(index);
+          }
+        }
+      }
+      int index = steps.size();
+      steps.add(new ScriptStep(index, lineNumber, name, command, dependencies));
+      if (name != null) {
+        labels.put(name, index);
+      }
+      if (block == null) {
+        previous = new LinkedHashSet<Integer>();
+        previous.add(index);
+      } else {
+        block.add(index);
+      }
+    }
+    if (block != null) {
+      throw new IllegalArgumentException(String.format("Line %d: parallel block is not closed", blockLine));
+    }
+    return steps;
+  }
+}
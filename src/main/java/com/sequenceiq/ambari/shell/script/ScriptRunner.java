@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.script;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.shell.core.CommandResult;
+import org.springframework.shell.core.ExecutionStrategy;
+import org.springframework.shell.core.JLineShellComponent;
+import org.springframework.shell.event.ParseResult;
+
+/**
+ * Executes the steps of a script as soon as the steps they depend on are finished,
+ * running at most a given number of commands at the same time. The commands are
+ * executed by the execution strategy of the shell, which runs the commands changing
+ * the state of the shell alone. The output of the commands is printed in the order
+ * of the script regardless of the order they finish in. Once a command fails no new
+ * command is started.
+ */
+public class ScriptRunner {
+
+  private final JLineShellComponent shell;
+  private final ExecutionStrategy executionStrategy;
+  private final int parallelism;
+  private final PrintStream out;
+
+  public ScriptRunner(JLineShellComponent shell, ExecutionStrategy executionStrategy, int parallelism, PrintStream out) {
+    this.shell = shell;
+    this.executionStrategy = executionStrategy;
+    this.parallelism = Math.max(1, parallelism);
+    this.out = out;
+  }
+
+  /**
+   * Runs the steps and prints their output.
+   *
+   * @param steps steps of the script, dependencies refer to earlier steps
+   * @return true if every step succeeded false otherwise
+   */
+  public boolean run(final List<ScriptStep> steps) {
+    int size = steps.size();
+    final AtomicReferenceArray<CommandResult> results = new AtomicReferenceArray<CommandResult>(size);
+    int[] waitingFor = new int[size];
+    List<List<Integer>> dependents = new ArrayList<List<Integer>>(size);
+    for (ScriptStep step : steps) {
+      dependents.add(new ArrayList<Integer>());
+      waitingFor[step.getIndex()] = step.getDependencies().size();
+      for (Integer dependency : step.getDependencies()) {
+        dependents.get(dependency).add(step.getIndex());
+      }
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("script-"));
+    CompletionService<Integer> completionService = new ExecutorCompletionService<Integer>(executor);
+    boolean success = true;
+    int running = 0;
+    int printed = 0;
+    try {
+      for (ScriptStep step : steps) {
+        if (waitingFor[step.getIndex()] == 0) {
+          submit(completionService, step, results);
+          running++;
+        }
+      }
+      while (running > 0) {
+        int finished = completionService.take().get();
+        running--;
+        if (!results.get(finished).isSuccess()) {
+          success = false;
+        } else if (success) {
+          for (Integer dependent : dependents.get(finished)) {
+            if (--waitingFor[dependent] == 0) {
+              submit(completionService, steps.get(dependent), results);
+              running++;
+            }
+          }
+        }
+        while (printed < size && results.get(printed) != null) {
+          print(steps.get(printed), results.get(printed));
+          printed++;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      success = false;
+    } catch (ExecutionException e) {
+      success = false;
+    } finally {
+      executor.shutdownNow();
+    }
+    for (int i = printed; i < size; i++) {
+      if (results.get(i) != null) {
+        print(steps.get(i), results.get(i));
+      }
+    }
+    return success && printed == size;
+  }
+
+  /**
+   * Executes a command by the execution strategy of the shell without printing its output.
+   *
+   * @param command command to execute
+   * @return result of the command
+   */
+  protected CommandResult execute(String command) {
+    ParseResult parseResult = shell.getSimpleParser().parse(command);
+    if (parseResult == null) {
+      return new CommandResult(false);
+    }
+    try {
+      return new CommandResult(true, executionStrategy.execute(parseResult), null);
+    } catch (RuntimeException e) {
+      return new CommandResult(false, null, e);
+    }
+  }
+
+  private void submit(CompletionService<Integer> completionService, final ScriptStep step,
+    final AtomicReferenceArray<CommandResult> results) {
+    completionService.submit(new Callable<Integer>() {
+      @Override
+      public Integer call() {
+        CommandResult result;
+        try {
+          result = execute(step.getCommand());
+        } catch (RuntimeException e) {
+          result = new CommandResult(false, null, e);
+        }
+        results.set(step.getIndex(), result);
+        return step.getIndex();
+      }
+    });
+  }
+
+  private void print(ScriptStep step, CommandResult result) {
+    if (result.getResult() != null) {
+      out.println(result.getResult());
+    }
+    if (!result.isSuccess()) {
+      Throwable exception = result.getException();
+      out.println(String.format("Command failed at line %d: %s%s", step.getLine(), step.getCommand(),
+        exception == null ? "" : ", " + exception.getMessage()));
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.script;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A command of a script with the steps it has to wait for.
+ */
+public class ScriptStep {
+
+  private final int index;
+  private final int line;
+  private final String name;
+  private final String command;
+  private final Set<Integer> dependencies;
+
+  public ScriptStep(int index, int line, String name, String command, Set<Integer> dependencies) {
+    this.index = index;
+    this.line = line;
+    this.name = name;
+    this.command = command;
+    this.dependencies = Collections.unmodifiableSet(dependencies);
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public int getLine() {
+    return line;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getCommand() {
+    return command;
+  }
+
+  /**
+   * Returns the index of the steps which have to succeed before this one starts.
+   *
+   * @return step indexes
+   */
+  public Set<Integer> getDependencies() {
+    return dependencies;
+  }
+}
@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.apache.commons.io.IOUtils;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Minimal client of the Ambari REST API for the resources the AmbariClient does not expose.
+ * Every request uses its own connection, so it can be used from multiple threads. The responses
+ * are always read to the end, so the keep-alive connections are reused by the next requests.
+ */
+public class AmbariRestClient {
+
+  private static final Charset CHARSET = Charset.forName("UTF-8");
+  private static final int CONNECT_TIMEOUT = 10000;
+  private static final int READ_TIMEOUT = 60000;
+  private static final int MAX_ERROR_LENGTH = 200;
+
+  private final String baseUrl;
+  private final String authorization;
+  private final ObjectMapper jsonMapper;
+
+  public AmbariRestClient(String host, String port, String user, String password, ObjectMapper jsonMapper) {
+    this.baseUrl = String.format("http://%s:%s/api/v1/", host, port);
+    this.authorization = "Basic " + DatatypeConverter.printBase64Binary((user + ":" + password).getBytes(CHARSET));
+    this.jsonMapper = jsonMapper;
+  }
+
+  /**
+   * Reads a resource.
+   *
+   * @param path path of the resource relative to /api/v1/ including the query
+   * @return response as JSON tree
+   * @throws IOException if the request fails or the response is not JSON
+   */
+  public JsonNode get(String path) throws IOException {
+    return jsonMapper.readTree(request("GET", path, null));
+  }
+
+  /**
+   * Sends a request which starts an asynchronous operation on the server, e.g. changing the state of components.
+   *
+   * @param method HTTP method
+   * @param path   path of the resource relative to /api/v1/ including the query
+   * @param body   request body
+   * @return id of the started request or -1 if the server has nothing to do
+   * @throws IOException if the request fails or the server responds with an error
+   */
+  public int submit(String method, String path, String body) throws IOException {
+    String response = request(method, path, body);
+    return response.trim().isEmpty() ? -1 : jsonMapper.readTree(response).path("Requests").path("id").asInt(-1);
+  }
+
+  /**
+   * Sends a request to the server.
+   *
+   * @param method HTTP method
+   * @param path   path of the resource relative to /api/v1/ including the query
+   * @param body   request body or null
+   * @return response body
+   * @throws IOException if the request fails or the server responds with an error
+   */
+  public String request(String method, String path, String body) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+    connection.setConnectTimeout(CONNECT_TIMEOUT);
+    connection.setReadTimeout(READ_TIMEOUT);
+    connection.setRequestMethod(method);
+    connection.setRequestProperty("Authorization", authorization);
+    connection.setRequestProperty("X-Requested-By", "ambari");
+    if (body != null) {
+      connection.setDoOutput(true);
+      OutputStream out = connection.getOutputStream();
+      try {
+        out.write(body.getBytes(CHARSET));
+      } finally {
+        out.close();
+      }
+    }
+    int status = connection.getResponseCode();
+    if (status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+      throw new IOException(String.format("%s %s failed with %d: %s", method, path, status, readError(connection)));
+    }
+    // the response is read to the end and closed, but the connection is not disconnected, so it can be reused
+    InputStream in = connection.getInputStream();
+    try {
+      return IOUtils.toString(in, CHARSET.name());
+    } finally {
+      in.close();
+    }
+  }
+
+  private String readError(HttpURLConnection connection) {
+    String message = "";
+    InputStream error = connection.getErrorStream();
+    if (error != null) {
+      try {
+        try {
+          message = IOUtils.toString(error, CHARSET.name());
+        } finally {
+          error.close();
+        }
+      } catch (IOException e) {
+        // not important
+      }
+    }
+    return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+  }
+}
@@ -0,0 +1,184 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads the text files of zip and tar.gz archives. The files read are limited to 10 MB
+ * each, the sizes found in the archive are not trusted.
+ */
+public final class ArchiveReader {
+
+  private static final Charset CHARSET = Charset.forName("UTF-8");
+  private static final int BLOCK_SIZE = 512;
+  private static final int NAME_LENGTH = 100;
+  private static final int SIZE_OFFSET = 124;
+  private static final int SIZE_LENGTH = 12;
+  private static final int TYPE_OFFSET = 156;
+  private static final int MAGIC_OFFSET = 257;
+  private static final String POSIX_MAGIC = "ustar\0";
+  private static final int PREFIX_OFFSET = 345;
+  private static final int PREFIX_LENGTH = 155;
+  private static final int OCTAL = 8;
+  private static final long MAX_ENTRY_SIZE = 10 * 1024 * 1024;
+
+  private ArchiveReader() {
+    throw new IllegalStateException();
+  }
+
+  /**
+   * Reads the regular files of the archive with the given suffix. Archives with .zip extension
+   * are read as zip, the rest as gzip compressed tar.
+   *
+   * @param archive zip or tar.gz file
+   * @param suffix  suffix of the files to read, e.g. .json
+   * @return entry name - content pairs ordered by name
+   * @throws IOException if the archive cannot be read
+   */
+  public static Map<String, String> read(File archive, String suffix) throws IOException {
+    InputStream in = new BufferedInputStream(new FileInputStream(archive));
+    try {
+      return archive.getName().toLowerCase().endsWith(".zip") ? readZip(in, suffix) : readTarGz(in, suffix);
+    } finally {
+      in.close();
+    }
+  }
+
+  private static Map<String, String> readZip(InputStream in, String suffix) throws IOException {
+    Map<String, String> result = new TreeMap<String, String>();
+    ZipInputStream zip = new ZipInputStream(in);
+    ZipEntry entry;
+    while ((entry = zip.getNextEntry()) != null) {
+      if (!entry.isDirectory() && entry.getName().endsWith(suffix)) {
+        result.put(entry.getName(), new String(readLimited(zip, entry.getName()), CHARSET));
+      }
+    }
+    return result;
+  }
+
+  private static Map<String, String> readTarGz(InputStream in, String suffix) throws IOException {
+    Map<String, String> result = new TreeMap<String, String>();
+    InputStream tar = new GZIPInputStream(in);
+    byte[] header = new byte[BLOCK_SIZE];
+    String longName = null;
+    while (readBlock(tar, header) && header[0] != 0) {
+      String name = longName != null ? longName : getName(header);
+      long size = getSize(header, name);
+      char type = (char) header[TYPE_OFFSET];
+      longName = null;
+      if (type == 'L') {
+        longName = new String(readContent(tar, size, name), CHARSET).trim();
+      } else if ((type == '0' || type == 0) && name.endsWith(suffix)) {
+        result.put(name, new String(readContent(tar, size, name), CHARSET));
+      } else {
+        skipContent(tar, size);
+      }
+    }
+    return result;
+  }
+
+  private static long getSize(byte[] header, String name) throws IOException {
+    long size;
+    try {
+      size = Long.parseLong(getString(header, SIZE_OFFSET, SIZE_LENGTH).trim(), OCTAL);
+    } catch (NumberFormatException e) {
+      throw new IOException("Invalid size of " + name);
+    }
+    if (size < 0) {
+      throw new IOException("Invalid size of " + name);
+    }
+    return size;
+  }
+
+  private static byte[] readContent(InputStream tar, long size, String name) throws IOException {
+    if (size > MAX_ENTRY_SIZE) {
+      throw new IOException(String.format("%s is larger than %d bytes", name, MAX_ENTRY_SIZE));
+    }
+    ByteArrayOutputStream content = new ByteArrayOutputStream((int) size);
+    byte[] block = new byte[BLOCK_SIZE];
+    for (long remaining = size; remaining > 0; remaining -= BLOCK_SIZE) {
+      if (!readBlock(tar, block)) {
+        throw new EOFException("Unexpected end of the archive");
+      }
+      content.write(block, 0, (int) Math.min(BLOCK_SIZE, remaining));
+    }
+    return content.toByteArray();
+  }
+
+  private static void skipContent(InputStream tar, long size) throws IOException {
+    byte[] block = new byte[BLOCK_SIZE];
+    for (long remaining = size; remaining > 0; remaining -= BLOCK_SIZE) {
+      if (!readBlock(tar, block)) {
+        throw new EOFException("Unexpected end of the archive");
+      }
+    }
+  }
+
+  private static byte[] readLimited(InputStream in, String name) throws IOException {
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    byte[] buffer = new byte[BLOCK_SIZE];
+    int count;
+    while ((count = in.read(buffer)) >= 0) {
+      if (content.size() + count > MAX_ENTRY_SIZE) {
+        throw new IOException(String.format("%s is larger than %d bytes", name, MAX_ENTRY_SIZE));
+      }
+      content.write(buffer, 0, count);
+    }
+    return content.toByteArray();
+  }
+
+  private static boolean readBlock(InputStream in, byte[] block) throws IOException {
+    int read = 0;
+    while (read < block.length) {
+      int count = in.read(block, read, block.length - read);
+      if (count < 0) {
+        return false;
+      }
+      read += count;
+    }
+    return true;
+  }
+
+  private static String getName(byte[] header) {
+    String name = getString(header, 0, NAME_LENGTH);
+    boolean posix = POSIX_MAGIC.equals(new String(header, MAGIC_OFFSET, POSIX_MAGIC.length(), CHARSET));
+    String prefix = posix ? getString(header, PREFIX_OFFSET, PREFIX_LENGTH) : "";
+    return prefix.isEmpty() ? name : prefix + "/" + name;
+  }
+
+  private static String getString(byte[] header, int offset, int length) {
+    int end = offset;
+    while (end < offset + length && header[end] != 0) {
+      end++;
+    }
+    return new String(header, offset, end - offset, CHARSET);
+  }
+}
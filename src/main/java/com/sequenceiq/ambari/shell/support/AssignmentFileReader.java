@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Reads host - host group assignments from a file. JSON files contain the hosts of
+ * each host group, e.g. {"master": ["host1"], "slave": ["host2", "host3"]}, any other
+ * file is read as CSV with host,hostGroup lines. Empty lines, lines starting with #
+ * and a host,hostGroup header are skipped.
+ */
+public final class AssignmentFileReader {
+
+  private AssignmentFileReader() {
+    throw new IllegalStateException();
+  }
+
+  /**
+   * Reads the assignments.
+   *
+   * @param file       JSON or CSV file
+   * @param jsonMapper mapper used to parse JSON files
+   * @return host group - hosts map in the order of the file
+   * @throws IOException if the file cannot be read or it is malformed
+   */
+  public static Map<String, List<String>> read(File file, ObjectMapper jsonMapper) throws IOException {
+    return file.getName().toLowerCase().endsWith(".json") ? readJson(file, jsonMapper) : readCsv(file);
+  }
+
+  private static Map<String, List<String>> readJson(File file, ObjectMapper jsonMapper) throws IOException {
+    Map<String, List<String>> result = new LinkedHashMap<String, List<String>>();
+    JsonNode root = jsonMapper.readTree(file);
+    if (root == null || !root.isObject()) {
+      throw new IOException("Expected an object of host group - hosts pairs");
+    }
+    Iterator<Map.Entry<String, JsonNode>> groups = root.getFields();
+    while (groups.hasNext()) {
+      Map.Entry<String, JsonNode> group = groups.next();
+      if (!group.getValue().isArray()) {
+        throw new IOException(String.format("Expected an array of hosts for %s", group.getKey()));
+      }
+      for (JsonNode host : group.getValue()) {
+        add(result, group.getKey(), host.asText());
+      }
+    }
+    return result;
+  }
+
+  private static Map<String, List<String>> readCsv(File file) throws IOException {
+    Map<String, List<String>> result = new LinkedHashMap<String, List<String>>();
+    int lineNumber = 0;
+    for (String line : FileUtils.readLines(file)) {
+      lineNumber++;
+      String trimmed = line.trim();
+      if (trimmed.isEmpty() || trimmed.startsWith("#") || "host,hostgroup".equalsIgnoreCase(trimmed.replace(" ", ""))) {
+        continue;
+      }
+      String[] columns = trimmed.split(",");
+      if (columns.length != 2 || columns[0].trim().isEmpty() || columns[1].trim().isEmpty()) {
+        throw new IOException(String.format("Line %d: expected host,hostGroup", lineNumber));
+      }
+      add(result, columns[1].trim(), columns[0].trim());
+    }
+    return result;
+  }
+
+  private static void add(Map<String, List<String>> assignments, String group, String host) {
+    List<String> hosts = assignments.get(group);
+    if (hosts == null) {
+      hosts = new ArrayList<String>();
+      assignments.put(group, hosts);
+    }
+    hosts.add(host);
+  }
+}
@@ -0,0 +1,220 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Downloads documents and keeps the last version of each URL on the disk. A cached
+ * document is revalidated with If-None-Match and If-Modified-Since, so an unchanged
+ * document costs a 304 response only. Responses without ETag or Last-Modified are
+ * not cached.
+ */
+public class CachingUrlReader {
+
+  private static final Charset CHARSET = Charset.forName("UTF-8");
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  private static final int BUFFER_SIZE = 8192;
+  private static final String ETAG = "etag";
+  private static final String LAST_MODIFIED = "lastModified";
+
+  private final File dir;
+  private final int connectTimeout;
+  private final int readTimeout;
+  private final long maxSize;
+
+  /**
+   * @param dir            directory of the cached documents
+   * @param connectTimeout connect timeout in milliseconds
+   * @param readTimeout    read timeout in milliseconds
+   * @param maxSize        maximum size of a document in bytes
+   */
+  public CachingUrlReader(File dir, int connectTimeout, int readTimeout, long maxSize) {
+    this.dir = dir;
+    this.connectTimeout = connectTimeout;
+    this.readTimeout = readTimeout;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Reads the document from the cache if the server says it is not modified,
+   * downloads it otherwise.
+   *
+   * @param url URL of the document
+   * @return the document
+   * @throws IOException if the download fails, the server responds with an error
+   *                     or the document is larger than the limit
+   */
+  public String read(String url) throws IOException {
+    URLConnection connection = new URL(url).openConnection();
+    connection.setConnectTimeout(connectTimeout);
+    connection.setReadTimeout(readTimeout);
+    if (!(connection instanceof HttpURLConnection)) {
+      return new String(download(connection.getInputStream(), connection.getContentLengthLong()), CHARSET);
+    }
+    HttpURLConnection http = (HttpURLConnection) connection;
+    try {
+      String key = key(url);
+      File body = new File(dir, key + ".body");
+      File meta = new File(dir, key + ".properties");
+      Properties validators = load(meta, body);
+      if (validators.getProperty(ETAG) != null) {
+        http.setRequestProperty("If-None-Match", validators.getProperty(ETAG));
+      }
+      if (validators.getProperty(LAST_MODIFIED) != null) {
+        http.setRequestProperty("If-Modified-Since", validators.getProperty(LAST_MODIFIED));
+      }
+      http.setRequestProperty("Accept-Encoding", "gzip");
+      int status = http.getResponseCode();
+      if (status == HttpURLConnection.HTTP_NOT_MODIFIED && !validators.isEmpty()) {
+        return FileUtils.readFileToString(body, CHARSET.name());
+      }
+      if (status != HttpURLConnection.HTTP_OK) {
+        throw new IOException(String.format("GET %s failed with %d %s", url, status, http.getResponseMessage()));
+      }
+      InputStream in = http.getInputStream();
+      long length = http.getContentLengthLong();
+      if ("gzip".equalsIgnoreCase(http.getContentEncoding())) {
+        in = new GZIPInputStream(in);
+        length = -1;
+      }
+      byte[] content = download(in, length);
+      store(body, meta, content, http.getHeaderField("ETag"), http.getHeaderField("Last-Modified"));
+      return new String(content, CHARSET);
+    } finally {
+      http.disconnect();
+    }
+  }
+
+  private byte[] download(InputStream in, long length) throws IOException {
+    try {
+      if (length > maxSize) {
+        throw tooLarge();
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream(length > 0 ? (int) length : BUFFER_SIZE);
+      byte[] buffer = new byte[BUFFER_SIZE];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        if (out.size() + read > maxSize) {
+          throw tooLarge();
+        }
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    } finally {
+      in.close();
+    }
+  }
+
+  private IOException tooLarge() {
+    return new IOException(String.format("The document is larger than %d bytes", maxSize));
+  }
+
+  private Properties load(File meta, File body) {
+    Properties validators = new Properties();
+    if (meta.exists() && body.exists()) {
+      try {
+        InputStream in = new FileInputStream(meta);
+        try {
+          validators.load(in);
+        } finally {
+          in.close();
+        }
+      } catch (IOException e) {
+        validators.clear();
+      }
+    }
+    return validators;
+  }
+
+  private void store(File body, File meta, byte[] content, String etag, String lastModified) {
+    if (etag == null && lastModified == null) {
+      meta.delete();
+      return;
+    }
+    Properties validators = new Properties();
+    if (etag != null) {
+      validators.setProperty(ETAG, etag);
+    }
+    if (lastModified != null) {
+      validators.setProperty(LAST_MODIFIED, lastModified);
+    }
+    try {
+      dir.mkdirs();
+      meta.delete();
+      write(body, content);
+      File temp = new File(dir, meta.getName() + ".tmp");
+      OutputStream out = new FileOutputStream(temp);
+      try {
+        validators.store(out, null);
+      } finally {
+        out.close();
+      }
+      temp.renameTo(meta);
+    } catch (IOException e) {
+      // not important, the document is downloaded again next time
+    }
+  }
+
+  private void write(File file, byte[] content) throws IOException {
+    File temp = new File(dir, file.getName() + ".tmp");
+    OutputStream out = new FileOutputStream(temp);
+    try {
+      out.write(content);
+    } finally {
+      out.close();
+    }
+    if (!temp.renameTo(file)) {
+      file.delete();
+      if (!temp.renameTo(file)) {
+        throw new IOException("Cannot write " + file);
+      }
+    }
+  }
+
+  private static String key(String url) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(CHARSET));
+      char[] result = new char[digest.length * 2];
+      for (int i = 0; i < digest.length; i++) {
+        result[i * 2] = HEX[(digest[i] >> 4) & 0xf];
+        result[i * 2 + 1] = HEX[digest[i] & 0xf];
+      }
+      return new String(result);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.codehaus.jackson.JsonNode;
+
+/**
+ * Keeps the last downloaded version of each configuration type. Ambari gives every
+ * version of a configuration type a new tag, so the desired tags are read with a single
+ * request and only the types whose tag has changed since the last read are downloaded.
+ * Every downloaded version is recorded in the {@link ConfigHistory}.
+ */
+public class ConfigCache {
+
+  private static final String DESIRED_CONFIGS_PATH = "clusters/%s?fields=Clusters/desired_configs";
+  private static final String CONFIG_PATH = "clusters/%s/configurations?type=%s&tag=%s";
+  private static final String ENCODING = "UTF-8";
+  private static final String FETCHED = "fetched";
+
+  private final AmbariRestClient restClient;
+  private final ConfigHistory history;
+  private final ConcurrentMap<String, Version> versions = new ConcurrentHashMap<String, Version>();
+
+  public ConfigCache(AmbariRestClient restClient, ConfigHistory history) {
+    this.restClient = restClient;
+    this.history = history;
+  }
+
+  /**
+   * Reads the tag of the desired version of every configuration type with a single request.
+   *
+   * @param cluster name of the cluster
+   * @return type - tag pairs ordered by type
+   * @throws IOException if the request fails
+   */
+  public Map<String, String> getDesiredTags(String cluster) throws IOException {
+    Map<String, String> result = new TreeMap<String, String>();
+    JsonNode desiredConfigs = restClient.get(String.format(DESIRED_CONFIGS_PATH, cluster))
+      .path("Clusters").path("desired_configs");
+    Iterator<String> types = desiredConfigs.getFieldNames();
+    while (types.hasNext()) {
+      String type = types.next();
+      result.put(type, desiredConfigs.path(type).path("tag").asText());
+    }
+    return result;
+  }
+
+  /**
+   * Returns the desired version of a configuration type.
+   *
+   * @param cluster name of the cluster
+   * @param type    configuration type, e.g. core-site
+   * @return key - value pairs, empty if there is no such type
+   * @throws IOException if a request fails
+   */
+  public Map<String, String> get(String cluster, String type) throws IOException {
+    String tag = getDesiredTags(cluster).get(type);
+    return tag == null ? Collections.<String, String>emptyMap() : get(cluster, type, tag);
+  }
+
+  /**
+   * Returns a version of a configuration type, downloads it only if a different
+   * version is cached.
+   *
+   * @param cluster name of the cluster
+   * @param type    configuration type, e.g. core-site
+   * @param tag     tag of the version
+   * @return key - value pairs ordered by key
+   * @throws IOException if the request fails
+   */
+  public Map<String, String> get(String cluster, String type, String tag) throws IOException {
+    String key = cluster + "/" + type;
+    Version version = versions.get(key);
+    if (version == null || !version.tag.equals(tag)) {
+      version = new Version(tag, download(cluster, type, tag));
+      versions.put(key, version);
+      history.record(cluster, type, tag, FETCHED, version.properties);
+    }
+    return version.properties;
+  }
+
+  /**
+   * Reads the desired version of a configuration type after the shell has changed it and
+   * records it in the history with the given source.
+   *
+   * @param cluster name of the cluster
+   * @param type    configuration type, e.g. core-site
+   * @param source  command which changed the configuration
+   * @throws IOException if a request fails
+   */
+  public void reload(String cluster, String type, String source) throws IOException {
+    String tag = getDesiredTags(cluster).get(type);
+    if (tag != null) {
+      Map<String, String> properties = download(cluster, type, tag);
+      versions.put(cluster + "/" + type, new Version(tag, properties));
+      history.record(cluster, type, tag, source, properties);
+    }
+  }
+
+  private Map<String, String> download(String cluster, String type, String tag) throws IOException {
+    Map<String, String> result = new TreeMap<String, String>();
+    String path = String.format(CONFIG_PATH, cluster, URLEncoder.encode(type, ENCODING), URLEncoder.encode(tag, ENCODING));
+    JsonNode properties = restClient.get(path).path("items").path(0).path("properties");
+    Iterator<String> keys = properties.getFieldNames();
+    while (keys.hasNext()) {
+      String key = keys.next();
+      result.put(key, properties.path(key).asText());
+    }
+    return Collections.unmodifiableMap(result);
+  }
+
+  /**
+   * Downloaded version of a configuration type.
+   */
+  private static final class Version {
+    private final String tag;
+    private final Map<String, String> properties;
+
+    private Version(String tag, Map<String, String> properties) {
+      this.tag = tag;
+      this.properties = properties;
+    }
+  }
+}
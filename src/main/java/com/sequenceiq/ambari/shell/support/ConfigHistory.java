@@ -0,0 +1,301 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Local history of the configuration versions seen by the shell. Every configuration type
+ * has an append-only file which stores only the properties added, changed or removed by a
+ * version, so an unchanged property is stored once. Lines starting with '@' open a version
+ * (tag, time, source), '+' lines set a property and '-' lines remove one; tabs, new lines and
+ * backslashes are escaped. The values may hold passwords, so the directories and the files
+ * are created accessible only by the owner.
+ */
+public class ConfigHistory {
+
+  private static final Charset CHARSET = Charset.forName("UTF-8");
+  private static final String SUFFIX = ".history";
+
+  private final File dir;
+  private final Map<String, List<Version>> histories = new HashMap<String, List<Version>>();
+
+  /**
+   * @param dir directory of the history files, one sub-directory per cluster
+   */
+  public ConfigHistory(File dir) {
+    this.dir = dir;
+  }
+
+  /**
+   * Records a version of a configuration type unless it is the last recorded one.
+   *
+   * @param cluster    name of the cluster
+   * @param type       configuration type
+   * @param tag        tag of the version
+   * @param source     how the version was seen, e.g. fetched, modified
+   * @param properties properties of the version
+   */
+  public synchronized void record(String cluster, String type, String tag, String source, Map<String, String> properties) {
+    List<Version> versions = getVersions(cluster, type);
+    if (!versions.isEmpty() && versions.get(versions.size() - 1).tag.equals(tag)) {
+      return;
+    }
+    Map<String, String> last = getProperties(versions, versions.size() - 1);
+    Map<String, String> changes = new TreeMap<String, String>();
+    for (Map.Entry<String, String> property : properties.entrySet()) {
+      if (!property.getValue().equals(last.get(property.getKey()))) {
+        changes.put(property.getKey(), property.getValue());
+      }
+    }
+    for (String key : last.keySet()) {
+      if (!properties.containsKey(key)) {
+        changes.put(key, null);
+      }
+    }
+    Version version = new Version(tag, System.currentTimeMillis(), source, changes);
+    versions.add(version);
+    append(getFile(cluster, type), version);
+  }
+
+  /**
+   * Returns the recorded versions of a configuration type.
+   *
+   * @param cluster name of the cluster
+   * @param type    configuration type
+   * @return versions from the oldest to the newest
+   */
+  public synchronized List<Version> getHistory(String cluster, String type) {
+    return new ArrayList<Version>(getVersions(cluster, type));
+  }
+
+  /**
+   * Compares two recorded versions of a configuration type.
+   *
+   * @param cluster name of the cluster
+   * @param type    configuration type
+   * @param from    tag of the old version
+   * @param to      tag of the new version
+   * @return changed keys with the old and the new value, null if the property is missing
+   * @throws IllegalArgumentException if a version is not recorded
+   */
+  public synchronized Map<String, String[]> diff(String cluster, String type, String from, String to) {
+    List<Version> versions = getVersions(cluster, type);
+    Map<String, String> oldProperties = getProperties(versions, indexOf(versions, type, from));
+    Map<String, String> newProperties = getProperties(versions, indexOf(versions, type, to));
+    Map<String, String[]> result = new TreeMap<String, String[]>();
+    for (Map.Entry<String, String> property : newProperties.entrySet()) {
+      String old = oldProperties.get(property.getKey());
+      if (!property.getValue().equals(old)) {
+        result.put(property.getKey(), new String[]{old, property.getValue()});
+      }
+    }
+    for (Map.Entry<String, String> property : oldProperties.entrySet()) {
+      if (!newProperties.containsKey(property.getKey())) {
+        result.put(property.getKey(), new String[]{property.getValue(), null});
+      }
+    }
+    return result;
+  }
+
+  private int indexOf(List<Version> versions, String type, String tag) {
+    for (int i = versions.size() - 1; i >= 0; i--) {
+      if (versions.get(i).tag.equals(tag)) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException(String.format("No version %s of %s is recorded", tag, type));
+  }
+
+  private Map<String, String> getProperties(List<Version> versions, int index) {
+    Map<String, String> result = new HashMap<String, String>();
+    for (int i = 0; i <= index; i++) {
+      for (Map.Entry<String, String> change : versions.get(i).changes.entrySet()) {
+        if (change.getValue() == null) {
+          result.remove(change.getKey());
+        } else {
+          result.put(change.getKey(), change.getValue());
+        }
+      }
+    }
+    return result;
+  }
+
+  private List<Version> getVersions(String cluster, String type) {
+    String key = cluster + "/" + type;
+    List<Version> versions = histories.get(key);
+    if (versions == null) {
+      versions = load(getFile(cluster, type));
+      histories.put(key, versions);
+    }
+    return versions;
+  }
+
+  private File getFile(String cluster, String type) {
+    return new File(new File(dir, cluster), type + SUFFIX);
+  }
+
+  private List<Version> load(File file) {
+    List<Version> versions = new ArrayList<Version>();
+    if (file.exists()) {
+      try {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), CHARSET));
+        try {
+          String line;
+          Version version = null;
+          while ((line = reader.readLine()) != null) {
+            String[] fields = line.substring(Math.min(1, line.length())).split("\t", -1);
+            if (line.startsWith("@") && fields.length == 3) {
+              version = new Version(unescape(fields[0]), Long.parseLong(fields[1]), unescape(fields[2]),
+                new TreeMap<String, String>());
+              versions.add(version);
+            } else if (version != null && line.startsWith("+") && fields.length == 2) {
+              version.changes.put(unescape(fields[0]), unescape(fields[1]));
+            } else if (version != null && line.startsWith("-")) {
+              version.changes.put(unescape(fields[0]), null);
+            }
+          }
+        } finally {
+          reader.close();
+        }
+      } catch (IOException e) {
+        // keep the versions read so far
+      } catch (NumberFormatException e) {
+        // keep the versions read so far
+      }
+    }
+    return versions;
+  }
+
+  private void append(File file, Version version) {
+    try {
+      createOwnerOnly(file);
+      Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), CHARSET));
+      try {
+        writer.write(String.format("@%s\t%d\t%s\n", escape(version.tag), version.time, escape(version.source)));
+        for (Map.Entry<String, String> change : version.changes.entrySet()) {
+          if (change.getValue() == null) {
+            writer.write("-" + escape(change.getKey()) + "\n");
+          } else {
+            writer.write("+" + escape(change.getKey()) + "\t" + escape(change.getValue()) + "\n");
+          }
+        }
+      } finally {
+        writer.close();
+      }
+    } catch (IOException e) {
+      // not important, the version is kept in memory for this session
+    }
+  }
+
+  private static void createOwnerOnly(File file) throws IOException {
+    Path path = file.toPath();
+    Path parent = file.getAbsoluteFile().getParentFile().toPath();
+    try {
+      Files.createDirectories(parent, PosixFilePermissions.asFileAttribute(
+        EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE)));
+      Files.createFile(path, PosixFilePermissions.asFileAttribute(
+        EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE)));
+    } catch (FileAlreadyExistsException e) {
+      // appended to the existing file
+    } catch (UnsupportedOperationException e) {
+      Files.createDirectories(parent);
+      if (!file.exists()) {
+        Files.createFile(path);
+        file.setReadable(false, false);
+        file.setReadable(true, true);
+      }
+    }
+  }
+
+  private static String escape(String text) {
+    return text.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+  }
+
+  private static String unescape(String text) {
+    StringBuilder result = new StringBuilder(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '\\' && i + 1 < text.length()) {
+        char next = text.charAt(++i);
+        result.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+      } else {
+        result.append(c);
+      }
+    }
+    return result.toString();
+  }
+
+  /**
+   * Recorded version of a configuration type.
+   */
+  public static final class Version {
+    private final String tag;
+    private final long time;
+    private final String source;
+    private final Map<String, String> changes;
+
+    private Version(String tag, long time, String source, Map<String, String> changes) {
+      this.tag = tag;
+      this.time = time;
+      this.source = source;
+      this.changes = changes;
+    }
+
+    public String getTag() {
+      return tag;
+    }
+
+    public long getTime() {
+      return time;
+    }
+
+    public String getSource() {
+      return source;
+    }
+
+    /**
+     * Returns the number of properties added, changed or removed by this version.
+     *
+     * @return number of changed properties
+     */
+    public int getChangeCount() {
+      return changes.size();
+    }
+  }
+}
@@ -0,0 +1,186 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Searches the keys and values of every configuration type of a cluster. The types are
+ * downloaded in parallel and indexed by key and by value; before every search the desired
+ * tags are checked and only the changed types are downloaded and indexed again. The
+ * regular expressions are matched against the distinct keys and values only.
+ */
+public class ConfigSearch {
+
+  private static final int MAX_PARALLEL_DOWNLOADS = 8;
+
+  private final ConfigCache configCache;
+  private String cluster;
+  private Map<String, String> tags = new HashMap<String, String>();
+  private Map<String, Map<String, String>> configs = new HashMap<String, Map<String, String>>();
+  private Map<String, List<Posting>> keyIndex = new HashMap<String, List<Posting>>();
+  private Map<String, List<Posting>> valueIndex = new HashMap<String, List<Posting>>();
+
+  public ConfigSearch(ConfigCache configCache) {
+    this.configCache = configCache;
+  }
+
+  /**
+   * Finds the properties with matching key and value.
+   *
+   * @param cluster name of the cluster
+   * @param key     pattern to find in the keys or null to match every key
+   * @param value   pattern to find in the values or null to match every value
+   * @return type - key - value triples ordered by type and key
+   * @throws IOException if the configurations cannot be downloaded
+   */
+  public synchronized Map<String, Map<String, String>> search(String cluster, Pattern key, Pattern value) throws IOException {
+    refresh(cluster);
+    Map<String, Map<String, String>> result = new TreeMap<String, Map<String, String>>();
+    if (key != null) {
+      for (Map.Entry<String, List<Posting>> entry : keyIndex.entrySet()) {
+        if (key.matcher(entry.getKey()).find()) {
+          for (Posting posting : entry.getValue()) {
+            if (value == null || value.matcher(posting.text).find()) {
+              add(result, posting.type, entry.getKey(), posting.text);
+            }
+          }
+        }
+      }
+    } else if (value != null) {
+      for (Map.Entry<String, List<Posting>> entry : valueIndex.entrySet()) {
+        if (value.matcher(entry.getKey()).find()) {
+          for (Posting posting : entry.getValue()) {
+            add(result, posting.type, posting.text, entry.getKey());
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private void refresh(String cluster) throws IOException {
+    if (!cluster.equals(this.cluster)) {
+      this.cluster = cluster;
+      tags = new HashMap<String, String>();
+      configs = new HashMap<String, Map<String, String>>();
+    }
+    Map<String, String> desiredTags = configCache.getDesiredTags(cluster);
+    Map<String, String> changed = new HashMap<String, String>();
+    for (Map.Entry<String, String> desiredTag : desiredTags.entrySet()) {
+      if (!desiredTag.getValue().equals(tags.get(desiredTag.getKey()))) {
+        changed.put(desiredTag.getKey(), desiredTag.getValue());
+      }
+    }
+    if (changed.isEmpty() && desiredTags.keySet().equals(tags.keySet())) {
+      return;
+    }
+    configs.keySet().retainAll(desiredTags.keySet());
+    configs.putAll(download(cluster, changed));
+    tags = new HashMap<String, String>(desiredTags);
+    index();
+  }
+
+  private Map<String, Map<String, String>> download(final String cluster, Map<String, String> types) throws IOException {
+    Map<String, Map<String, String>> result = new HashMap<String, Map<String, String>>();
+    if (types.isEmpty()) {
+      return result;
+    }
+    Map<String, Future<Map<String, String>>> downloads = new HashMap<String, Future<Map<String, String>>>();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_PARALLEL_DOWNLOADS, types.size()),
+      new CustomizableThreadFactory("config-search-"));
+    try {
+      for (final Map.Entry<String, String> type : types.entrySet()) {
+        downloads.put(type.getKey(), executor.submit(new Callable<Map<String, String>>() {
+          @Override
+          public Map<String, String> call() throws IOException {
+            return configCache.get(cluster, type.getKey(), type.getValue());
+          }
+        }));
+      }
+      for (Map.Entry<String, Future<Map<String, String>>> download : downloads.entrySet()) {
+        result.put(download.getKey(), download.getValue().get());
+      }
+      return result;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while downloading the configurations", e);
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause().getMessage(), e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void index() {
+    Map<String, List<Posting>> keys = new HashMap<String, List<Posting>>();
+    Map<String, List<Posting>> values = new HashMap<String, List<Posting>>();
+    for (Map.Entry<String, Map<String, String>> config : configs.entrySet()) {
+      for (Map.Entry<String, String> property : config.getValue().entrySet()) {
+        getPostings(keys, property.getKey()).add(new Posting(config.getKey(), property.getValue()));
+        getPostings(values, property.getValue()).add(new Posting(config.getKey(), property.getKey()));
+      }
+    }
+    keyIndex = keys;
+    valueIndex = values;
+  }
+
+  private static List<Posting> getPostings(Map<String, List<Posting>> index, String term) {
+    List<Posting> postings = index.get(term);
+    if (postings == null) {
+      postings = new ArrayList<Posting>(1);
+      index.put(term, postings);
+    }
+    return postings;
+  }
+
+  private static void add(Map<String, Map<String, String>> result, String type, String key, String value) {
+    Map<String, String> properties = result.get(type);
+    if (properties == null) {
+      properties = new TreeMap<String, String>();
+      result.put(type, properties);
+    }
+    properties.put(key, value);
+  }
+
+  /**
+   * Occurrence of a key or value: the configuration type and the other half of the property.
+   */
+  private static final class Posting {
+    private final String type;
+    private final String text;
+
+    private Posting(String type, String text) {
+      this.type = type;
+      this.text = text;
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Reads and writes the Hadoop configuration XML format, e.g. core-site.xml, with a
+ * streaming parser. The values are kept as they are: variables are not expanded,
+ * includes, descriptions and final flags are ignored.
+ */
+public final class ConfigXml {
+
+  private static final String ENCODING = "UTF-8";
+  private static final String CONFIGURATION = "configuration";
+  private static final String PROPERTY = "property";
+  private static final String NAME = "name";
+  private static final String VALUE = "value";
+  private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+  private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+  private ConfigXml() {
+    throw new IllegalStateException();
+  }
+
+  /**
+   * Reads the properties of a configuration. The stream is not closed.
+   *
+   * @param in configuration XML
+   * @return name - value pairs in the order of the document, the last one wins
+   * @throws IOException if the document is not a well-formed configuration
+   */
+  public static Map<String, String> read(InputStream in) throws IOException {
+    Map<String, String> result = new LinkedHashMap<String, String>();
+    try {
+      XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(in);
+      try {
+        reader.nextTag();
+        if (!CONFIGURATION.equals(reader.getLocalName())) {
+          throw new IOException("Not a configuration: <" + reader.getLocalName() + ">");
+        }
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+          if (PROPERTY.equals(reader.getLocalName())) {
+            readProperty(reader, result);
+          } else {
+            skipElement(reader);
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      throw new IOException("Invalid configuration: " + e.getMessage(), e);
+    }
+    return result;
+  }
+
+  /**
+   * Writes the properties as configuration XML. The stream is not closed.
+   *
+   * @param config name - value pairs
+   * @param out    target of the XML
+   * @throws IOException if the XML cannot be written
+   */
+  public static void write(Map<String, String> config, OutputStream out) throws IOException {
+    try {
+      XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(out, ENCODING);
+      writer.writeStartDocument(ENCODING, "1.0");
+      writer.writeCharacters("\n");
+      writer.writeStartElement(CONFIGURATION);
+      for (Map.Entry<String, String> entry : config.entrySet()) {
+        writer.writeCharacters("\n  ");
+        writer.writeStartElement(PROPERTY);
+        writer.writeCharacters("\n    ");
+        writeElement(writer, NAME, entry.getKey());
+        writer.writeCharacters("\n    ");
+        writeElement(writer, VALUE, entry.getValue());
+        writer.writeCharacters("\n  ");
+        writer.writeEndElement();
+      }
+      writer.writeCharacters("\n");
+      writer.writeEndElement();
+      writer.writeCharacters("\n");
+      writer.writeEndDocument();
+      writer.close();
+    } catch (XMLStreamException e) {
+      throw new IOException("Cannot write the configuration: " + e.getMessage(), e);
+    }
+  }
+
+  private static void readProperty(XMLStreamReader reader, Map<String, String> result) throws XMLStreamException {
+    String name = null;
+    String value = null;
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      if (NAME.equals(reader.getLocalName())) {
+        name = reader.getElementText().trim();
+      } else if (VALUE.equals(reader.getLocalName())) {
+        value = reader.getElementText();
+      } else {
+        skipElement(reader);
+      }
+    }
+    if (name != null && !name.isEmpty() && value != null) {
+      result.put(name, value);
+    }
+  }
+
+  private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  private static void writeElement(XMLStreamWriter writer, String name, String text) throws XMLStreamException {
+    writer.writeStartElement(name);
+    writer.writeCharacters(text == null ? "" : text);
+    writer.writeEndElement();
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    return factory;
+  }
+}
@@ -0,0 +1,130 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Selects hosts from the hosts known by the Ambari server by name, wildcard or regular expression.
+ * The known hosts are hashed once, so exact names are validated in constant time and patterns are
+ * matched in a single pass.
+ */
+public class HostSelector {
+
+  private final Set<String> hosts;
+  private final Collection<String> sortedHosts;
+
+  public HostSelector(Collection<String> hosts) {
+    this.hosts = new HashSet<String>(hosts);
+    this.sortedHosts = new TreeSet<String>(hosts);
+  }
+
+  /**
+   * Checks whether the host is known or not.
+   *
+   * @param host host name
+   * @return true if known false otherwise
+   */
+  public boolean contains(String host) {
+    return hosts.contains(host);
+  }
+
+  /**
+   * Selects the hosts of a comma separated list. The items containing * or ? are used as wildcards.
+   * The unknown names and the wildcards without any match are collected as rejected.
+   *
+   * @param list     comma separated host names or wildcards
+   * @param rejected rejected item - reason pairs
+   * @return selected hosts in the order of the list
+   */
+  public List<String> selectList(String list, Map<String, String> rejected) {
+    Set<String> selected = new LinkedHashSet<String>();
+    for (String item : list.split(",")) {
+      String name = item.trim();
+      if (name.isEmpty()) {
+        continue;
+      }
+      if (isWildcard(name)) {
+        List<String> matches = select(toPattern(name));
+        if (matches.isEmpty()) {
+          rejected.put(name, "no matching host");
+        }
+        selected.addAll(matches);
+      } else if (hosts.contains(name)) {
+        selected.add(name);
+      } else {
+        rejected.put(name, "unknown host");
+      }
+    }
+    return new ArrayList<String>(selected);
+  }
+
+  /**
+   * Selects the hosts matching the pattern.
+   *
+   * @param pattern pattern of the whole host name
+   * @return matching hosts in alphabetical order
+   */
+  public List<String> select(Pattern pattern) {
+    List<String> result = new ArrayList<String>();
+    for (String host : sortedHosts) {
+      if (pattern.matcher(host).matches()) {
+        result.add(host);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Converts a wildcard, where * matches any number of characters and ? a single character, to a pattern.
+   *
+   * @param wildcard wildcard
+   * @return pattern
+   */
+  public static Pattern toPattern(String wildcard) {
+    StringBuilder regex = new StringBuilder();
+    StringBuilder literal = new StringBuilder();
+    for (char c : wildcard.toCharArray()) {
+      if (c == '*' || c == '?') {
+        if (literal.length() > 0) {
+          regex.append(Pattern.quote(literal.toString()));
+          literal.setLength(0);
+        }
+        regex.append(c == '*' ? ".*" : ".");
+      } else {
+        literal.append(c);
+      }
+    }
+    if (literal.length() > 0) {
+      regex.append(Pattern.quote(literal.toString()));
+    }
+    return Pattern.compile(regex.toString());
+  }
+
+  private static boolean isWildcard(String name) {
+    return name.indexOf('*') >= 0 || name.indexOf('?') >= 0;
+  }
+}
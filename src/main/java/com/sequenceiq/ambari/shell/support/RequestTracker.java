@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import static java.lang.Math.min;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.codehaus.jackson.JsonNode;
+
+/**
+ * Follows the asynchronous requests of the Ambari server, e.g. starting a service, by their id.
+ * Only the status of the given request is read, and it is read often while the request makes
+ * progress and less and less often while it stalls.
+ */
+public class RequestTracker {
+
+  private static final String REQUEST_PATH = "clusters/%s/requests/%d?fields=Requests/request_status,Requests/progress_percent";
+  private static final List<String> FINISHED = Arrays.asList("COMPLETED", "FAILED", "ABORTED", "TIMEDOUT", "SKIPPED_FAILED");
+  private static final String COMPLETED = "COMPLETED";
+  private static final long MIN_INTERVAL = 500;
+  private static final long MAX_INTERVAL = 10000;
+
+  private final AmbariRestClient restClient;
+
+  public RequestTracker(AmbariRestClient restClient) {
+    this.restClient = restClient;
+  }
+
+  /**
+   * Reads the actual state of a request.
+   *
+   * @param cluster   name of the cluster
+   * @param requestId id of the request
+   * @return state of the request
+   * @throws IOException if the request fails
+   */
+  public RequestState getState(String cluster, int requestId) throws IOException {
+    JsonNode request = restClient.get(String.format(REQUEST_PATH, cluster, requestId)).path("Requests");
+    return new RequestState(requestId, request.path("request_status").asText(), request.path("progress_percent").asDouble());
+  }
+
+  /**
+   * Waits until a request finishes. The polling interval starts from half a second and grows by half
+   * after every poll without progress up to 10 seconds, any progress resets it.
+   *
+   * @param cluster   name of the cluster
+   * @param requestId id of the request
+   * @param timeout   maximum time to wait in milliseconds
+   * @return the final state of the request or the last state read if the timeout elapsed
+   * @throws IOException          if a request fails
+   * @throws InterruptedException if the waiting thread is interrupted
+   */
+  public RequestState await(String cluster, int requestId, long timeout) throws IOException, InterruptedException {
+    long deadline = currentTime() + timeout;
+    long interval = MIN_INTERVAL;
+    RequestState state = getState(cluster, requestId);
+    while (!state.isFinished()) {
+      long remaining = deadline - currentTime();
+      if (remaining <= 0) {
+        break;
+      }
+      sleep(min(interval, remaining));
+      RequestState previous = state;
+      state = getState(cluster, requestId);
+      if (state.getProgress() != previous.getProgress() || !state.getStatus().equals(previous.getStatus())) {
+        interval = MIN_INTERVAL;
+      } else {
+        interval = min(interval * 3 / 2, MAX_INTERVAL);
+      }
+    }
+    return state;
+  }
+
+  protected long currentTime() {
+    return System.currentTimeMillis();
+  }
+
+  protected void sleep(long millis) throws InterruptedException {
+    Thread.sleep(millis);
+  }
+
+  /**
+   * Status and progress of a request at a given moment.
+   */
+  public static final class RequestState {
+
+    private final int id;
+    private final String status;
+    private final double progress;
+
+    public RequestState(int id, String status, double progress) {
+      this.id = id;
+      this.status = status;
+      this.progress = progress;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public String getStatus() {
+      return status;
+    }
+
+    public double getProgress() {
+      return progress;
+    }
+
+    public boolean isFinished() {
+      return FINISHED.contains(status);
+    }
+
+    public boolean isSuccessful() {
+      return COMPLETED.equals(status);
+    }
+  }
+}
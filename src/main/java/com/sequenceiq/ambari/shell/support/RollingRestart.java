@@ -0,0 +1,269 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.codehaus.jackson.JsonNode;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Restarts a component on all of its hosts in batches, so the service keeps running. Each batch is stopped
+ * and started with one request per step, the requests are followed with the {@link RequestTracker} and the
+ * batch is done when every host of the batch reports the component as STARTED. No new batch is started
+ * once the number of failed hosts exceeds the given threshold.
+ */
+public class RollingRestart {
+
+  /**
+   * The hosts of a batch are listed in the URL of its requests, so a batch is limited to keep the URL short.
+   */
+  public static final int MAX_BATCH_SIZE = 100;
+
+  private static final String HOSTS_PATH = "clusters/%s/host_components?HostRoles/component_name=%s&fields=HostRoles/host_name";
+  private static final String BATCH_PATH = "clusters/%s/host_components?HostRoles/component_name=%s&HostRoles/host_name.in(%s)";
+  private static final String STATE_QUERY = "&fields=HostRoles/host_name,HostRoles/state";
+  private static final String STATE_BODY = "{\"RequestInfo\": {\"context\": \"%s %s, batch %d\"}, \"Body\": {\"HostRoles\": {\"state\": \"%s\"}}}";
+  private static final String INSTALLED = "INSTALLED";
+  private static final String STARTED = "STARTED";
+  private static final String ENCODING = "UTF-8";
+  private static final String RESTARTED = "Restarted";
+  private static final String SKIPPED = "Skipped";
+
+  private final AmbariRestClient restClient;
+  private final RequestTracker requestTracker;
+
+  public RollingRestart(AmbariRestClient restClient, RequestTracker requestTracker) {
+    this.restClient = restClient;
+    this.requestTracker = requestTracker;
+  }
+
+  /**
+   * Lists the hosts of a component.
+   *
+   * @param cluster   name of the cluster
+   * @param component name of the component, e.g. DATANODE
+   * @return host names in alphabetical order
+   * @throws IOException if the request fails
+   */
+  public List<String> getHosts(String cluster, String component) throws IOException {
+    List<String> hosts = new ArrayList<String>();
+    for (JsonNode item : restClient.get(String.format(HOSTS_PATH, cluster, component)).path("items")) {
+      hosts.add(item.path("HostRoles").path("host_name").asText());
+    }
+    Collections.sort(hosts);
+    return hosts;
+  }
+
+  /**
+   * Splits the hosts of a component into batches.
+   *
+   * @param cluster   name of the cluster
+   * @param component name of the component, e.g. DATANODE
+   * @param batchSize number of hosts restarted by a batch, at most {@link #MAX_BATCH_SIZE}
+   * @return the batches in the order of their restart
+   * @throws IOException if the hosts of the component cannot be listed
+   */
+  public List<Batch> plan(String cluster, String component, int batchSize) throws IOException {
+    if (batchSize > MAX_BATCH_SIZE) {
+      throw new IllegalArgumentException(String.format("A batch cannot have more than %d hosts", MAX_BATCH_SIZE));
+    }
+    List<String> hosts = getHosts(cluster, component);
+    List<Batch> batches = new ArrayList<Batch>();
+    for (int i = 0; i < hosts.size(); i += batchSize) {
+      batches.add(new Batch(batches.size() + 1, hosts.subList(i, Math.min(i + batchSize, hosts.size()))));
+    }
+    return batches;
+  }
+
+  /**
+   * Restarts a component in batches. Each batch is finished when this method returns, the ones
+   * not started because of the failures as skipped.
+   *
+   * @param cluster     name of the cluster
+   * @param component   name of the component, e.g. DATANODE
+   * @param batches     batches to restart, the result of each batch is stored in it
+   * @param maxParallel number of batches running at the same time
+   * @param maxFailures number of failed hosts tolerated, no new batch is started above it
+   * @param timeout     maximum time to wait for a request in milliseconds
+   * @throws InterruptedException if the calling thread is interrupted
+   */
+  public void restart(final String cluster, final String component, List<Batch> batches, int maxParallel,
+    int maxFailures, final long timeout) throws InterruptedException {
+    if (batches.isEmpty()) {
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxParallel, batches.size()),
+      new CustomizableThreadFactory("restart-"));
+    CompletionService<Batch> completionService = new ExecutorCompletionService<Batch>(executor);
+    int next = 0;
+    int running = 0;
+    int failures = 0;
+    try {
+      while (next < batches.size() && running < maxParallel) {
+        submit(completionService, cluster, component, batches.get(next++), timeout);
+        running++;
+      }
+      while (running > 0) {
+        Batch finished = completionService.take().get();
+        running--;
+        failures += finished.getFailedHosts().size();
+        if (failures <= maxFailures && next < batches.size()) {
+          submit(completionService, cluster, component, batches.get(next++), timeout);
+          running++;
+        }
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+      for (Batch batch : batches) {
+        if (!batch.isFinished()) {
+          batch.finish(Collections.<String>emptyList(), SKIPPED);
+        }
+      }
+    }
+  }
+
+  private void submit(CompletionService<Batch> completionService, final String cluster, final String component,
+    final Batch batch, final long timeout) {
+    completionService.submit(new Callable<Batch>() {
+      @Override
+      public Batch call() {
+        execute(cluster, component, batch, timeout);
+        return batch;
+      }
+    });
+  }
+
+  private void execute(String cluster, String component, Batch batch, long timeout) {
+    try {
+      String path = String.format(BATCH_PATH, cluster, component, encodeHosts(batch.getHosts()));
+      String error = changeState(cluster, component, batch, path, INSTALLED, "Stop", timeout);
+      if (error == null) {
+        error = changeState(cluster, component, batch, path, STARTED, "Start", timeout);
+      }
+      if (error != null) {
+        // a failed request fails the whole batch, even if its hosts still report STARTED
+        batch.finish(batch.getHosts(), error);
+      } else {
+        List<String> failedHosts = new ArrayList<String>();
+        for (JsonNode item : restClient.get(path + STATE_QUERY).path("items")) {
+          JsonNode hostRoles = item.path("HostRoles");
+          if (!STARTED.equals(hostRoles.path("state").asText())) {
+            failedHosts.add(hostRoles.path("host_name").asText());
+          }
+        }
+        batch.finish(failedHosts, failedHosts.isEmpty() ? RESTARTED : "Not started");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      batch.finish(batch.getHosts(), "Interrupted");
+    } catch (IOException e) {
+      batch.finish(batch.getHosts(), "Failed: " + e.getMessage());
+    }
+  }
+
+  private String encodeHosts(List<String> hosts) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (String host : hosts) {
+      sb.append(sb.length() == 0 ? "" : ",").append(URLEncoder.encode(host, ENCODING));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Changes the state of the component on the hosts of the batch and waits for the request.
+   *
+   * @return error message or null if the request completed
+   */
+  private String changeState(String cluster, String component, Batch batch, String path, String state, String action,
+    long timeout) throws IOException, InterruptedException {
+    String error = null;
+    int requestId = restClient.submit("PUT", path, String.format(STATE_BODY, action, component, batch.getIndex(), state));
+    if (requestId > 0) {
+      RequestTracker.RequestState requestState = requestTracker.await(cluster, requestId, timeout);
+      if (!requestState.isSuccessful()) {
+        error = String.format("%s request %d %s", action, requestId,
+          requestState.isFinished() ? "finished with " + requestState.getStatus() : "did not finish");
+      }
+    }
+    return error;
+  }
+
+  /**
+   * Hosts restarted together and the result of their restart.
+   */
+  public static final class Batch {
+
+    private final int index;
+    private final List<String> hosts;
+    private volatile List<String> failedHosts = Collections.emptyList();
+    private volatile String result;
+
+    public Batch(int index, List<String> hosts) {
+      this.index = index;
+      this.hosts = hosts;
+    }
+
+    public int getIndex() {
+      return index;
+    }
+
+    public List<String> getHosts() {
+      return hosts;
+    }
+
+    public List<String> getFailedHosts() {
+      return failedHosts;
+    }
+
+    public String getResult() {
+      return result;
+    }
+
+    public boolean isFinished() {
+      return result != null;
+    }
+
+    public boolean isSuccessful() {
+      return RESTARTED.equals(result);
+    }
+
+    /**
+     * Stores the result of the batch unless it is already finished: a worker still running after
+     * the restart is aborted must not overwrite the batch marked as skipped, and vice versa.
+     */
+    synchronized void finish(List<String> failedHosts, String result) {
+      if (this.result == null) {
+        this.failedHosts = failedHosts;
+        this.result = result;
+      }
+    }
+  }
+}
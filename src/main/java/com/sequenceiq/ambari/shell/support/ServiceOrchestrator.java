@@ -0,0 +1,354 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import static java.util.Arrays.asList;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.sequenceiq.ambari.client.AmbariClient;
+
+/**
+ * Starts or stops services in the order of their dependencies, e.g. ZooKeeper before HDFS before YARN.
+ * Every service whose dependencies are satisfied is started at once and its request is followed until
+ * it finishes, so the whole stack is up in the time of the longest dependency chain. Stopping goes in
+ * the reverse order.
+ * <p/>
+ * The dependencies of the HDP stack are built in and can be overridden in a properties file, e.g.
+ * <code>HBASE=HDFS,ZOOKEEPER</code>, an empty value removes the dependencies of a service.
+ */
+public class ServiceOrchestrator {
+
+  private static final Map<String, List<String>> DEFAULT_DEPENDENCIES = new HashMap<String, List<String>>();
+  private static final int MAX_PARALLEL_REQUESTS = 8;
+  private static final long MILLIS_PER_SECOND = 1000;
+
+  static {
+    DEFAULT_DEPENDENCIES.put("HDFS", asList("ZOOKEEPER"));
+    DEFAULT_DEPENDENCIES.put("MAPREDUCE", asList("HDFS"));
+    DEFAULT_DEPENDENCIES.put("YARN", asList("HDFS"));
+    DEFAULT_DEPENDENCIES.put("MAPREDUCE2", asList("YARN"));
+    DEFAULT_DEPENDENCIES.put("HBASE", asList("HDFS", "ZOOKEEPER"));
+    DEFAULT_DEPENDENCIES.put("HIVE", asList("HDFS", "ZOOKEEPER"));
+    DEFAULT_DEPENDENCIES.put("HCATALOG", asList("HIVE"));
+    DEFAULT_DEPENDENCIES.put("WEBHCAT", asList("HIVE"));
+    DEFAULT_DEPENDENCIES.put("OOZIE", asList("HDFS", "YARN"));
+    DEFAULT_DEPENDENCIES.put("FALCON", asList("OOZIE"));
+    DEFAULT_DEPENDENCIES.put("STORM", asList("ZOOKEEPER"));
+    DEFAULT_DEPENDENCIES.put("FLUME", asList("HDFS"));
+  }
+
+  private final AmbariClient client;
+  private final RequestTracker requestTracker;
+  private final File dependencyFile;
+
+  public ServiceOrchestrator(AmbariClient client, RequestTracker requestTracker, File dependencyFile) {
+    this.client = client;
+    this.requestTracker = requestTracker;
+    this.dependencyFile = dependencyFile;
+  }
+
+  /**
+   * Starts the given services, every service after its dependencies.
+   *
+   * @param cluster  name of the cluster
+   * @param services services to start
+   * @param timeout  maximum time to wait for a request in milliseconds
+   * @return the outcome of each service in the order they finished
+   * @throws IOException          if the dependency file cannot be read
+   * @throws InterruptedException if the calling thread is interrupted
+   */
+  public List<Outcome> start(String cluster, Collection<String> services, long timeout)
+    throws IOException, InterruptedException {
+    return run(cluster, services, true, timeout);
+  }
+
+  /**
+   * Stops the given services, every service after the services depending on it.
+   *
+   * @param cluster  name of the cluster
+   * @param services services to stop
+   * @param timeout  maximum time to wait for a request in milliseconds
+   * @return the outcome of each service in the order they finished
+   * @throws IOException          if the dependency file cannot be read
+   * @throws InterruptedException if the calling thread is interrupted
+   */
+  public List<Outcome> stop(String cluster, Collection<String> services, long timeout)
+    throws IOException, InterruptedException {
+    return run(cluster, services, false, timeout);
+  }
+
+  /**
+   * Collects a service and the services it must wait for: its dependencies when starting
+   * and the services depending on it when stopping.
+   *
+   * @param service   name of the service
+   * @param installed the installed services, others are ignored
+   * @param start     true for starting false for stopping
+   * @return the service and the services it waits for transitively
+   * @throws IOException if the dependency file cannot be read
+   */
+  public Set<String> withPrerequisites(String service, Collection<String> installed, boolean start) throws IOException {
+    Map<String, List<String>> edges = getEdges(installed, start);
+    Set<String> result = new TreeSet<String>();
+    Deque<String> queue = new ArrayDeque<String>();
+    queue.add(service);
+    while (!queue.isEmpty()) {
+      String next = queue.poll();
+      if (edges.containsKey(next) && result.add(next)) {
+        queue.addAll(edges.get(next));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Reads the dependencies of the services, the built in ones overridden by the dependency file.
+   *
+   * @return service - dependencies pairs
+   * @throws IOException if the dependency file cannot be read
+   */
+  public Map<String, List<String>> getDependencies() throws IOException {
+    Map<String, List<String>> dependencies = new TreeMap<String, List<String>>(DEFAULT_DEPENDENCIES);
+    if (dependencyFile != null && dependencyFile.isFile()) {
+      Properties properties = new Properties();
+      InputStream in = new FileInputStream(dependencyFile);
+      try {
+        properties.load(in);
+      } finally {
+        in.close();
+      }
+      for (String service : properties.stringPropertyNames()) {
+        List<String> list = new ArrayList<String>();
+        for (String dependency : properties.getProperty(service).split(",")) {
+          if (!dependency.trim().isEmpty()) {
+            list.add(dependency.trim());
+          }
+        }
+        dependencies.put(service, list);
+      }
+    }
+    return dependencies;
+  }
+
+  /**
+   * Returns the services each service waits for, restricted to the given services.
+   */
+  private Map<String, List<String>> getEdges(Collection<String> services, boolean start) throws IOException {
+    Map<String, List<String>> dependencies = getDependencies();
+    Map<String, List<String>> edges = new TreeMap<String, List<String>>();
+    for (String service : services) {
+      edges.put(service, new ArrayList<String>());
+    }
+    for (String service : services) {
+      List<String> serviceDependencies = dependencies.get(service);
+      if (serviceDependencies != null) {
+        for (String dependency : serviceDependencies) {
+          if (edges.containsKey(dependency)) {
+            if (start) {
+              edges.get(service).add(dependency);
+            } else {
+              edges.get(dependency).add(service);
+            }
+          }
+        }
+      }
+    }
+    return edges;
+  }
+
+  private List<Outcome> run(final String cluster, Collection<String> services, final boolean start, final long timeout)
+    throws IOException, InterruptedException {
+    Map<String, List<String>> edges = getEdges(services, start);
+    Map<String, Integer> waitingFor = new HashMap<String, Integer>();
+    Map<String, List<String>> dependents = new HashMap<String, List<String>>();
+    for (String service : edges.keySet()) {
+      waitingFor.put(service, edges.get(service).size());
+      dependents.put(service, new ArrayList<String>());
+    }
+    for (String service : edges.keySet()) {
+      for (String prerequisite : edges.get(service)) {
+        dependents.get(prerequisite).add(service);
+      }
+    }
+    checkCycles(edges.keySet(), waitingFor, dependents);
+    List<Outcome> outcomes = new ArrayList<Outcome>();
+    if (edges.isEmpty()) {
+      return outcomes;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_PARALLEL_REQUESTS, edges.size()),
+      new CustomizableThreadFactory("services-"));
+    CompletionService<Outcome> completionService = new ExecutorCompletionService<Outcome>(executor);
+    Set<String> launched = new TreeSet<String>();
+    int running = 0;
+    try {
+      for (String service : edges.keySet()) {
+        if (waitingFor.get(service) == 0) {
+          submit(completionService, cluster, service, start, timeout);
+          launched.add(service);
+          running++;
+        }
+      }
+      while (running > 0) {
+        Outcome outcome = completionService.take().get();
+        running--;
+        outcomes.add(outcome);
+        // the dependents of a failed service are never released, so only they are skipped
+        if (outcome.isSuccessful()) {
+          for (String dependent : dependents.get(outcome.getService())) {
+            int remaining = waitingFor.get(dependent) - 1;
+            waitingFor.put(dependent, remaining);
+            if (remaining == 0) {
+              submit(completionService, cluster, dependent, start, timeout);
+              launched.add(dependent);
+              running++;
+            }
+          }
+        }
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+    for (String service : edges.keySet()) {
+      if (!launched.contains(service)) {
+        outcomes.add(new Outcome(service, false, "Skipped"));
+      }
+    }
+    return outcomes;
+  }
+
+  private void checkCycles(Set<String> services, Map<String, Integer> waitingFor, Map<String, List<String>> dependents) {
+    Map<String, Integer> remaining = new HashMap<String, Integer>(waitingFor);
+    Deque<String> ready = new ArrayDeque<String>();
+    for (String service : services) {
+      if (remaining.get(service) == 0) {
+        ready.add(service);
+      }
+    }
+    int visited = 0;
+    while (!ready.isEmpty()) {
+      String service = ready.poll();
+      visited++;
+      for (String dependent : dependents.get(service)) {
+        int count = remaining.get(dependent) - 1;
+        remaining.put(dependent, count);
+        if (count == 0) {
+          ready.add(dependent);
+        }
+      }
+    }
+    if (visited < services.size()) {
+      Set<String> cycle = new TreeSet<String>();
+      for (String service : services) {
+        if (remaining.get(service) > 0) {
+          cycle.add(service);
+        }
+      }
+      throw new IllegalArgumentException("Dependency cycle between " + cycle);
+    }
+  }
+
+  private void submit(CompletionService<Outcome> completionService, final String cluster, final String service,
+    final boolean start, final long timeout) {
+    completionService.submit(new Callable<Outcome>() {
+      @Override
+      public Outcome call() {
+        return execute(cluster, service, start, timeout);
+      }
+    });
+  }
+
+  private Outcome execute(String cluster, String service, boolean start, long timeout) {
+    long begin = System.currentTimeMillis();
+    Outcome outcome;
+    try {
+      int requestId = start ? client.startService(service) : client.stopService(service);
+      if (requestId > 0) {
+        RequestTracker.RequestState state = requestTracker.await(cluster, requestId, timeout);
+        long seconds = (System.currentTimeMillis() - begin) / MILLIS_PER_SECOND;
+        if (state.isSuccessful()) {
+          outcome = new Outcome(service, true, String.format("%s in %d s", start ? "Started" : "Stopped", seconds));
+        } else if (state.isFinished()) {
+          outcome = new Outcome(service, false, String.format("Request %d finished with %s", requestId, state.getStatus()));
+        } else {
+          outcome = new Outcome(service, false, String.format("Request %d did not finish in %d s", requestId, seconds));
+        }
+      } else {
+        outcome = new Outcome(service, true, start ? "Already started" : "Already stopped");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      outcome = new Outcome(service, false, "Interrupted");
+    } catch (Exception e) {
+      outcome = new Outcome(service, false, "Failed: " + e.getMessage());
+    }
+    return outcome;
+  }
+
+  /**
+   * Result of starting or stopping a service.
+   */
+  public static final class Outcome {
+
+    private final String service;
+    private final boolean successful;
+    private final String message;
+
+    public Outcome(String service, boolean successful, String message) {
+      this.service = service;
+      this.successful = successful;
+      this.message = message;
+    }
+
+    public String getService() {
+      return service;
+    }
+
+    public boolean isSuccessful() {
+      return successful;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import static com.sequenceiq.ambari.shell.support.TableRenderer.renderSingleMap;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Measures where the time goes until the shell is able to execute the first command.
+ * Records the startup phases and the creation time of every bean. The time of a bean
+ * does not include the creation of its dependencies, which are tracked per thread as
+ * beans may be created by several threads at the same time.
+ */
+public class StartupProfiler extends InstantiationAwareBeanPostProcessorAdapter
+  implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+  public static final String BEAN_NAME = "startupProfiler";
+  private static final int MAX_BEANS = 20;
+
+  private final Map<String, Long> phases = new LinkedHashMap<String, Long>();
+  private final Map<String, Long> beans = new LinkedHashMap<String, Long>();
+  private final ThreadLocal<Deque<Frame>> creations = new ThreadLocal<Deque<Frame>>() {
+    @Override
+    protected Deque<Frame> initialValue() {
+      return new LinkedList<Frame>();
+    }
+  };
+  private long last;
+
+  public StartupProfiler() {
+    last = ManagementFactory.getRuntimeMXBean().getStartTime();
+    mark("jvm start - main");
+  }
+
+  @Override
+  public void initialize(ConfigurableApplicationContext context) {
+    mark("main - context initialization");
+    context.getBeanFactory().addBeanPostProcessor(this);
+    context.getBeanFactory().registerSingleton(BEAN_NAME, this);
+  }
+
+  /**
+   * Marks the end of a startup phase, which began at the end of the previous one.
+   *
+   * @param phase name of the phase
+   */
+  public synchronized void mark(String phase) {
+    long now = System.currentTimeMillis();
+    phases.put(phase, now - last);
+    last = now;
+  }
+
+  public synchronized boolean isMarked(String phase) {
+    return phases.containsKey(phase);
+  }
+
+  @Override
+  public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+    creations.get().push(new Frame(beanName));
+    return null;
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    Deque<Frame> frames = creations.get();
+    Frame frame = frames.peek();
+    // objects returned by factory beans are post processed again with the same name
+    if (frame != null && frame.name.equals(beanName)) {
+      frames.pop();
+      long elapsed = System.nanoTime() - frame.start;
+      Frame parent = frames.peek();
+      if (parent != null) {
+        parent.children += elapsed;
+      }
+      record(beanName, TimeUnit.NANOSECONDS.toMillis(elapsed - frame.children));
+    }
+    return bean;
+  }
+
+  private synchronized void record(String beanName, long millis) {
+    beans.put(beanName, millis);
+  }
+
+  /**
+   * Renders the startup phases and the slowest beans.
+   *
+   * @return formatted tables
+   */
+  public synchronized String getReport() {
+    Map<String, String> phaseRows = new LinkedHashMap<String, String>();
+    long total = 0;
+    for (Map.Entry<String, Long> phase : phases.entrySet()) {
+      phaseRows.put(phase.getKey(), phase.getValue().toString());
+      total += phase.getValue();
+    }
+    phaseRows.put("total", String.valueOf(total));
+
+    List<Map.Entry<String, Long>> slowest = new ArrayList<Map.Entry<String, Long>>(beans.entrySet());
+    Collections.sort(slowest, new Comparator<Map.Entry<String, Long>>() {
+      @Override
+      public int compare(Map.Entry<String, Long> o1, Map.Entry<String, Long> o2) {
+        return o2.getValue().compareTo(o1.getValue());
+      }
+    });
+    Map<String, String> beanRows = new LinkedHashMap<String, String>();
+    for (Map.Entry<String, Long> bean : slowest.subList(0, Math.min(MAX_BEANS, slowest.size()))) {
+      beanRows.put(bean.getKey(), bean.getValue().toString());
+    }
+    return String.format("%s\n%s", renderSingleMap(phaseRows, "PHASE", "MS"), renderSingleMap(beanRows, "BEAN", "MS"));
+  }
+
+  private static final class Frame {
+    private final String name;
+    private final long start = System.nanoTime();
+    private long children;
+
+    private Frame(String name) {
+      this.name = name;
+    }
+  }
+}
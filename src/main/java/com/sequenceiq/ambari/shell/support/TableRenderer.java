@@ -19,7 +19,7 @@ package com.sequenceiq.ambari.shell.support;
 
 import static java.util.Collections.singletonList;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -93,6 +93,24 @@ public final class TableRenderer {
     return format(table);
   }
 
+  /**
+   * Renders a table with the given headers and rows. If headers are provided it should match with the
+   * number of columns.
+   *
+   * @param rows    rows of the table, each array is a row
+   * @param headers headers of the table
+   * @return formatted table
+   */
+  public static String renderRows(List<String[]> rows, String... headers) {
+    Table table = createTable(headers);
+    if (rows != null) {
+      for (String[] row : rows) {
+        table.addRow(row);
+      }
+    }
+    return format(table);
+  }
+
   private static Table createTable(String... headers) {
     Table table = new Table();
     if (headers != null) {
@@ -105,7 +123,7 @@ public final class TableRenderer {
   }
 
   private static Map<String, List<String>> convert(Map<String, String> map) {
-    Map<String, List<String>> result = new HashMap<String, List<String>>(map.size());
+    Map<String, List<String>> result = new LinkedHashMap<String, List<String>>(map.size());
     if (map != null) {
       for (String key : map.keySet()) {
         result.put(key, singletonList(map.get(key)));
@@ -0,0 +1,139 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes regular files into a gzip compressed ustar archive which can be read by
+ * {@link ArchiveReader} and the tar command.
+ */
+public class TarGzWriter implements Closeable {
+
+  private static final Charset CHARSET = Charset.forName("UTF-8");
+  private static final int BLOCK_SIZE = 512;
+  private static final int NAME_LENGTH = 100;
+  private static final int MODE_OFFSET = 100;
+  private static final int UID_OFFSET = 108;
+  private static final int GID_OFFSET = 116;
+  private static final int ID_LENGTH = 8;
+  private static final int SIZE_OFFSET = 124;
+  private static final int SIZE_LENGTH = 12;
+  private static final int MTIME_OFFSET = 136;
+  private static final int CHECKSUM_OFFSET = 148;
+  private static final int CHECKSUM_LENGTH = 8;
+  private static final int TYPE_OFFSET = 156;
+  private static final int MAGIC_OFFSET = 257;
+  private static final String POSIX_MAGIC = "ustar\u000000";
+  private static final int FILE_MODE = 0644;
+  private static final int MILLIS = 1000;
+
+  private final OutputStream out;
+
+  public TarGzWriter(File archive) throws IOException {
+    this.out = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(archive)));
+  }
+
+  /**
+   * Appends a file to the archive.
+   *
+   * @param name name of the entry, at most 100 bytes
+   * @param file file to append
+   * @throws IOException if the file cannot be read or the archive cannot be written
+   */
+  public void add(String name, File file) throws IOException {
+    byte[] nameBytes = name.getBytes(CHARSET);
+    if (nameBytes.length > NAME_LENGTH) {
+      throw new IOException("Too long entry name: " + name);
+    }
+    long size = file.length();
+    byte[] header = new byte[BLOCK_SIZE];
+    System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+    putOctal(header, MODE_OFFSET, ID_LENGTH, FILE_MODE);
+    putOctal(header, UID_OFFSET, ID_LENGTH, 0);
+    putOctal(header, GID_OFFSET, ID_LENGTH, 0);
+    putOctal(header, SIZE_OFFSET, SIZE_LENGTH, size);
+    putOctal(header, MTIME_OFFSET, SIZE_LENGTH, file.lastModified() / MILLIS);
+    header[TYPE_OFFSET] = '0';
+    byte[] magic = POSIX_MAGIC.getBytes(CHARSET);
+    System.arraycopy(magic, 0, header, MAGIC_OFFSET, magic.length);
+    for (int i = CHECKSUM_OFFSET; i < CHECKSUM_OFFSET + CHECKSUM_LENGTH; i++) {
+      header[i] = ' ';
+    }
+    long checksum = 0;
+    for (byte b : header) {
+      checksum += b & 0xff;
+    }
+    putOctal(header, CHECKSUM_OFFSET, CHECKSUM_LENGTH - 1, checksum);
+    out.write(header);
+    copy(file, size);
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      out.write(new byte[BLOCK_SIZE * 2]);
+    } finally {
+      out.close();
+    }
+  }
+
+  private void copy(File file, long size) throws IOException {
+    InputStream in = new FileInputStream(file);
+    try {
+      byte[] buffer = new byte[BLOCK_SIZE * 16];
+      long remaining = size;
+      int read;
+      while (remaining > 0 && (read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+        out.write(buffer, 0, read);
+        remaining -= read;
+      }
+      if (remaining > 0) {
+        throw new IOException(file + " has been truncated while archiving");
+      }
+    } finally {
+      in.close();
+    }
+    int padding = (int) (size % BLOCK_SIZE);
+    if (padding > 0) {
+      out.write(new byte[BLOCK_SIZE - padding]);
+    }
+  }
+
+  /**
+   * Writes the value as zero padded octal number terminated by a NUL.
+   */
+  private static void putOctal(byte[] header, int offset, int length, long value) {
+    String octal = Long.toOctalString(value);
+    while (octal.length() < length - 1) {
+      octal = "0" + octal;
+    }
+    byte[] bytes = octal.getBytes(CHARSET);
+    System.arraycopy(bytes, 0, header, offset, bytes.length);
+    header[offset + bytes.length] = 0;
+  }
+}
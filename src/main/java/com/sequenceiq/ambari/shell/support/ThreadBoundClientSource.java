@@ -0,0 +1,61 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import org.springframework.aop.TargetSource;
+
+import com.sequenceiq.ambari.client.AmbariClient;
+
+/**
+ * Gives every thread its own AmbariClient, because the underlying HTTP client uses a single connection.
+ * Unlike Spring's ThreadLocalTargetSource it does not keep a reference to the clients it created, so the
+ * client of a pool thread is released with the thread and the short lived pools do not leak clients.
+ */
+public class ThreadBoundClientSource implements TargetSource {
+
+  private final ThreadLocal<AmbariClient> clients;
+
+  public ThreadBoundClientSource(final String host, final String port, final String user, final String password) {
+    this.clients = new ThreadLocal<AmbariClient>() {
+      @Override
+      protected AmbariClient initialValue() {
+        return new AmbariClient(host, port, user, password);
+      }
+    };
+  }
+
+  @Override
+  public Class<?> getTargetClass() {
+    return AmbariClient.class;
+  }
+
+  @Override
+  public boolean isStatic() {
+    return false;
+  }
+
+  @Override
+  public Object getTarget() {
+    return clients.get();
+  }
+
+  @Override
+  public void releaseTarget(Object target) {
+    // the client stays bound to the thread
+  }
+}
@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.blueprint;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.sequenceiq.ambari.client.AmbariClient;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BlueprintIndexTest {
+
+  @Mock
+  private AmbariClient client;
+
+  private File file;
+  private BlueprintIndex index;
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("blueprint", ".properties");
+    file.delete();
+    index = new BlueprintIndex(client, file);
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Test
+  public void testCheckForNewBlueprint() {
+    when(client.getBlueprintsMap()).thenReturn(Collections.<String, String>emptyMap());
+
+    BlueprintIndex.Status result = index.check("bp", "hash");
+
+    assertEquals(BlueprintIndex.Status.NEW, result);
+  }
+
+  @Test
+  public void testCheckForAddedBlueprint() {
+    when(client.getBlueprintsMap()).thenReturn(singletonMap("bp", "HDP"));
+    index.put("bp", "hash");
+
+    assertEquals(BlueprintIndex.Status.UNCHANGED, index.check("bp", "hash"));
+    assertEquals(BlueprintIndex.Status.CHANGED, index.check("bp", "other"));
+    verify(client, times(1)).getBlueprintsMap();
+  }
+
+  @Test
+  public void testCheckForBlueprintAddedElsewhere() {
+    when(client.getBlueprintsMap()).thenReturn(singletonMap("bp", "HDP"));
+
+    BlueprintIndex.Status result = index.check("bp", "hash");
+
+    assertEquals(BlueprintIndex.Status.EXISTS, result);
+  }
+
+  @Test
+  public void testCheckReadsTheStoredHashes() {
+    index.put("bp", "hash");
+    when(client.getBlueprintsMap()).thenReturn(singletonMap("bp", "HDP"));
+
+    BlueprintIndex.Status result = new BlueprintIndex(client, file).check("bp", "hash");
+
+    assertEquals(BlueprintIndex.Status.UNCHANGED, result);
+  }
+
+  @Test
+  public void testCheckForgetsDeletedBlueprints() throws IOException {
+    index.put("bp", "hash");
+    when(client.getBlueprintsMap()).thenReturn(Collections.<String, String>emptyMap());
+
+    BlueprintIndex.Status result = new BlueprintIndex(client, file).check("bp", "hash");
+
+    assertEquals(BlueprintIndex.Status.NEW, result);
+    assertFalse(FileUtils.readFileToString(file).contains("bp="));
+  }
+
+  @Test
+  public void testCheckReadsTheNamesAgainAfterRefreshInterval() {
+    when(client.getBlueprintsMap()).thenReturn(Collections.<String, String>emptyMap(), singletonMap("bp", "HDP"));
+    index = new BlueprintIndex(client, file, 0);
+
+    assertEquals(BlueprintIndex.Status.NEW, index.check("bp", "hash"));
+    assertEquals(BlueprintIndex.Status.EXISTS, index.check("bp", "hash"));
+  }
+}
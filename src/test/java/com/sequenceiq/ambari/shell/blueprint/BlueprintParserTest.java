@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.blueprint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+public class BlueprintParserTest {
+
+  private static final String BLUEPRINTS = "\"Blueprints\":{\"blueprint_name\":\"bp\",\"stack_name\":\"HDP\",\"stack_version\":\"2.0\"}";
+
+  private BlueprintParser parser = new BlueprintParser(new ObjectMapper());
+
+  @Test
+  public void testParse() throws Exception {
+    String json = FileUtils.readFileToString(new File("src/test/resources/testBlueprint.json"));
+
+    BlueprintDescriptor result = parser.parse(json);
+
+    assertEquals("single-node-hdfs-yarn", result.getName());
+    assertEquals("HDP", result.getStackName());
+    assertEquals("2.0", result.getStackVersion());
+    assertEquals(1, result.getHostGroups().size());
+    assertEquals(11, result.getHostGroups().get("host_group_1").size());
+    assertEquals("NAMENODE", result.getHostGroups().get("host_group_1").get(0));
+    assertEquals("1", result.getCardinality("host_group_1"));
+    assertEquals(64, result.getHash().length());
+  }
+
+  @Test
+  public void testHashIgnoresFormattingAndFieldOrder() throws Exception {
+    String hash = parser.parse("{" + BLUEPRINTS + ",\"host_groups\":[{\"name\":\"a\",\"components\":[{\"name\":\"X\"},{\"name\":\"Y\"}]}]}").getHash();
+
+    assertEquals(hash, parser.parse("{ \"host_groups\" : [ { \"components\" : [ { \"name\" : \"X\" }, { \"name\" : \"Y\" } ],\n"
+      + "\"name\" : \"a\" } ],\n" + BLUEPRINTS + " }").getHash());
+    assertFalse(hash.equals(parser.parse(
+      "{" + BLUEPRINTS + ",\"host_groups\":[{\"name\":\"a\",\"components\":[{\"name\":\"Y\"},{\"name\":\"X\"}]}]}").getHash()));
+  }
+
+  @Test
+  public void testParseForMissingParts() throws IOException {
+    try {
+      parser.parse("{\"Blueprints\":{\"stack_name\":\"HDP\"},\"host_groups\":[]}");
+      fail();
+    } catch (InvalidBlueprintException e) {
+      assertEquals(Arrays.asList("Blueprints/blueprint_name is missing", "Blueprints/stack_version is missing",
+        "The host_groups list is missing or empty"), e.getProblems());
+    }
+  }
+
+  @Test
+  public void testParseForInvalidHostGroups() throws IOException {
+    try {
+      parser.parse("{" + BLUEPRINTS + ",\"host_groups\":["
+        + "{\"name\":\"a\",\"components\":[{\"name\":\"X\"},{\"name\":\"X\"}],\"cardinality\":\"many\"},"
+        + "{\"name\":\"a\",\"components\":[{\"name\":\"Y\"}]},"
+        + "{\"name\":\"b\",\"components\":[]},"
+        + "{\"components\":[{\"name\":\"Z\"}]}]}");
+      fail();
+    } catch (InvalidBlueprintException e) {
+      assertEquals(Arrays.asList("Host group a lists a component more than once", "Host group a has invalid cardinality: many",
+        "Host group a is defined more than once", "Host group b has no components", "The name of host_groups[3] is missing"),
+        e.getProblems());
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testParseForMalformedJson() throws Exception {
+    parser.parse("{" + BLUEPRINTS + ",\"host_groups\":[");
+  }
+}
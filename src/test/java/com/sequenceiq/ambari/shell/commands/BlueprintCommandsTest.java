@@ -17,9 +17,14 @@
  */
 package com.sequenceiq.ambari.shell.commands;
 
+import static com.sequenceiq.ambari.shell.support.TableRenderer.renderMapValueMap;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -27,10 +32,13 @@ import static org.mockito.Mockito.when;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
-import org.codehaus.jackson.JsonNode;
-import org.codehaus.jackson.map.ObjectMapper;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -38,8 +46,15 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import com.sequenceiq.ambari.client.AmbariClient;
+import com.sequenceiq.ambari.shell.blueprint.BlueprintDescriptor;
+import com.sequenceiq.ambari.shell.blueprint.BlueprintIndex;
+import com.sequenceiq.ambari.shell.blueprint.BlueprintParser;
+import com.sequenceiq.ambari.shell.blueprint.InvalidBlueprintException;
+import com.sequenceiq.ambari.shell.converter.CompletionCache;
+import com.sequenceiq.ambari.shell.converter.CompletionResource;
 import com.sequenceiq.ambari.shell.model.AmbariContext;
 import com.sequenceiq.ambari.shell.model.Hints;
+import com.sequenceiq.ambari.shell.support.CachingUrlReader;
 
 import groovyx.net.http.HttpResponseException;
 
@@ -56,40 +71,136 @@ public class BlueprintCommandsTest {
   @Mock
   private AmbariContext context;
   @Mock
-  private ObjectMapper objectMapper;
+  private BlueprintParser blueprintParser;
+  @Mock
+  private CompletionCache completionCache;
+  @Mock
+  private BlueprintIndex blueprintIndex;
+  @Mock
+  private CachingUrlReader urlReader;
 
   @Test
-  public void testAddBlueprintForFileReadPrecedence() throws IOException {
+  public void testAddBlueprintForFileReadPrecedence() throws Exception {
     File file = new File("src/test/resources/testBlueprint.json");
     String json = IOUtils.toString(new FileInputStream(file));
-    JsonNode jsonNode = mock(JsonNode.class);
-    when(objectMapper.readTree(json.getBytes())).thenReturn(jsonNode);
-    when(jsonNode.get("Blueprints")).thenReturn(jsonNode);
-    when(jsonNode.get("blueprint_name")).thenReturn(jsonNode);
-    when(jsonNode.asText()).thenReturn("blueprintName");
+    mockBlueprintName(json, "blueprintName");
 
-    String result = blueprintCommands.addBlueprint("url", file);
+    String result = blueprintCommands.addBlueprint("url", file, null, null);
 
     verify(ambariClient).addBlueprint(json);
+    verify(blueprintIndex).put("blueprintName", "hash");
+    verify(completionCache).invalidate(CompletionResource.BLUEPRINT);
     verify(context).setHint(Hints.BUILD_CLUSTER);
     verify(context).setBlueprintsAvailable(true);
     assertEquals("Blueprint: 'blueprintName' has been added", result);
   }
 
   @Test
-  public void testAddBlueprintForException() throws IOException {
+  public void testAddBlueprintForUrl() throws Exception {
+    mockBlueprintName("json", "blueprintName");
+    when(urlReader.read("http://localhost/blueprint.json")).thenReturn("json");
+
+    String result = blueprintCommands.addBlueprint("http://localhost/blueprint.json", null, null, null);
+
+    verify(ambariClient).addBlueprint("json");
+    assertEquals("Blueprint: 'blueprintName' has been added", result);
+  }
+
+  @Test
+  public void testAddBlueprintForFailedDownload() throws Exception {
+    when(urlReader.read("http://localhost/blueprint.json")).thenThrow(new IOException("Read timed out"));
+
+    String result = blueprintCommands.addBlueprint("http://localhost/blueprint.json", null, null, null);
+
+    verify(ambariClient, never()).addBlueprint(anyString());
+    assertEquals("Cannot add blueprint: Read timed out", result);
+  }
+
+  @Test
+  public void testAddBlueprintForUnchangedBlueprint() throws Exception {
+    File file = new File("src/test/resources/testBlueprint.json");
+    String json = IOUtils.toString(new FileInputStream(file));
+    mockBlueprintName(json, "blueprintName");
+    when(blueprintIndex.check(eq("blueprintName"), anyString())).thenReturn(BlueprintIndex.Status.UNCHANGED);
+
+    String result = blueprintCommands.addBlueprint(null, file, null, null);
+
+    verify(ambariClient, never()).addBlueprint(json);
+    assertEquals("Blueprint: 'blueprintName' is unchanged, skipped", result);
+  }
+
+  @Test
+  public void testAddBlueprintForChangedBlueprint() throws Exception {
+    File file = new File("src/test/resources/testBlueprint.json");
+    String json = IOUtils.toString(new FileInputStream(file));
+    mockBlueprintName(json, "blueprintName");
+    when(blueprintIndex.check(eq("blueprintName"), anyString())).thenReturn(BlueprintIndex.Status.CHANGED);
+
+    String result = blueprintCommands.addBlueprint(null, file, null, null);
+
+    verify(ambariClient, never()).addBlueprint(json);
+    assertEquals("Blueprint: 'blueprintName' differs from the one on the server, not added", result);
+  }
+
+  @Test
+  public void testAddBlueprintForException() throws Exception {
     File file = new File("src/test/resources/testBlueprint.json");
     String json = IOUtils.toString(new FileInputStream(file));
+    mockBlueprintName(json, "blueprintName");
     doThrow(responseException).when(ambariClient).addBlueprint(json);
     when(responseException.getMessage()).thenReturn("error");
 
-    String result = blueprintCommands.addBlueprint("url", file);
+    String result = blueprintCommands.addBlueprint("url", file, null, null);
 
     verify(ambariClient).addBlueprint(json);
     verify(responseException).getMessage();
     assertEquals("Cannot add blueprint: error", result);
   }
 
+  @Test
+  public void testAddBlueprintForInvalidBlueprint() throws Exception {
+    File file = new File("src/test/resources/testBlueprint.json");
+    String json = IOUtils.toString(new FileInputStream(file));
+    when(blueprintParser.parse(json)).thenThrow(
+      new InvalidBlueprintException(singletonList("The host_groups list is missing or empty")));
+
+    String result = blueprintCommands.addBlueprint(null, file, null, null);
+
+    verify(ambariClient, never()).addBlueprint(json);
+    assertEquals("Cannot add blueprint: The host_groups list is missing or empty", result);
+  }
+
+  @Test
+  public void testAddBlueprintsFromDirectory() throws Exception {
+    File dir = createTempDir();
+    File first = new File(dir, "first.json");
+    File second = new File(dir, "second.json");
+    FileUtils.writeStringToFile(first, "first blueprint");
+    FileUtils.writeStringToFile(second, "second blueprint");
+    FileUtils.writeStringToFile(new File(dir, "README"), "not a blueprint");
+    mockBlueprintName("first blueprint", "first");
+    mockBlueprintName("second blueprint", "second");
+    doThrow(responseException).when(ambariClient).addBlueprint("second blueprint");
+    when(responseException.getMessage()).thenReturn("error");
+
+    String result = blueprintCommands.addBlueprint(null, null, dir, null);
+
+    Map<String, Map<String, String>> rows = new LinkedHashMap<String, Map<String, String>>();
+    rows.put(first.getPath(), singletonMap("first", "Added"));
+    rows.put(second.getPath(), singletonMap("second", "Failed: error"));
+    assertEquals("Added 1 of 2 blueprints\n" + renderMapValueMap(rows, "FILE", "BLUEPRINT", "RESULT"), result);
+    verify(ambariClient).addBlueprint("first blueprint");
+    verify(completionCache).invalidate(CompletionResource.BLUEPRINT);
+    verify(context).setBlueprintsAvailable(true);
+  }
+
+  @Test
+  public void testAddBlueprintsFromEmptyDirectory() throws IOException {
+    String result = blueprintCommands.addBlueprint(null, null, createTempDir(), null);
+
+    assertEquals("No blueprint found", result);
+  }
+
   @Test
   public void testAddBlueprintForDefaults() throws HttpResponseException {
     String result = blueprintCommands.addBlueprint();
@@ -100,7 +211,7 @@ public class BlueprintCommandsTest {
 
   @Test
   public void testAddBlueprintForUnspecifiedValue() throws HttpResponseException {
-    String response = blueprintCommands.addBlueprint(null, null);
+    String response = blueprintCommands.addBlueprint(null, null, null, null);
 
     assertEquals("No blueprint specified", response);
     verify(ambariClient, times(0)).addBlueprint(null);
@@ -126,4 +237,19 @@ public class BlueprintCommandsTest {
 
     assertEquals("Failed to add the default blueprints: Connection refused", result);
   }
+
+  private void mockBlueprintName(String json, String name) throws Exception {
+    BlueprintDescriptor blueprint = new BlueprintDescriptor(name, "HDP", "2.0",
+      Collections.<String, List<String>>emptyMap(), Collections.<String, String>emptyMap(), "hash");
+    when(blueprintParser.parse(json)).thenReturn(blueprint);
+    when(blueprintIndex.check(name, "hash")).thenReturn(BlueprintIndex.Status.NEW);
+  }
+
+  private File createTempDir() throws IOException {
+    File dir = File.createTempFile("blueprints", "");
+    dir.delete();
+    dir.mkdir();
+    dir.deleteOnExit();
+    return dir;
+  }
 }
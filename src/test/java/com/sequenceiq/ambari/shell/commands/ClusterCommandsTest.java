@@ -20,20 +20,24 @@ package com.sequenceiq.ambari.shell.commands;
 import static com.sequenceiq.ambari.shell.support.TableRenderer.renderMultiValueMap;
 import static com.sequenceiq.ambari.shell.support.TableRenderer.renderSingleMap;
 import static java.util.Arrays.asList;
-import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonMap;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -45,9 +49,12 @@ import com.sequenceiq.ambari.client.AmbariClient;
 import com.sequenceiq.ambari.client.InvalidHostGroupHostAssociation;
 import com.sequenceiq.ambari.shell.completion.Blueprint;
 import com.sequenceiq.ambari.shell.completion.Host;
+import com.sequenceiq.ambari.shell.converter.CompletionCache;
 import com.sequenceiq.ambari.shell.flash.FlashService;
 import com.sequenceiq.ambari.shell.model.AmbariContext;
 import com.sequenceiq.ambari.shell.model.Hints;
+import com.sequenceiq.ambari.shell.model.HostAssignments;
+import com.sequenceiq.ambari.shell.placement.PlacementEngine;
 
 import groovyx.net.http.HttpResponseException;
 
@@ -65,6 +72,10 @@ public class ClusterCommandsTest {
   private HttpResponseException responseException;
   @Mock
   private FlashService flashService;
+  @Mock
+  private CompletionCache completionCache;
+  @Mock
+  private PlacementEngine placementEngine;
 
   @Test
   public void testIsClusterBuildCommandAvailable() {
@@ -130,10 +141,10 @@ public class ClusterCommandsTest {
   @Test
   public void testAssignForInvalidHostGroup() {
     Map<String, List<String>> map = singletonMap("group1", asList("host", "host2"));
-    ReflectionTestUtils.setField(clusterCommands, "hostGroups", map);
+    ReflectionTestUtils.setField(clusterCommands, "assignments", HostAssignments.of(map));
     when(client.getHostNames()).thenReturn(singletonMap("host3", "HEALTHY"));
 
-    String result = clusterCommands.assign(new Host("host3"), "group0");
+    String result = clusterCommands.assign(new Host("host3"), null, null, null, "group0");
 
     assertEquals("group0 is not a valid host group", result);
   }
@@ -142,10 +153,10 @@ public class ClusterCommandsTest {
   public void testAssignForValidHostGroup() {
     Map<String, List<String>> map = new HashMap<String, List<String>>();
     map.put("group1", new ArrayList<String>());
-    ReflectionTestUtils.setField(clusterCommands, "hostGroups", map);
+    ReflectionTestUtils.setField(clusterCommands, "assignments", HostAssignments.of(map));
     when(client.getHostNames()).thenReturn(singletonMap("host3", "HEALTHY"));
 
-    String result = clusterCommands.assign(new Host("host3"), "group1");
+    String result = clusterCommands.assign(new Host("host3"), null, null, null, "group1");
 
     assertEquals("host3 has been added to group1", result);
   }
@@ -154,19 +165,86 @@ public class ClusterCommandsTest {
   public void testAssignForInvalidHost() {
     Map<String, List<String>> map = new HashMap<String, List<String>>();
     map.put("group1", new ArrayList<String>());
-    ReflectionTestUtils.setField(clusterCommands, "hostGroups", map);
+    ReflectionTestUtils.setField(clusterCommands, "assignments", HostAssignments.of(map));
     when(client.getHostNames()).thenReturn(singletonMap("host2", "HEALTHY"));
 
-    String result = clusterCommands.assign(new Host("host3"), "group1");
+    String result = clusterCommands.assign(new Host("host3"), null, null, null, "group1");
 
     assertEquals("host3 is not a valid hostname", result);
   }
 
+  @Test
+  public void testAssignForHostOfAnotherGroup() {
+    Map<String, List<String>> map = new HashMap<String, List<String>>();
+    map.put("group1", asList("host3"));
+    map.put("group2", new ArrayList<String>());
+    ReflectionTestUtils.setField(clusterCommands, "assignments", HostAssignments.of(map));
+    when(client.getHostNames()).thenReturn(singletonMap("host3", "HEALTHY"));
+
+    String result = clusterCommands.assign(new Host("host3"), null, null, null, "group2");
+
+    assertEquals("host3 is already assigned to group1", result);
+    assertEquals(Collections.<String>emptyList(), getAssignments().get("group2"));
+  }
+
+  @Test
+  public void testAssignHostList() {
+    Map<String, List<String>> map = new HashMap<String, List<String>>();
+    map.put("group1", new ArrayList<String>());
+    ReflectionTestUtils.setField(clusterCommands, "assignments", HostAssignments.of(map));
+    when(client.getHostNames()).thenReturn(knownHosts("node2", "node1", "other"));
+
+    String result = clusterCommands.assign(null, "node*, missing", null, null, "group1");
+
+    assertEquals(String.format("Accepted 2 host(s), rejected 1\n%s\n%s",
+      renderMultiValueMap(singletonMap("group1", asList("node1", "node2")), "HOSTGROUP", "HOST"),
+      renderSingleMap(singletonMap("missing", "unknown host"), "REJECTED", "REASON")), result);
+    assertEquals(asList("node1", "node2"), getAssignments().get("group1"));
+    verify(client, times(1)).getHostNames();
+  }
+
+  @Test
+  public void testAssignHostRegex() {
+    Map<String, List<String>> map = new HashMap<String, List<String>>();
+    map.put("group1", new ArrayList<String>());
+    ReflectionTestUtils.setField(clusterCommands, "assignments", HostAssignments.of(map));
+    when(client.getHostNames()).thenReturn(knownHosts("node1", "node10", "other"));
+
+    String result = clusterCommands.assign(null, null, "node\\d", null, "group1");
+
+    assertEquals(String.format("Accepted 1 host(s), rejected 0\n%s",
+      renderMultiValueMap(singletonMap("group1", asList("node1")), "HOSTGROUP", "HOST")), result);
+  }
+
+  @Test
+  public void testAssignCsvFile() throws IOException {
+    Map<String, List<String>> map = new HashMap<String, List<String>>();
+    map.put("group1", new ArrayList<String>());
+    ReflectionTestUtils.setField(clusterCommands, "assignments", HostAssignments.of(map));
+    when(client.getHostNames()).thenReturn(knownHosts("node1", "node2"));
+    File file = File.createTempFile("assignments", ".csv");
+    file.deleteOnExit();
+    FileUtils.writeStringToFile(file, "host,hostGroup\nnode1,group1\nnode2,group2\n");
+
+    String result = clusterCommands.assign(null, null, null, file, null);
+
+    assertEquals(String.format("Accepted 1 host(s), rejected 1\n%s\n%s",
+      renderMultiValueMap(singletonMap("group1", asList("node1")), "HOSTGROUP", "HOST"),
+      renderSingleMap(singletonMap("node2", "unknown host group group2"), "REJECTED", "REASON")), result);
+  }
+
+  @Test
+  public void testAssignWithoutHosts() {
+    String result = clusterCommands.assign(null, null, null, null, "group1");
+
+    assertEquals("One of --host, --hosts, --regex or --file is required", result);
+  }
+
   @Test
   public void testCreateClusterForException() throws HttpResponseException {
     String blueprint = "blueprint";
     Map<String, List<String>> map = singletonMap("group1", asList("host", "host2"));
-    ReflectionTestUtils.setField(clusterCommands, "hostGroups", map);
+    ReflectionTestUtils.setField(clusterCommands, "assignments", HostAssignments.of(map));
     when(context.getFocusValue()).thenReturn(blueprint);
     doThrow(responseException).when(client).createCluster(blueprint, blueprint, map);
     doThrow(responseException).when(client).deleteCluster(blueprint);
@@ -183,7 +261,7 @@ public class ClusterCommandsTest {
   public void testCreateCluster() throws HttpResponseException {
     String blueprint = "blueprint";
     Map<String, List<String>> map = singletonMap("group1", asList("host", "host2"));
-    ReflectionTestUtils.setField(clusterCommands, "hostGroups", map);
+    ReflectionTestUtils.setField(clusterCommands, "assignments", HostAssignments.of(map));
     when(context.getFocusValue()).thenReturn(blueprint);
     when(client.getClusterName()).thenReturn("cluster");
 
@@ -224,7 +302,7 @@ public class ClusterCommandsTest {
   @Test
   public void testIsClusterPreviewCommandAvailable() {
     when(context.isFocusOnClusterBuild()).thenReturn(true);
-    ReflectionTestUtils.setField(clusterCommands, "hostGroups", singletonMap("group1", asList("host1")));
+    ReflectionTestUtils.setField(clusterCommands, "assignments", HostAssignments.of(singletonMap("group1", asList("host1"))));
 
     boolean result = clusterCommands.isClusterPreviewCommandAvailable();
 
@@ -234,7 +312,7 @@ public class ClusterCommandsTest {
   @Test
   public void testIsClusterPreviewCommandAvailableForNoAssignments() {
     when(context.isFocusOnClusterBuild()).thenReturn(true);
-    ReflectionTestUtils.setField(clusterCommands, "hostGroups", singletonMap("group1", emptyList()));
+    ReflectionTestUtils.setField(clusterCommands, "assignments", HostAssignments.of(singletonMap("group1", Collections.<String>emptyList())));
 
     boolean result = clusterCommands.isClusterPreviewCommandAvailable();
 
@@ -244,7 +322,7 @@ public class ClusterCommandsTest {
   @Test
   public void testIsClusterResetCommandAvailable() {
     when(context.isFocusOnClusterBuild()).thenReturn(true);
-    ReflectionTestUtils.setField(clusterCommands, "hostGroups", singletonMap("group1", asList("host1")));
+    ReflectionTestUtils.setField(clusterCommands, "assignments", HostAssignments.of(singletonMap("group1", asList("host1"))));
 
     boolean result = clusterCommands.isClusterResetCommandAvailable();
 
@@ -254,13 +332,13 @@ public class ClusterCommandsTest {
   @Test
   public void testAutoAssignForEmptyResult() throws InvalidHostGroupHostAssociation {
     Map<String, List<String>> hostGroups = singletonMap("group1", asList("host1"));
-    ReflectionTestUtils.setField(clusterCommands, "hostGroups", hostGroups);
+    ReflectionTestUtils.setField(clusterCommands, "assignments", HostAssignments.of(hostGroups));
     when(context.getFocusValue()).thenReturn("blueprint");
     when(client.recommendAssignments("blueprint")).thenReturn(new HashMap<String, List<String>>());
 
-    clusterCommands.autoAssign();
+    clusterCommands.autoAssign("ambari");
 
-    Map<String, List<String>> result = (Map<String, List<String>>) ReflectionTestUtils.getField(clusterCommands, "hostGroups");
+    Map<String, List<String>> result = getAssignments();
     assertEquals(hostGroups, result);
   }
 
@@ -268,14 +346,48 @@ public class ClusterCommandsTest {
   public void testAutoAssign() throws InvalidHostGroupHostAssociation {
     Map<String, List<String>> hostGroups = singletonMap("group1", asList("host1"));
     Map<String, List<String>> newAssignments = singletonMap("group1", asList("host1"));
-    ReflectionTestUtils.setField(clusterCommands, "hostGroups", hostGroups);
+    ReflectionTestUtils.setField(clusterCommands, "assignments", HostAssignments.of(hostGroups));
     when(context.getFocusValue()).thenReturn("blueprint");
     when(client.recommendAssignments("blueprint")).thenReturn(newAssignments);
 
-    clusterCommands.autoAssign();
+    clusterCommands.autoAssign("ambari");
 
-    Map<String, List<String>> result = (Map<String, List<String>>) ReflectionTestUtils.getField(clusterCommands, "hostGroups");
+    Map<String, List<String>> result = getAssignments();
     assertEquals(newAssignments, result);
     verify(context).setHint(Hints.CREATE_CLUSTER);
   }
+
+  @Test
+  public void testAutoAssignWithDefaultStrategy() throws Exception {
+    Map<String, List<String>> newAssignments = singletonMap("group1", asList("host1"));
+    when(context.getFocusValue()).thenReturn("blueprint");
+    when(placementEngine.place("blueprint", PlacementEngine.DEFAULT_STRATEGY)).thenReturn(newAssignments);
+
+    String result = clusterCommands.autoAssign(null);
+
+    assertEquals(renderMultiValueMap(newAssignments, "HOSTGROUP", "HOST"), result);
+    assertEquals(newAssignments, getAssignments());
+  }
+
+  @Test
+  public void testAutoAssignWithUnknownStrategy() throws Exception {
+    when(context.getFocusValue()).thenReturn("blueprint");
+    when(placementEngine.place("blueprint", "none")).thenThrow(new IllegalArgumentException("Unknown strategy: none"));
+
+    String result = clusterCommands.autoAssign("none");
+
+    assertEquals("Assigning hosts failed, cause: Unknown strategy: none", result);
+  }
+
+  private Map<String, String> knownHosts(String... hosts) {
+    Map<String, String> result = new HashMap<String, String>();
+    for (String host : hosts) {
+      result.put(host, "HEALTHY");
+    }
+    return result;
+  }
+
+  private Map<String, List<String>> getAssignments() {
+    return ((HostAssignments) ReflectionTestUtils.getField(clusterCommands, "assignments")).toMap();
+  }
 }
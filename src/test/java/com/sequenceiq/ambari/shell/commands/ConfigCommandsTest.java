@@ -17,16 +17,31 @@
  */
 package com.sequenceiq.ambari.shell.commands;
 
+import static com.sequenceiq.ambari.shell.support.TableRenderer.renderMapValueMap;
+import static com.sequenceiq.ambari.shell.support.TableRenderer.renderRows;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -35,7 +50,11 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import com.sequenceiq.ambari.client.AmbariClient;
 import com.sequenceiq.ambari.shell.completion.ConfigType;
+import com.sequenceiq.ambari.shell.converter.CompletionCache;
 import com.sequenceiq.ambari.shell.model.AmbariContext;
+import com.sequenceiq.ambari.shell.support.ConfigCache;
+import com.sequenceiq.ambari.shell.support.ConfigHistory;
+import com.sequenceiq.ambari.shell.support.ConfigSearch;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ConfigCommandsTest {
@@ -49,18 +68,22 @@ public class ConfigCommandsTest {
   private AmbariClient client;
   @Mock
   private AmbariContext context;
+  @Mock
+  private CompletionCache completionCache;
+  @Mock
+  private ConfigCache configCache;
+  @Mock
+  private ConfigSearch configSearch;
+  @Mock
+  private ConfigHistory configHistory;
 
   @Test
-  public void testShowConfig() {
-    ConfigType configType = mock(ConfigType.class);
-    Map<String, Map<String, String>> mockResult = mock(Map.class);
-    when(configType.getName()).thenReturn(CORE_SITE);
-    when(client.getServiceConfigMap(anyString())).thenReturn(mockResult);
-    when(mockResult.get(CORE_SITE)).thenReturn(new HashMap<String, String>());
+  public void testShowConfig() throws IOException {
+    ConfigType configType = mockCoreSite();
 
     configCommands.showConfig(configType);
 
-    verify(client).getServiceConfigMap(CORE_SITE);
+    verify(configCache).get("c1", CORE_SITE);
   }
 
   @Test
@@ -79,21 +102,186 @@ public class ConfigCommandsTest {
 
   @Test
   public void testModifyConfig() throws IOException {
-    ConfigType configType = mock(ConfigType.class);
-    Map<String, Map<String, String>> mockResult = mock(Map.class);
-    Map<String, String> config = new HashMap<String, String>();
-    config.put("fs.trash.interval", "350");
-    config.put("ipc.client.connection.maxidletime", "30000");
-    when(configType.getName()).thenReturn(CORE_SITE);
-    when(mockResult.get(CORE_SITE)).thenReturn(config);
-    when(client.getServiceConfigMap(CORE_SITE)).thenReturn(mockResult);
+    ConfigType configType = mockCoreSite();
 
-    configCommands.modifyConfig(configType, "fs.trash.interval", "510");
+    configCommands.modifyConfig(configType, "fs.trash.interval", "510", null, null, false);
 
     Map<String, String> config2 = new HashMap<String, String>();
     config2.put("fs.trash.interval", "510");
     config2.put("ipc.client.connection.maxidletime", "30000");
     verify(client).modifyConfiguration(CORE_SITE, config2);
+    verify(configCache).reload("c1", CORE_SITE, "modify");
+  }
+
+  @Test
+  public void testModifyConfigForManyKeys() throws IOException {
+    ConfigType configType = mockCoreSite();
+
+    String result = configCommands.modifyConfig(configType, null, null,
+      "fs.trash.interval=510,ipc.client.connection.maxidletime=30000,io.serializations=a\\,b", null, false);
+
+    Map<String, String> config2 = new HashMap<String, String>();
+    config2.put("fs.trash.interval", "510");
+    config2.put("ipc.client.connection.maxidletime", "30000");
+    config2.put("io.serializations", "a,b");
+    verify(client, times(1)).modifyConfiguration(CORE_SITE, config2);
+    Map<String, Map<String, String>> diff = new TreeMap<String, Map<String, String>>();
+    diff.put("fs.trash.interval", singletonMap("350", "510"));
+    diff.put("io.serializations", singletonMap("", "a,b"));
+    assertEquals("Restart is required!\n2 key(s) changed in core-site\n" + renderMapValueMap(diff, "KEY", "OLD", "NEW"), result);
+  }
+
+  @Test
+  public void testModifyConfigForUnchangedValues() throws IOException {
+    ConfigType configType = mockCoreSite();
+    File file = new File("src/test/resources/core-site.properties");
+
+    String result = configCommands.modifyConfig(configType, null, null, null, file, false);
+
+    verify(client, never()).modifyConfiguration(anyString(), anyMap());
+    assertEquals("No changes in core-site", result);
+  }
+
+  @Test
+  public void testModifyConfigForPreview() throws IOException {
+    ConfigType configType = mockCoreSite();
+
+    String result = configCommands.modifyConfig(configType, "fs.trash.interval", "510", null, null, true);
+
+    verify(client, never()).modifyConfiguration(anyString(), anyMap());
+    assertEquals("1 key(s) would change in core-site\n"
+      + renderMapValueMap(singletonMap("fs.trash.interval", singletonMap("350", "510")), "KEY", "OLD", "NEW"), result);
+  }
+
+  @Test
+  public void testModifyConfigForInvalidPair() throws IOException {
+    String result = configCommands.modifyConfig(mock(ConfigType.class), null, null, "fs.trash.interval", null, false);
+
+    assertEquals("Not a key=value pair: fs.trash.interval", result);
+  }
+
+  @Test
+  public void testDownloadAllConfigs() throws IOException {
+    Map<String, String> tags = new TreeMap<String, String>();
+    tags.put(CORE_SITE, "v1");
+    tags.put("hdfs-site", "v2");
+    when(context.getCluster()).thenReturn("c1");
+    when(configCache.getDesiredTags("c1")).thenReturn(tags);
+    when(configCache.get("c1", CORE_SITE, "v1")).thenReturn(singletonMap("fs.trash.interval", "350"));
+    when(configCache.get("c1", "hdfs-site", "v2")).thenThrow(new IOException("error"));
+    File dir = File.createTempFile("configurations", "");
+    dir.delete();
+    dir.mkdir();
+
+    try {
+      String result = configCommands.downloadConfig(null, true, dir, null);
+
+      assertTrue(result.startsWith("Downloaded 1 of 2 configuration types"));
+      assertTrue(result.contains("TYPE") && result.contains("hdfs-site") && result.contains("error"));
+      assertTrue(FileUtils.readFileToString(new File(dir, "core-site.xml")).contains("fs.trash.interval"));
+    } finally {
+      FileUtils.deleteDirectory(dir);
+    }
+  }
+
+  @Test
+  public void testDownloadAllConfigsForMissingDir() throws IOException {
+    when(context.getCluster()).thenReturn("c1");
+    when(configCache.getDesiredTags("c1")).thenReturn(singletonMap(CORE_SITE, "v1"));
+    when(configCache.get("c1", CORE_SITE, "v1")).thenReturn(singletonMap("fs.trash.interval", "350"));
+    File parent = File.createTempFile("configurations", "");
+    parent.delete();
+    File dir = new File(parent, "c1");
+
+    try {
+      String result = configCommands.downloadConfig(null, true, dir, null);
+
+      assertTrue(result.startsWith("Downloaded 1 of 1 configuration types"));
+      assertTrue(new File(dir, "core-site.xml").isFile());
+    } finally {
+      FileUtils.deleteDirectory(parent);
+    }
+  }
+
+  @Test
+  public void testDownloadConfigForFileAsDir() throws IOException {
+    File file = File.createTempFile("configurations", "");
+
+    try {
+      String result = configCommands.downloadConfig(null, true, file, null);
+
+      assertEquals("Cannot create the directory: " + file.getAbsolutePath(), result);
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testDownloadConfigForMissingType() throws IOException {
+    String result = configCommands.downloadConfig(null, false, null, null);
+
+    assertEquals("Specify either --type or --all", result);
   }
 
+  @Test
+  public void testSearchConfig() throws IOException {
+    Map<String, Map<String, String>> result = singletonMap(CORE_SITE, singletonMap("fs.trash.interval", "350"));
+    when(context.getCluster()).thenReturn("c1");
+    when(configSearch.search(eq("c1"), any(Pattern.class), (Pattern) isNull())).thenReturn(result);
+
+    String response = configCommands.searchConfig("trash", null);
+
+    assertEquals(renderMapValueMap(result, "TYPE", "KEY", "VALUE"), response);
+  }
+
+  @Test
+  public void testSearchConfigForInvalidPattern() throws IOException {
+    String response = configCommands.searchConfig("[", null);
+
+    assertTrue(response.startsWith("Invalid regular expression"));
+  }
+
+  @Test
+  public void testDiffConfig() throws IOException {
+    ConfigType configType = mockCoreSite();
+    when(configHistory.diff("c1", CORE_SITE, "v1", "v2")).thenReturn(
+      Collections.singletonMap("fs.trash.interval", new String[]{"350", null}));
+
+    String result = configCommands.diffConfig(configType, "v1", "v2");
+
+    assertEquals(renderRows(Collections.singletonList(new String[]{"fs.trash.interval", "350", "<missing>"}),
+      "KEY", "v1", "v2"), result);
+  }
+
+  @Test
+  public void testDiffConfigForUnknownVersion() throws IOException {
+    ConfigType configType = mockCoreSite();
+    when(configHistory.diff("c1", CORE_SITE, "v0", "v2")).thenThrow(
+      new IllegalArgumentException("No version v0 of core-site is recorded"));
+
+    String result = configCommands.diffConfig(configType, "v0", "v2");
+
+    assertEquals("No version v0 of core-site is recorded", result);
+  }
+
+  @Test
+  public void testShowConfigHistoryForNoVersion() throws IOException {
+    ConfigType configType = mockCoreSite();
+    when(configHistory.getHistory("c1", CORE_SITE)).thenReturn(Collections.<ConfigHistory.Version>emptyList());
+
+    String result = configCommands.showConfigHistory(configType);
+
+    assertEquals("No version of core-site has been recorded", result);
+  }
+
+  private ConfigType mockCoreSite() throws IOException {
+    ConfigType configType = mock(ConfigType.class);
+    Map<String, String> config = new HashMap<String, String>();
+    config.put("fs.trash.interval", "350");
+    config.put("ipc.client.connection.maxidletime", "30000");
+    when(configType.getName()).thenReturn(CORE_SITE);
+    when(context.getCluster()).thenReturn("c1");
+    when(configCache.get("c1", CORE_SITE)).thenReturn(config);
+    return configType;
+  }
 }
@@ -31,6 +31,7 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import com.sequenceiq.ambari.client.AmbariClient;
 import com.sequenceiq.ambari.shell.completion.Host;
+import com.sequenceiq.ambari.shell.flash.FlashService;
 import com.sequenceiq.ambari.shell.model.AmbariContext;
 import com.sequenceiq.ambari.shell.model.FocusType;
 
@@ -44,6 +45,8 @@ public class HostCommandsTest {
   private AmbariClient client;
   @Mock
   private AmbariContext context;
+  @Mock
+  private FlashService flashService;
 
   @Test
   public void testFocusHostForValidHost() {
@@ -64,4 +67,22 @@ public class HostCommandsTest {
     verify(context, times(0)).setFocus("host1", FocusType.HOST);
     assertEquals("host1 is not a valid host name", result);
   }
+
+  @Test
+  public void testHeartbeat() {
+    when(flashService.showHeartbeat(3)).thenReturn(true);
+
+    String result = hostCommands.heartbeat(3);
+
+    assertEquals("Watching the heartbeat of the hosts", result);
+  }
+
+  @Test
+  public void testHeartbeatAlreadyShown() {
+    when(flashService.showHeartbeat(0)).thenReturn(false);
+
+    String result = hostCommands.heartbeat(0);
+
+    assertEquals("The heartbeat of the hosts is already shown", result);
+  }
 }
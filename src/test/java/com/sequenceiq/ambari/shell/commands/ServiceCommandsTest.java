@@ -17,7 +17,19 @@
  */
 package com.sequenceiq.ambari.shell.commands;
 
+import static com.sequenceiq.ambari.shell.support.TableRenderer.renderSingleMap;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -27,7 +39,11 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import com.sequenceiq.ambari.client.AmbariClient;
 import com.sequenceiq.ambari.shell.completion.Service;
+import com.sequenceiq.ambari.shell.flash.FlashService;
 import com.sequenceiq.ambari.shell.model.AmbariContext;
+import com.sequenceiq.ambari.shell.support.RequestTracker;
+import com.sequenceiq.ambari.shell.support.RollingRestart;
+import com.sequenceiq.ambari.shell.support.ServiceOrchestrator;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ServiceCommandsTest {
@@ -39,33 +55,146 @@ public class ServiceCommandsTest {
   private AmbariClient client;
   @Mock
   private AmbariContext context;
+  @Mock
+  private RequestTracker requestTracker;
+  @Mock
+  private ServiceOrchestrator serviceOrchestrator;
+  @Mock
+  private RollingRestart rollingRestart;
+  @Mock
+  private FlashService flashService;
 
   @Test
   public void testStopAllServices() {
-    serviceCommands.stopServices(null);
+    serviceCommands.stopServices(null, false, 3600, false);
 
     verify(client).stopAllServices();
   }
 
   @Test
   public void testStopService() {
-    serviceCommands.stopServices(new Service("ZOOKEEPER"));
+    serviceCommands.stopServices(new Service("ZOOKEEPER"), false, 3600, false);
 
     verify(client).stopService("ZOOKEEPER");
   }
 
   @Test
   public void testStartAllServices() {
-    serviceCommands.startServices(null);
+    serviceCommands.startServices(null, false, 3600, false);
 
     verify(client).startAllServices();
   }
 
   @Test
   public void testStartService() {
-    serviceCommands.startServices(new Service("ZOOKEEPER"));
+    serviceCommands.startServices(new Service("ZOOKEEPER"), false, 3600, false);
 
     verify(client).startService("ZOOKEEPER");
   }
 
+  @Test
+  public void testStartServiceWithoutWaitShowsProgress() throws Exception {
+    when(context.getCluster()).thenReturn("c1");
+    when(client.startService("ZOOKEEPER")).thenReturn(5);
+
+    serviceCommands.startServices(new Service("ZOOKEEPER"), false, 3600, false);
+
+    verify(requestTracker, never()).await(anyString(), anyInt(), anyLong());
+    verify(flashService).showRequestProgress("c1", 5, "Starting ZOOKEEPER");
+  }
+
+  @Test
+  public void testStartServiceAndWait() throws Exception {
+    when(context.getCluster()).thenReturn("c1");
+    when(client.startService("ZOOKEEPER")).thenReturn(5);
+    when(client.getServicesMap()).thenReturn(Collections.singletonMap("ZOOKEEPER", "STARTED"));
+    when(requestTracker.await("c1", 5, 60000)).thenReturn(new RequestTracker.RequestState(5, "COMPLETED", 100));
+
+    String result = serviceCommands.startServices(new Service("ZOOKEEPER"), true, 60, false);
+
+    assertTrue(result.startsWith("Starting ZOOKEEPER\nRequest 5 completed\n\n"));
+  }
+
+  @Test
+  public void testStopAllServicesAndWaitForNothingToDo() throws Exception {
+    when(client.stopAllServices()).thenReturn(-1);
+
+    serviceCommands.stopServices(null, true, 3600, false);
+
+    verify(requestTracker, never()).await(anyString(), anyInt(), anyLong());
+  }
+
+  @Test
+  public void testStopAllServicesAndWaitForFailedRequest() throws Exception {
+    when(context.getCluster()).thenReturn("c1");
+    when(client.stopAllServices()).thenReturn(5);
+    when(requestTracker.await("c1", 5, 3600000)).thenReturn(new RequestTracker.RequestState(5, "FAILED", 100));
+
+    try {
+      serviceCommands.stopServices(null, true, 3600, false);
+    } catch (IllegalStateException e) {
+      assertEquals("Request 5 finished with FAILED", e.getMessage());
+      return;
+    }
+    throw new AssertionError("The failed request is not reported");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testStartAllServicesAndWaitForTimeout() throws Exception {
+    when(context.getCluster()).thenReturn("c1");
+    when(client.startAllServices()).thenReturn(5);
+    when(requestTracker.await("c1", 5, 1000)).thenReturn(new RequestTracker.RequestState(5, "IN_PROGRESS", 40));
+
+    serviceCommands.startServices(null, true, 1, false);
+  }
+
+  @Test
+  public void testStartServicesOrdered() throws Exception {
+    when(context.getCluster()).thenReturn("c1");
+    when(client.getServicesMap()).thenReturn(Collections.singletonMap("ZOOKEEPER", "INSTALLED"));
+    when(serviceOrchestrator.start("c1", Collections.singleton("ZOOKEEPER"), 3600000)).thenReturn(
+      Collections.singletonList(new ServiceOrchestrator.Outcome("ZOOKEEPER", true, "Started in 5 s")));
+
+    String result = serviceCommands.startServices(null, false, 3600, true);
+
+    assertEquals(renderSingleMap(Collections.singletonMap("ZOOKEEPER", "Started in 5 s"), "SERVICE", "RESULT"), result);
+    verify(client, never()).startAllServices();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testStopServicesOrderedForFailure() throws Exception {
+    when(context.getCluster()).thenReturn("c1");
+    when(client.getServicesMap()).thenReturn(Collections.singletonMap("ZOOKEEPER", "STARTED"));
+    when(serviceOrchestrator.stop("c1", Collections.singleton("ZOOKEEPER"), 3600000)).thenReturn(
+      Collections.singletonList(new ServiceOrchestrator.Outcome("ZOOKEEPER", false, "Request 3 finished with FAILED")));
+
+    serviceCommands.stopServices(null, false, 3600, true);
+  }
+
+  @Test
+  public void testRestartComponentRolling() throws Exception {
+    when(context.getCluster()).thenReturn("c1");
+    List<RollingRestart.Batch> batches = asList(new RollingRestart.Batch(1, asList("node1", "node2")));
+    when(rollingRestart.plan("c1", "DATANODE", 2)).thenReturn(batches);
+
+    try {
+      serviceCommands.restartComponent("DATANODE", true, 2, 1, 0, 3600);
+    } catch (IllegalStateException e) {
+      verify(flashService).showRestartProgress("DATANODE", batches);
+      verify(rollingRestart).restart("c1", "DATANODE", batches, 1, 0, 3600000);
+      assertTrue(e.getMessage().startsWith("Restarted DATANODE on 0 of 2 hosts\n"));
+      return;
+    }
+    throw new AssertionError("The skipped batch is not reported");
+  }
+
+  @Test
+  public void testRestartComponentWithoutRollingUsesLargestBatches() throws Exception {
+    when(context.getCluster()).thenReturn("c1");
+
+    String result = serviceCommands.restartComponent("DATANODE", false, 2, 1, 0, 3600);
+
+    verify(rollingRestart).plan("c1", "DATANODE", RollingRestart.MAX_BATCH_SIZE);
+    assertEquals("No host has DATANODE", result);
+  }
 }
@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.converter;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CandidateIndexTest {
+
+  private final CandidateIndex index = new CandidateIndex(asList("dn-08", "dn-071", "nn-01", "dn-07", "dn-070", "dn-06"));
+
+  @Test
+  public void testCompleteForPrefix() {
+    List<String> result = index.complete("dn-07", 10);
+
+    assertEquals(asList("dn-07", "dn-070", "dn-071"), result);
+  }
+
+  @Test
+  public void testCompleteForEmptyPrefix() {
+    List<String> result = index.complete(null, 10);
+
+    assertEquals(asList("dn-06", "dn-07", "dn-070", "dn-071", "dn-08", "nn-01"), result);
+  }
+
+  @Test
+  public void testCompleteForLimit() {
+    List<String> result = index.complete("dn", 2);
+
+    assertEquals(asList("dn-06", "dn-07"), result);
+  }
+
+  @Test
+  public void testCompleteForNoMatch() {
+    List<String> result = index.complete("zk", 10);
+
+    assertEquals(Collections.<String>emptyList(), result);
+  }
+
+  @Test
+  public void testCompleteForLargeIndex() {
+    List<String> hosts = new ArrayList<String>();
+    for (int i = 0; i < 10000; i++) {
+      hosts.add(String.format("dn-%05d", i));
+    }
+    CandidateIndex large = new CandidateIndex(hosts);
+
+    List<String> result = large.complete("dn-0070", 100);
+
+    assertEquals(10, result.size());
+    assertEquals("dn-00700", result.get(0));
+  }
+
+  @Test
+  public void testContains() {
+    assertTrue(index.contains("dn-070"));
+    assertFalse(index.contains("dn-0"));
+    assertFalse(index.contains(null));
+  }
+}
@@ -0,0 +1,177 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.converter;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompletionCacheTest {
+
+  private ExecutorService executor;
+  private CompletionCache cache;
+  private AtomicInteger calls;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newSingleThreadExecutor();
+    cache = new CompletionCache(executor);
+    calls = new AtomicInteger();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testGetLoadsOnlyOnceWithinTtl() {
+    cache.get(CompletionResource.HOST, loader("host1", "host2"));
+    CandidateIndex result = cache.get(CompletionResource.HOST, loader("host3"));
+
+    assertEquals(asList("host1", "host2"), result.values());
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void testGetServesExpiredValuesAndRefreshesInBackground() throws Exception {
+    cache.setTtl(CompletionResource.HOST, 0, TimeUnit.MILLISECONDS);
+    cache.get(CompletionResource.HOST, loader("host1"));
+
+    CandidateIndex result = cache.get(CompletionResource.HOST, loader("host2"));
+    executor.submit(noop()).get();
+
+    assertEquals(asList("host1"), result.values());
+    assertEquals(asList("host2"), cache.get(CompletionResource.HOST, loader("host3")).values());
+  }
+
+  @Test
+  public void testInvalidateForcesReload() {
+    cache.get(CompletionResource.BLUEPRINT, loader("bp1"));
+
+    cache.invalidate(CompletionResource.BLUEPRINT);
+    CandidateIndex result = cache.get(CompletionResource.BLUEPRINT, loader("bp1", "bp2"));
+
+    assertEquals(asList("bp1", "bp2"), result.values());
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  public void testInvalidateKeepsOtherResources() {
+    cache.get(CompletionResource.BLUEPRINT, loader("bp1"));
+    cache.get(CompletionResource.HOST, loader("host1"));
+
+    cache.invalidate(CompletionResource.BLUEPRINT);
+    CandidateIndex result = cache.get(CompletionResource.HOST, loader("host2"));
+
+    assertEquals(asList("host1"), result.values());
+  }
+
+  @Test
+  public void testGetForFailingLoader() {
+    List<String> result = cache.complete(CompletionResource.SERVICE, "", new Callable<Collection<String>>() {
+      @Override
+      public Collection<String> call() {
+        throw new IllegalStateException("connection refused");
+      }
+    });
+
+    assertTrue(result.isEmpty());
+  }
+
+  @Test
+  public void testGetForSlowLoaderReturnsWithinTimeout() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+    cache.setTimeout(10, TimeUnit.MILLISECONDS);
+
+    CandidateIndex result = cache.get(CompletionResource.HOST, new Callable<Collection<String>>() {
+      @Override
+      public Collection<String> call() throws Exception {
+        latch.await();
+        return asList("host1");
+      }
+    });
+    latch.countDown();
+    executor.submit(noop()).get();
+
+    assertNull(result);
+    assertEquals(asList("host1"), cache.get(CompletionResource.HOST, loader("host2")).values());
+  }
+
+  @Test
+  public void testGetForSlowLoaderAfterInvalidateReturnsLastKnown() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+    cache.setTimeout(10, TimeUnit.MILLISECONDS);
+    cache.get(CompletionResource.BLUEPRINT, loader("bp1"));
+    cache.invalidate(CompletionResource.BLUEPRINT);
+
+    CandidateIndex result = cache.get(CompletionResource.BLUEPRINT, new Callable<Collection<String>>() {
+      @Override
+      public Collection<String> call() throws Exception {
+        latch.await();
+        return asList("bp1", "bp2");
+      }
+    });
+    latch.countDown();
+    executor.submit(noop()).get();
+
+    assertEquals(asList("bp1"), result.values());
+    assertEquals(asList("bp1", "bp2"), cache.get(CompletionResource.BLUEPRINT, loader("bp3")).values());
+  }
+
+  @Test
+  public void testCompleteReturnsLimitedPrefixSlice() {
+    cache.setLimit(2);
+
+    List<String> result = cache.complete(CompletionResource.HOST, "dn-", loader("nn-01", "dn-03", "dn-01", "dn-02"));
+
+    assertEquals(asList("dn-01", "dn-02"), result);
+  }
+
+  private Callable<Collection<String>> loader(final String... values) {
+    return new Callable<Collection<String>>() {
+      @Override
+      public Collection<String> call() {
+        calls.incrementAndGet();
+        return asList(values);
+      }
+    };
+  }
+
+  private Runnable noop() {
+    return new Runnable() {
+      @Override
+      public void run() {
+      }
+    };
+  }
+}
@@ -0,0 +1,73 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.customization;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.springframework.shell.core.annotation.CliCommand;
+import org.springframework.shell.event.ParseResult;
+
+public class AmbariExecutionStrategyTest {
+
+  @Test
+  public void testIsExclusiveForAddCommand() throws Exception {
+    ParseResult parseResult = new ParseResult(Commands.class.getMethod("add"), new Commands(), new Object[0]);
+
+    boolean result = AmbariExecutionStrategy.isExclusive(parseResult);
+
+    assertFalse(result);
+  }
+
+  @Test
+  public void testIsExclusiveForFocusCommand() throws Exception {
+    ParseResult parseResult = new ParseResult(Commands.class.getMethod("focus"), new Commands(), new Object[0]);
+
+    boolean result = AmbariExecutionStrategy.isExclusive(parseResult);
+
+    assertTrue(result);
+  }
+
+  @Test
+  public void testIsExclusiveForConfigurationShow() throws Exception {
+    ParseResult parseResult = new ParseResult(Commands.class.getMethod("show"), new Commands(), new Object[0]);
+
+    boolean result = AmbariExecutionStrategy.isExclusive(parseResult);
+
+    assertTrue(result);
+  }
+
+  public static class Commands {
+
+    @CliCommand(value = "blueprint add")
+    public String add() {
+      return "added";
+    }
+
+    @CliCommand(value = "configuration show")
+    public String show() {
+      return "properties";
+    }
+
+    @CliCommand(value = "host focus")
+    public String focus() {
+      return "focused";
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.daemon;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DaemonProtocolTest {
+
+  private File shellHome;
+
+  @Before
+  public void setUp() throws IOException {
+    shellHome = File.createTempFile("ambari-shell", "");
+    shellHome.delete();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(shellHome);
+  }
+
+  @Test
+  public void testGetDaemonFileInShellHome() {
+    File result = DaemonProtocol.getDaemonFile(shellHome.getPath());
+
+    assertEquals(new File(shellHome, "daemon"), result);
+  }
+
+  @Test
+  public void testWriteDaemonFileForOwnerOnly() throws IOException {
+    File file = DaemonProtocol.getDaemonFile(shellHome.getPath());
+
+    DaemonProtocol.writeDaemonFile(file, 1234, "token");
+
+    assertEquals(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE),
+      Files.getPosixFilePermissions(file.toPath()));
+    assertEquals(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE),
+      Files.getPosixFilePermissions(shellHome.toPath()));
+    assertEquals("1234", DaemonProtocol.readDaemonFile(file)[0]);
+    assertEquals("token", DaemonProtocol.readDaemonFile(file)[1]);
+  }
+
+  @Test
+  public void testWriteDaemonFileReplacesStaleFile() throws IOException {
+    File file = DaemonProtocol.getDaemonFile(shellHome.getPath());
+    DaemonProtocol.writeDaemonFile(file, 1234, "old");
+
+    DaemonProtocol.writeDaemonFile(file, 5678, "new");
+
+    assertEquals("5678", DaemonProtocol.readDaemonFile(file)[0]);
+    assertEquals("new", DaemonProtocol.readDaemonFile(file)[1]);
+  }
+}
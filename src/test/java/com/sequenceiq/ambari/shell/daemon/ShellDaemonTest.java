@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.daemon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.shell.core.CommandResult;
+import org.springframework.shell.core.JLineShellComponent;
+
+public class ShellDaemonTest {
+
+  private File daemonFile;
+  private Thread daemonThread;
+  private List<String> executed;
+
+  @Before
+  public void setUp() throws Exception {
+    daemonFile = File.createTempFile("ambari-shell", "daemon");
+    daemonFile.delete();
+    executed = new ArrayList<String>();
+    final ShellDaemon daemon = new ShellDaemon(new JLineShellComponent() {
+      @Override
+      public CommandResult executeCommand(String line) {
+        executed.add(line);
+        return new CommandResult(!line.startsWith("fail"), "result of " + line, null);
+      }
+    }, 0, daemonFile);
+    daemonThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          daemon.serve();
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    });
+    daemonThread.start();
+    while (!daemonFile.exists() || daemonFile.length() == 0) {
+      Thread.sleep(10);
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (daemonThread.isAlive()) {
+      send(token(), "quit");
+    }
+    daemonThread.join();
+  }
+
+  @Test
+  public void testServeExecutesCommandsInOrder() throws IOException {
+    List<String> result = send(token(), "blueprint list", "// comment", "host list");
+
+    assertEquals(3, result.size());
+    assertEquals("result of blueprint list", result.get(0));
+    assertEquals("result of host list", result.get(1));
+    assertEquals(DaemonProtocol.SUCCESS, DaemonProtocol.getExitStatus(result.get(2)));
+  }
+
+  @Test
+  public void testServeStopsAtFirstFailure() throws IOException {
+    List<String> result = send(token(), "fail now", "host list");
+
+    assertEquals(DaemonProtocol.FAILURE, DaemonProtocol.getExitStatus(result.get(result.size() - 1)));
+    assertFalse(executed.contains("host list"));
+  }
+
+  @Test
+  public void testServeForInvalidToken() throws IOException {
+    List<String> result = send("invalid", "host list");
+
+    assertEquals(1, result.size());
+    assertEquals(DaemonProtocol.UNAUTHORIZED, DaemonProtocol.getExitStatus(result.get(0)));
+    assertEquals(0, executed.size());
+  }
+
+  @Test
+  public void testServeStopsOnQuit() throws Exception {
+    send(token(), "quit");
+    daemonThread.join();
+
+    assertFalse(daemonFile.exists());
+  }
+
+  private String token() throws IOException {
+    return DaemonProtocol.readDaemonFile(daemonFile)[1];
+  }
+
+  private List<String> send(String token, String... commands) throws IOException {
+    int port = Integer.parseInt(DaemonProtocol.readDaemonFile(daemonFile)[0]);
+    Socket socket = new Socket(InetAddress.getByName("127.0.0.1"), port);
+    try {
+      Writer writer = new OutputStreamWriter(socket.getOutputStream(), DaemonProtocol.CHARSET);
+      writer.write(token + "\n");
+      for (String command : commands) {
+        writer.write(command + "\n");
+      }
+      writer.flush();
+      socket.shutdownOutput();
+      BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), DaemonProtocol.CHARSET));
+      List<String> lines = new ArrayList<String>();
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+      return lines;
+    } finally {
+      socket.close();
+    }
+  }
+}
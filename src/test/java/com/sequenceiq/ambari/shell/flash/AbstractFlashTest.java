@@ -0,0 +1,104 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.flash;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+public class AbstractFlashTest {
+
+  private final List<String> written = new ArrayList<String>();
+  private final AbstractFlash.FlashWriter writer = new AbstractFlash.FlashWriter() {
+    @Override
+    public void write(String slot, String text) {
+      written.add(slot + ":" + text);
+    }
+  };
+
+  @Test
+  public void testWritesOnlyChangedText() {
+    AbstractFlash flash = createFlash(null, "10%", "10%", "10%", "20%", "");
+
+    pollUntilRemoved(flash);
+
+    assertEquals(asList("install:10%", "install:20%", "install:"), written);
+  }
+
+  @Test
+  public void testBacksOffWhileTextIsUnchanged() {
+    AbstractFlash flash = createFlash(null, "10%", "10%", "10%", "10%", "20%", "");
+
+    List<Long> delays = pollUntilRemoved(flash);
+
+    assertEquals(asList(1000L, 2000L, 4000L, 8000L, 1000L, -1L), delays);
+  }
+
+  @Test
+  public void testSlotOfIdentifiedFlash() {
+    AbstractFlash flash = createFlash("12", "");
+
+    assertEquals("request-12", flash.getSlot());
+  }
+
+  @Test
+  public void testJitterStaysWithinInterval() {
+    AbstractFlash flash = new AbstractFlash(FlashType.INSTALL) {
+      @Override
+      public String getText() {
+        return "";
+      }
+    };
+    for (int i = 0; i < 100; i++) {
+      long jittered = flash.jitter(8000);
+      assertTrue(jittered >= 4000 && jittered <= 8000);
+    }
+  }
+
+  private List<Long> pollUntilRemoved(AbstractFlash flash) {
+    List<Long> delays = new ArrayList<Long>();
+    long delay;
+    do {
+      delay = flash.poll(writer);
+      delays.add(delay);
+    } while (delay >= 0);
+    return delays;
+  }
+
+  private AbstractFlash createFlash(String id, String... texts) {
+    final Iterator<String> iterator = asList(texts).iterator();
+    FlashType flashType = id == null ? FlashType.INSTALL : FlashType.REQUEST;
+    return new AbstractFlash(flashType, id) {
+      @Override
+      public String getText() {
+        return iterator.next();
+      }
+
+      @Override
+      protected long jitter(long interval) {
+        return interval;
+      }
+    };
+  }
+}
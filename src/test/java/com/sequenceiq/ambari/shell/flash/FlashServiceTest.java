@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.flash;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.util.logging.Level;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.shell.core.JLineShellComponent;
+
+import com.sequenceiq.ambari.client.AmbariClient;
+import com.sequenceiq.ambari.shell.support.RequestTracker;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FlashServiceTest {
+
+  @InjectMocks
+  private FlashService flashService;
+
+  @Mock
+  private AmbariClient client;
+  @Mock
+  private JLineShellComponent shell;
+  @Mock
+  private RequestTracker requestTracker;
+
+  @Test
+  public void testShowWritesEachSlot() {
+    flashService.show(createFlash("1", "Starting HDFS"));
+    flashService.show(createFlash("2", "Starting YARN"));
+
+    verify(shell, timeout(2000)).flash(Level.SEVERE, "Starting HDFS", "request-1");
+    verify(shell, timeout(2000)).flash(Level.SEVERE, "Starting YARN", "request-2");
+  }
+
+  @Test
+  public void testShowForTakenSlot() {
+    assertTrue(flashService.show(createFlash("1", "Starting HDFS")));
+    assertFalse(flashService.show(createFlash("1", "Starting HDFS")));
+  }
+
+  @Test
+  public void testQuitsShellAfterRemovingFlashRequestingExit() {
+    flashService.show(new AbstractFlash(FlashType.INSTALL) {
+      @Override
+      public String getText() {
+        return "";
+      }
+
+      @Override
+      public boolean isExitRequested() {
+        return true;
+      }
+    });
+
+    verify(shell, timeout(2000)).executeCommand("quit");
+  }
+
+  private AbstractFlash createFlash(String id, final String text) {
+    return new AbstractFlash(FlashType.REQUEST, id) {
+      @Override
+      public String getText() {
+        return text;
+      }
+    };
+  }
+}
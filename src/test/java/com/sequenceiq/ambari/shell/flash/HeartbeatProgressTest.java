@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.flash;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.sequenceiq.ambari.client.AmbariClient;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HeartbeatProgressTest {
+
+  @Mock
+  private AmbariClient client;
+
+  @Test
+  public void testGetTextUntilHostsAreHealthy() {
+    when(client.getHostNames()).thenReturn(hosts("UNKNOWN", "HEALTHY"), hosts("HEALTHY", "HEALTHY"));
+    HeartbeatProgress progress = new HeartbeatProgress(client, 0);
+
+    assertEquals("Hosts: 1 of 2 healthy, no heartbeat: host0", progress.getText());
+    assertEquals("Hosts: 2 of 2 healthy", progress.getText());
+    assertEquals("", progress.getText());
+  }
+
+  @Test
+  public void testGetTextWaitsForExpectedHosts() {
+    when(client.getHostNames()).thenReturn(hosts("HEALTHY", "HEALTHY"));
+    HeartbeatProgress progress = new HeartbeatProgress(client, 3);
+
+    assertEquals("Hosts: 2 of 3 healthy", progress.getText());
+    assertEquals("Hosts: 2 of 3 healthy", progress.getText());
+  }
+
+  @Test
+  public void testGetTextListsFirstHostsWithoutHeartbeat() {
+    when(client.getHostNames()).thenReturn(hosts("UNKNOWN", "UNKNOWN", "UNKNOWN", "UNKNOWN"));
+    HeartbeatProgress progress = new HeartbeatProgress(client, 0);
+
+    assertEquals("Hosts: 0 of 4 healthy, no heartbeat: host0, host1, host2, ...", progress.getText());
+  }
+
+  @Test
+  public void testGetTextAfterConsecutiveFailures() {
+    when(client.getHostNames()).thenThrow(new IllegalStateException("timeout"));
+    HeartbeatProgress progress = new HeartbeatProgress(client, 0);
+
+    for (int i = 0; i < 2; i++) {
+      try {
+        progress.getText();
+      } catch (IllegalStateException e) {
+        // polled again
+      }
+    }
+
+    assertEquals("Hosts: cannot read the heartbeat of the hosts", progress.getText());
+    assertEquals("", progress.getText());
+  }
+
+  private Map<String, String> hosts(String... states) {
+    Map<String, String> hosts = new TreeMap<String, String>();
+    for (int i = 0; i < states.length; i++) {
+      hosts.put("host" + i, states[i]);
+    }
+    return hosts;
+  }
+}
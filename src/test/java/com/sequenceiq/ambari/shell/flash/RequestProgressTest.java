@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.flash;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.sequenceiq.ambari.shell.support.RequestTracker;
+
+public class RequestProgressTest {
+
+  private final List<String> written = new ArrayList<String>();
+  private final AbstractFlash.FlashWriter writer = new AbstractFlash.FlashWriter() {
+    @Override
+    public void write(String slot, String text) {
+      written.add(text);
+    }
+  };
+
+  @Test
+  public void testRemovedAfterConsecutiveFailures() {
+    RequestProgress progress = new RequestProgress(tracker(
+      new RequestTracker.RequestState(12, "IN_PROGRESS", 50), null, null, null), "c1", 12, "Start HDFS");
+
+    pollUntilRemoved(progress);
+
+    assertEquals(asList("Start HDFS: 50.00% =====-----",
+      "Start HDFS: cannot read the state of the request (timeout)", ""), written);
+  }
+
+  @Test
+  public void testFailuresAreCountedOnlyInARow() {
+    RequestProgress progress = new RequestProgress(tracker(
+      null, null, new RequestTracker.RequestState(12, "IN_PROGRESS", 50), null, null,
+      new RequestTracker.RequestState(12, "COMPLETED", 100)), "c1", 12, "Start HDFS");
+
+    pollUntilRemoved(progress);
+
+    assertEquals(asList("Start HDFS: 50.00% =====-----", "Start HDFS: COMPLETED", ""), written);
+  }
+
+  private void pollUntilRemoved(AbstractFlash flash) {
+    long delay;
+    do {
+      delay = flash.poll(writer);
+    } while (delay >= 0);
+  }
+
+  /**
+   * Returns the given states one after the other, null stands for a failed request.
+   */
+  private RequestTracker tracker(RequestTracker.RequestState... states) {
+    final Iterator<RequestTracker.RequestState> iterator = asList(states).iterator();
+    return new RequestTracker(null) {
+      @Override
+      public RequestState getState(String cluster, int requestId) throws IOException {
+        RequestState state = iterator.next();
+        if (state == null) {
+          throw new IOException("timeout");
+        }
+        return state;
+      }
+    };
+  }
+}
@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.model;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class HostAssignmentsTest {
+
+  private HostAssignments assignments = new HostAssignments(asList("master", "slave"));
+
+  @Test
+  public void testAssign() {
+    HostAssignments.Result result = assignments.assign("host1", "master");
+
+    assertEquals(HostAssignments.Result.ASSIGNED, result);
+    assertEquals("master", assignments.getHostGroup("host1"));
+    assertEquals(1, assignments.getAssignedCount());
+    assertTrue(assignments.isHostAssigned());
+  }
+
+  @Test
+  public void testAssignDuplicate() {
+    assignments.assign("host1", "master");
+
+    HostAssignments.Result result = assignments.assign("host1", "master");
+
+    assertEquals(HostAssignments.Result.ALREADY_ASSIGNED, result);
+    assertEquals(1, assignments.getAssignedCount());
+    assertEquals(asList("host1"), assignments.toMap().get("master"));
+  }
+
+  @Test
+  public void testAssignToAnotherGroup() {
+    assignments.assign("host1", "master");
+
+    HostAssignments.Result result = assignments.assign("host1", "slave");
+
+    assertEquals(HostAssignments.Result.CONFLICT, result);
+    assertEquals("master", assignments.getHostGroup("host1"));
+    assertTrue(assignments.toMap().get("slave").isEmpty());
+  }
+
+  @Test
+  public void testAssignToUnknownGroup() {
+    HostAssignments.Result result = assignments.assign("host1", "edge");
+
+    assertEquals(HostAssignments.Result.UNKNOWN_HOST_GROUP, result);
+    assertNull(assignments.getHostGroup("host1"));
+    assertFalse(assignments.isHostAssigned());
+  }
+
+  @Test
+  public void testOfKeepsFirstGroupOfHost() {
+    Map<String, List<String>> map = new LinkedHashMap<String, List<String>>();
+    map.put("master", asList("host1"));
+    map.put("slave", asList("host1", "host2"));
+
+    HostAssignments result = HostAssignments.of(map);
+
+    Map<String, List<String>> expected = new LinkedHashMap<String, List<String>>();
+    expected.put("master", asList("host1"));
+    expected.put("slave", asList("host2"));
+    assertEquals(expected, result.toMap());
+    assertEquals(2, result.getAssignedCount());
+  }
+
+  @Test
+  public void testAssignManyHostsConcurrently() throws InterruptedException {
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < 4; t++) {
+      threads.add(new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int i = 0; i < 10000; i++) {
+            assignments.assign("host" + i, i % 2 == 0 ? "master" : "slave");
+          }
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(10000, assignments.getAssignedCount());
+    assertEquals(5000, assignments.toMap().get("slave").size());
+  }
+}
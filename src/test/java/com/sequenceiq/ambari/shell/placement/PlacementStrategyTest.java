@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.placement;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class PlacementStrategyTest {
+
+  private static final long GB = 1024 * 1024;
+
+  private List<HostGroupSpec> hostGroups = asList(
+    new HostGroupSpec("master", asList("NAMENODE", "RESOURCEMANAGER"), 1),
+    new HostGroupSpec("secondary", asList("SECONDARY_NAMENODE", "HISTORYSERVER"), 1),
+    new HostGroupSpec("slave_1", asList("DATANODE", "NODEMANAGER"), 1),
+    new HostGroupSpec("slave_2", asList("DATANODE", "NODEMANAGER"), 1));
+
+  private List<HostFacts> hosts = asList(
+    new HostFacts("small1", 2, 4 * GB, 0, "/rack1"),
+    new HostFacts("small2", 2, 4 * GB, 0, "/rack2"),
+    new HostFacts("big1", 8, 64 * GB, 0, "/rack1"),
+    new HostFacts("big2", 8, 64 * GB, 0, "/rack1"),
+    new HostFacts("medium1", 4, 16 * GB, 0, "/rack2"),
+    new HostFacts("medium2", 4, 16 * GB, 0, "/rack2"));
+
+  @Test
+  public void testSpreadMastersGivesBiggestHostsToMasters() {
+    Map<String, List<String>> result = new SpreadMastersStrategy().place(hostGroups, hosts);
+
+    assertEquals(asList("big1"), result.get("master"));
+    assertEquals(asList("big2"), result.get("secondary"));
+    assertEquals(asList("medium1", "small1"), result.get("slave_1"));
+    assertEquals(asList("medium2", "small2"), result.get("slave_2"));
+  }
+
+  @Test
+  public void testFillWorkersGivesSmallestHostsToMasters() {
+    Map<String, List<String>> result = new FillWorkersStrategy().place(hostGroups, hosts);
+
+    assertEquals(asList("small2"), result.get("master"));
+    assertEquals(asList("small1"), result.get("secondary"));
+    assertEquals(asList("big1", "medium1"), result.get("slave_1"));
+    assertEquals(asList("big2", "medium2"), result.get("slave_2"));
+  }
+
+  @Test
+  public void testRackAwarePutsMastersOnDifferentRacks() {
+    Map<String, List<String>> result = new RackAwareStrategy().place(hostGroups, hosts);
+
+    String master = result.get("master").get(0);
+    String secondary = result.get("secondary").get(0);
+    assertFalse(rackOf(master).equals(rackOf(secondary)));
+    assertEquals(2, result.get("slave_1").size());
+    assertEquals(2, result.get("slave_2").size());
+    assertFalse(rackOf(result.get("slave_1").get(0)).equals(rackOf(result.get("slave_1").get(1))));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPlaceWithoutEnoughHostsForMasters() {
+    new SpreadMastersStrategy().place(hostGroups, hosts.subList(0, 1));
+  }
+
+  @Test
+  public void testPlace10kHostsTo20HostGroups() {
+    List<HostGroupSpec> groups = new ArrayList<HostGroupSpec>();
+    for (int i = 0; i < 5; i++) {
+      groups.add(new HostGroupSpec("master_" + i, asList("NAMENODE"), 3));
+    }
+    for (int i = 0; i < 15; i++) {
+      groups.add(new HostGroupSpec("slave_" + i, asList("DATANODE"), 1));
+    }
+    List<HostFacts> manyHosts = new ArrayList<HostFacts>();
+    for (int i = 0; i < 10000; i++) {
+      manyHosts.add(new HostFacts("host" + i, 1 + i % 16, (1 + i % 64) * GB, i * GB, "/rack" + i % 40));
+    }
+
+    for (PlacementStrategy strategy : asList(new SpreadMastersStrategy(), new FillWorkersStrategy(), new RackAwareStrategy())) {
+      Map<String, List<String>> result = strategy.place(groups, manyHosts);
+
+      Set<String> assigned = new HashSet<String>();
+      for (List<String> groupHosts : result.values()) {
+        assigned.addAll(groupHosts);
+      }
+      assertEquals(10000, assigned.size());
+      for (int i = 0; i < 5; i++) {
+        assertEquals(3, result.get("master_" + i).size());
+      }
+    }
+  }
+
+  private String rackOf(String host) {
+    for (HostFacts facts : hosts) {
+      if (facts.getName().equals(host)) {
+        return facts.getRack();
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.script;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ScriptParserTest {
+
+  @Test
+  public void testIsParallelForPlainScript() {
+    String[] lines = {"blueprint defaults", "// comment", "cluster build --blueprint single-node-hdfs-yarn"};
+
+    assertFalse(ScriptParser.isParallel(lines));
+  }
+
+  @Test
+  public void testIsParallelForBlockAndLabel() {
+    assertTrue(ScriptParser.isParallel(new String[]{"parallel {", "hint", "}"}));
+    assertTrue(ScriptParser.isParallel(new String[]{"bp: blueprint defaults"}));
+  }
+
+  @Test
+  public void testParseSequentialCommands() {
+    String[] lines = {"blueprint defaults", "", "; comment", "blueprint list"};
+
+    List<ScriptStep> steps = ScriptParser.parse(lines);
+
+    assertEquals(2, steps.size());
+    assertEquals(Collections.<Integer>emptySet(), steps.get(0).getDependencies());
+    assertEquals(set(0), steps.get(1).getDependencies());
+    assertEquals(4, steps.get(1).getLine());
+  }
+
+  @Test
+  public void testParseParallelBlock() {
+    String[] lines = {"hint", "parallel {", "  blueprint add --file a.json", "  blueprint add --file b.json", "}",
+      "blueprint list"};
+
+    List<ScriptStep> steps = ScriptParser.parse(lines);
+
+    assertEquals(4, steps.size());
+    assertEquals(set(0), steps.get(1).getDependencies());
+    assertEquals(set(0), steps.get(2).getDependencies());
+    assertEquals(set(1, 2), steps.get(3).getDependencies());
+    assertEquals("blueprint add --file a.json", steps.get(1).getCommand());
+  }
+
+  @Test
+  public void testParseLabelsWithDependencies() {
+    String[] lines = {"multi: blueprint add --file multi.json", "single: blueprint add --file single.json",
+      "build after multi: cluster build --blueprint multi-node", "all after single, build: blueprint list"};
+
+    List<ScriptStep> steps = ScriptParser.parse(lines);
+
+    assertEquals("multi", steps.get(0).getName());
+    assertEquals(set(0), steps.get(1).getDependencies());
+    assertEquals(set(0), steps.get(2).getDependencies());
+    assertEquals("cluster build --blueprint multi-node", steps.get(2).getCommand());
+    assertEquals(set(1, 2), steps.get(3).getDependencies());
+  }
+
+  @Test
+  public void testParseKeepsColonsOfCommands() {
+    List<ScriptStep> steps = ScriptParser.parse(new String[]{"parallel {", "blueprint add --url http://host:80/a", "}"});
+
+    assertNull(steps.get(0).getName());
+    assertEquals("blueprint add --url http://host:80/a", steps.get(0).getCommand());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseUnknownLabel() {
+    ScriptParser.parse(new String[]{"build after bp: cluster build --blueprint a", "bp: blueprint defaults"});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseNestedBlock() {
+    ScriptParser.parse(new String[]{"parallel {", "parallel {", "}", "}"});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseUnclosedBlock() {
+    ScriptParser.parse(new String[]{"parallel {", "hint"});
+  }
+
+  private static HashSet<Integer> set(Integer... indexes) {
+    return new HashSet<Integer>(Arrays.asList(indexes));
+  }
+}
@@ -0,0 +1,102 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.script;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.shell.core.CommandResult;
+
+public class ScriptRunnerTest {
+
+  private ByteArrayOutputStream output;
+  private CountDownLatch started;
+
+  @Before
+  public void setUp() {
+    output = new ByteArrayOutputStream();
+    started = new CountDownLatch(2);
+  }
+
+  @Test
+  public void testRunPrintsOutputInScriptOrder() {
+    List<ScriptStep> steps = ScriptParser.parse(new String[]{"parallel {", "slow", "fast", "}", "last"});
+
+    boolean success = runner(2).run(steps);
+
+    assertTrue(success);
+    assertEquals(String.format("slow%nfast%nlast%n"), output.toString());
+  }
+
+  @Test
+  public void testRunExecutesBlockInParallel() {
+    List<ScriptStep> steps = ScriptParser.parse(new String[]{"parallel {", "meet", "meet", "}"});
+
+    boolean success = runner(2).run(steps);
+
+    assertTrue(success);
+  }
+
+  @Test
+  public void testRunStopsAfterFailure() {
+    List<ScriptStep> steps = ScriptParser.parse(new String[]{"first", "fail", "never"});
+
+    boolean success = runner(2).run(steps);
+
+    assertFalse(success);
+    assertEquals(String.format("first%nfail%nCommand failed at line 2: fail%n"), output.toString());
+  }
+
+  @Test
+  public void testRunSkipsDependentsOfFailure() {
+    List<ScriptStep> steps = ScriptParser.parse(new String[]{"a: fail", "b after a: never", "c: fast"});
+
+    boolean success = runner(1).run(steps);
+
+    assertFalse(success);
+    assertEquals(String.format("fail%nCommand failed at line 1: fail%n"), output.toString());
+  }
+
+  private ScriptRunner runner(int parallelism) {
+    return new ScriptRunner(null, null, parallelism, new PrintStream(output, true)) {
+      @Override
+      protected CommandResult execute(String command) {
+        try {
+          if ("slow".equals(command)) {
+            Thread.sleep(100);
+          } else if ("meet".equals(command)) {
+            started.countDown();
+            return new CommandResult(started.await(5, TimeUnit.SECONDS), null, null);
+          }
+        } catch (InterruptedException e) {
+          return new CommandResult(false, null, e);
+        }
+        return new CommandResult(!"fail".equals(command), command, null);
+      }
+    };
+  }
+}
@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+public class ArchiveReaderTest {
+
+  @Test
+  public void testReadTarGz() throws IOException {
+    Map<String, String> result = ArchiveReader.read(new File("src/test/resources/blueprints.tar.gz"), ".json");
+
+    assertEquals(expected(), result);
+  }
+
+  @Test
+  public void testReadZip() throws IOException {
+    Map<String, String> result = ArchiveReader.read(new File("src/test/resources/blueprints.zip"), ".json");
+
+    assertEquals(expected(), result);
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadTarGzForTooLargeEntry() throws IOException {
+    File archive = createTarGz("big.json", "77777777777");
+    try {
+      ArchiveReader.read(archive, ".json");
+    } finally {
+      archive.delete();
+    }
+  }
+
+  @Test
+  public void testReadTarGzSkipsLargeEntryOfOtherType() throws IOException {
+    File archive = createTarGz("big.bin", "00000001000");
+    try {
+      Map<String, String> result = ArchiveReader.read(archive, ".json");
+
+      assertEquals(0, result.size());
+    } finally {
+      archive.delete();
+    }
+  }
+
+  private File createTarGz(String name, String octalSize) throws IOException {
+    Charset charset = Charset.forName("UTF-8");
+    byte[] header = new byte[512];
+    System.arraycopy(name.getBytes(charset), 0, header, 0, name.length());
+    System.arraycopy(octalSize.getBytes(charset), 0, header, 124, octalSize.length());
+    header[156] = '0';
+    File archive = File.createTempFile("archive", ".tar.gz");
+    OutputStream out = new GZIPOutputStream(new FileOutputStream(archive));
+    try {
+      out.write(header);
+      out.write(new byte[1024]);
+      out.write(new byte[1024]);
+    } finally {
+      out.close();
+    }
+    return archive;
+  }
+
+  private Map<String, String> expected() {
+    Map<String, String> expected = new LinkedHashMap<String, String>();
+    expected.put("blueprints/nested/multi.json", "{\"Blueprints\":{\"blueprint_name\":\"multi\"}}");
+    expected.put("blueprints/single.json", "{\"Blueprints\":{\"blueprint_name\":\"single\"}}");
+    return expected;
+  }
+}
@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class CachingUrlReaderTest {
+
+  private static final Charset CHARSET = Charset.forName("UTF-8");
+  private static final String BLUEPRINT = "{\"Blueprints\":{\"blueprint_name\":\"bp\"}}";
+
+  private HttpServer server;
+  private File dir;
+  private CachingUrlReader reader;
+  private List<Integer> responses = new ArrayList<Integer>();
+  private String etag = "\"v1\"";
+  private boolean gzip;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/blueprint.json", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        respond(exchange);
+      }
+    });
+    server.start();
+    dir = File.createTempFile("cache", "");
+    dir.delete();
+    reader = new CachingUrlReader(dir, 1000, 1000, 1024);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    server.stop(0);
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Test
+  public void testReadRevalidatesCachedDocument() throws IOException {
+    String first = reader.read(url());
+    String second = reader.read(url());
+
+    assertEquals(BLUEPRINT, first);
+    assertEquals(BLUEPRINT, second);
+    assertEquals(200, responses.get(0).intValue());
+    assertEquals(304, responses.get(1).intValue());
+  }
+
+  @Test
+  public void testReadDownloadsModifiedDocument() throws IOException {
+    reader.read(url());
+    etag = "\"v2\"";
+
+    reader.read(url());
+
+    assertEquals(200, responses.get(1).intValue());
+  }
+
+  @Test
+  public void testReadForGzipEncoding() throws IOException {
+    gzip = true;
+
+    String result = reader.read(url());
+
+    assertEquals(BLUEPRINT, result);
+  }
+
+  @Test
+  public void testReadForTooLargeDocument() {
+    reader = new CachingUrlReader(dir, 1000, 1000, 10);
+
+    try {
+      reader.read(url());
+      fail();
+    } catch (IOException e) {
+      assertEquals("The document is larger than 10 bytes", e.getMessage());
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadForMissingDocument() throws IOException {
+    reader.read(url().replace("blueprint.json", "missing.json"));
+  }
+
+  private String url() {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + "/blueprint.json";
+  }
+
+  private void respond(HttpExchange exchange) throws IOException {
+    if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+      responses.add(304);
+      exchange.sendResponseHeaders(304, -1);
+      exchange.close();
+      return;
+    }
+    byte[] body = BLUEPRINT.getBytes(CHARSET);
+    if (gzip && "gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+      GZIPOutputStream out = new GZIPOutputStream(compressed);
+      out.write(body);
+      out.close();
+      body = compressed.toByteArray();
+      exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+    }
+    exchange.getResponseHeaders().set("ETag", etag);
+    responses.add(200);
+    exchange.sendResponseHeaders(200, body.length);
+    OutputStream out = exchange.getResponseBody();
+    out.write(body);
+    out.close();
+  }
+}
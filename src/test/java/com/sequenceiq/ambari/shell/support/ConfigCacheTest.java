@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConfigCacheTest {
+
+  private static final String DESIRED_CONFIGS = "clusters/c1?fields=Clusters/desired_configs";
+  private static final String CORE_SITE_V1 = "clusters/c1/configurations?type=core-site&tag=v1";
+  private static final String CORE_SITE_V2 = "clusters/c1/configurations?type=core-site&tag=v2";
+
+  private ObjectMapper mapper = new ObjectMapper();
+
+  @InjectMocks
+  private ConfigCache configCache;
+
+  @Mock
+  private AmbariRestClient restClient;
+  @Mock
+  private ConfigHistory history;
+
+  @Test
+  public void testGetDownloadsUnchangedVersionOnce() throws IOException {
+    mockDesiredTag("v1");
+    mockProperties(CORE_SITE_V1, "350");
+
+    configCache.get("c1", "core-site");
+    Map<String, String> result = configCache.get("c1", "core-site");
+
+    assertEquals(singletonMap("fs.trash.interval", "350"), result);
+    verify(restClient, times(2)).get(DESIRED_CONFIGS);
+    verify(restClient, times(1)).get(CORE_SITE_V1);
+    verify(history, times(1)).record("c1", "core-site", "v1", "fetched", result);
+  }
+
+  @Test
+  public void testGetDownloadsNewVersion() throws IOException {
+    mockDesiredTag("v1");
+    mockProperties(CORE_SITE_V1, "350");
+    configCache.get("c1", "core-site");
+    mockDesiredTag("v2");
+    mockProperties(CORE_SITE_V2, "510");
+
+    Map<String, String> result = configCache.get("c1", "core-site");
+
+    assertEquals(singletonMap("fs.trash.interval", "510"), result);
+  }
+
+  @Test
+  public void testReloadRecordsSource() throws IOException {
+    mockDesiredTag("v2");
+    mockProperties(CORE_SITE_V2, "510");
+
+    configCache.reload("c1", "core-site", "modify");
+
+    verify(history).record("c1", "core-site", "v2", "modify", singletonMap("fs.trash.interval", "510"));
+    assertEquals(singletonMap("fs.trash.interval", "510"), configCache.get("c1", "core-site"));
+    verify(restClient, times(1)).get(CORE_SITE_V2);
+  }
+
+  @Test
+  public void testGetForUnknownType() throws IOException {
+    mockDesiredTag("v1");
+
+    Map<String, String> result = configCache.get("c1", "hdfs-site");
+
+    assertTrue(result.isEmpty());
+  }
+
+  private void mockDesiredTag(String tag) throws IOException {
+    when(restClient.get(DESIRED_CONFIGS)).thenReturn(mapper.readTree(
+      "{\"Clusters\":{\"desired_configs\":{\"core-site\":{\"tag\":\"" + tag + "\"}}}}"));
+  }
+
+  private void mockProperties(String path, String value) throws IOException {
+    when(restClient.get(path)).thenReturn(mapper.readTree(
+      "{\"items\":[{\"properties\":{\"fs.trash.interval\":\"" + value + "\"}}]}"));
+  }
+}
@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConfigHistoryTest {
+
+  private File dir;
+  private ConfigHistory history;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = File.createTempFile("history", "");
+    dir.delete();
+    history = new ConfigHistory(dir);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Test
+  public void testRecordStoresChangedPropertiesOnly() throws IOException {
+    history.record("c1", "core-site", "v1", "fetched", properties("a", "1", "b", "2"));
+    history.record("c1", "core-site", "v2", "modify", properties("a", "1", "b", "3", "c", "4"));
+    history.record("c1", "core-site", "v2", "fetched", properties("a", "1", "b", "3", "c", "4"));
+
+    List<ConfigHistory.Version> result = history.getHistory("c1", "core-site");
+
+    assertEquals(2, result.size());
+    assertEquals("v1", result.get(0).getTag());
+    assertEquals(2, result.get(0).getChangeCount());
+    assertEquals("modify", result.get(1).getSource());
+    assertEquals(2, result.get(1).getChangeCount());
+  }
+
+  @Test
+  public void testDiff() {
+    history.record("c1", "core-site", "v1", "fetched", properties("a", "1", "b", "2"));
+    history.record("c1", "core-site", "v2", "modify", properties("a", "1", "b", "3", "c", "4"));
+    history.record("c1", "core-site", "v3", "modify", properties("b", "3", "c", "4"));
+
+    Map<String, String[]> result = history.diff("c1", "core-site", "v1", "v3");
+
+    assertEquals(3, result.size());
+    assertArrayEquals(new String[]{"1", null}, result.get("a"));
+    assertArrayEquals(new String[]{"2", "3"}, result.get("b"));
+    assertArrayEquals(new String[]{null, "4"}, result.get("c"));
+  }
+
+  @Test
+  public void testHistoryIsReadFromDisk() {
+    history.record("c1", "core-site", "v1", "fetched", properties("a", "multi\nline\tvalue\\", "b", "2"));
+    history.record("c1", "core-site", "v2", "set", properties("a", "1"));
+
+    ConfigHistory reloaded = new ConfigHistory(dir);
+    Map<String, String[]> result = reloaded.diff("c1", "core-site", "v1", "v2");
+
+    assertEquals(2, reloaded.getHistory("c1", "core-site").size());
+    assertArrayEquals(new String[]{"multi\nline\tvalue\\", "1"}, result.get("a"));
+    assertArrayEquals(new String[]{"2", null}, result.get("b"));
+  }
+
+  @Test
+  public void testHistoryIsReadableByOwnerOnly() throws IOException {
+    history.record("c1", "core-site", "v1", "fetched", properties("password", "secret"));
+    history.record("c1", "core-site", "v2", "set", properties("password", "other"));
+
+    assertEquals(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE),
+      Files.getPosixFilePermissions(new File(dir, "c1/core-site.history").toPath()));
+    assertEquals(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE),
+      Files.getPosixFilePermissions(new File(dir, "c1").toPath()));
+    assertEquals(2, new ConfigHistory(dir).getHistory("c1", "core-site").size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDiffForUnknownVersion() {
+    history.record("c1", "core-site", "v1", "fetched", properties("a", "1"));
+
+    history.diff("c1", "core-site", "v0", "v1");
+  }
+
+  @Test
+  public void testGetHistoryForUnknownType() {
+    assertTrue(history.getHistory("c1", "hdfs-site").isEmpty());
+  }
+
+  private Map<String, String> properties(String... keyValues) {
+    Map<String, String> result = new HashMap<String, String>();
+    for (int i = 0; i < keyValues.length; i += 2) {
+      result.put(keyValues[i], keyValues[i + 1]);
+    }
+    return result;
+  }
+}
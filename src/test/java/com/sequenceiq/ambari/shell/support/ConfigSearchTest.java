@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConfigSearchTest {
+
+  @InjectMocks
+  private ConfigSearch configSearch;
+
+  @Mock
+  private ConfigCache configCache;
+
+  private Map<String, String> tags = new HashMap<String, String>();
+
+  @Before
+  public void setUp() throws IOException {
+    Map<String, String> hdfsSite = new HashMap<String, String>();
+    hdfsSite.put("dfs.replication", "3");
+    hdfsSite.put("dfs.namenode.http-address", "master.ambari.com:50070");
+    tags.put("core-site", "v1");
+    tags.put("hdfs-site", "v1");
+    when(configCache.getDesiredTags("c1")).thenReturn(tags);
+    when(configCache.get("c1", "core-site", "v1")).thenReturn(singletonMap("fs.defaultFS", "hdfs://master.ambari.com:8020"));
+    when(configCache.get("c1", "hdfs-site", "v1")).thenReturn(hdfsSite);
+  }
+
+  @Test
+  public void testSearchByKey() throws IOException {
+    Map<String, Map<String, String>> result = configSearch.search("c1", Pattern.compile("replication"), null);
+
+    assertEquals(singletonMap("hdfs-site", singletonMap("dfs.replication", "3")), result);
+  }
+
+  @Test
+  public void testSearchByValue() throws IOException {
+    Map<String, Map<String, String>> result = configSearch.search("c1", null, Pattern.compile("master\\.ambari"));
+
+    Map<String, Map<String, String>> expected = new TreeMap<String, Map<String, String>>();
+    expected.put("core-site", singletonMap("fs.defaultFS", "hdfs://master.ambari.com:8020"));
+    expected.put("hdfs-site", singletonMap("dfs.namenode.http-address", "master.ambari.com:50070"));
+    assertEquals(expected, result);
+  }
+
+  @Test
+  public void testSearchByKeyAndValue() throws IOException {
+    Map<String, Map<String, String>> result = configSearch.search("c1", Pattern.compile("^dfs"), Pattern.compile("^3$"));
+
+    assertEquals(singletonMap("hdfs-site", singletonMap("dfs.replication", "3")), result);
+  }
+
+  @Test
+  public void testSearchDownloadsChangedTypesOnly() throws IOException {
+    configSearch.search("c1", Pattern.compile("replication"), null);
+    tags.put("hdfs-site", "v2");
+    when(configCache.get("c1", "hdfs-site", "v2")).thenReturn(singletonMap("dfs.replication", "2"));
+
+    Map<String, Map<String, String>> result = configSearch.search("c1", Pattern.compile("replication"), null);
+
+    assertEquals(singletonMap("hdfs-site", singletonMap("dfs.replication", "2")), result);
+    verify(configCache, times(1)).get("c1", "core-site", "v1");
+  }
+
+  @Test
+  public void testSearchForRemovedType() throws IOException {
+    configSearch.search("c1", Pattern.compile("replication"), null);
+    tags.remove("hdfs-site");
+
+    Map<String, Map<String, String>> result = configSearch.search("c1", Pattern.compile("replication"), null);
+
+    assertTrue(result.isEmpty());
+  }
+}
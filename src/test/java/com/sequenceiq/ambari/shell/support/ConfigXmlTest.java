@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ConfigXmlTest {
+
+  @Test
+  public void testRead() throws IOException {
+    InputStream in = new FileInputStream("src/test/resources/core-site.xml");
+    try {
+      Map<String, String> result = ConfigXml.read(in);
+
+      Map<String, String> expected = new LinkedHashMap<String, String>();
+      expected.put("fs.trash.interval", "350");
+      expected.put("ipc.client.connection.maxidletime", "30000");
+      assertEquals(expected, result);
+    } finally {
+      in.close();
+    }
+  }
+
+  @Test
+  public void testReadIgnoresDescriptionAndFinal() throws IOException {
+    String xml = "<?xml version=\"1.0\"?>\n<!-- comment -->\n<configuration>\n"
+      + "<property><name> a </name><value>${b}</value><final>true</final><description>x</description></property>\n"
+      + "<property><name>b</name><value><![CDATA[<c>]]></value></property>\n</configuration>";
+
+    Map<String, String> result = ConfigXml.read(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+
+    Map<String, String> expected = new LinkedHashMap<String, String>();
+    expected.put("a", "${b}");
+    expected.put("b", "<c>");
+    assertEquals(expected, result);
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    Map<String, String> config = new LinkedHashMap<String, String>();
+    config.put("fs.trash.interval", "350");
+    config.put("hadoop.security.auth_to_local", "RULE:[1:$1@$0](.*@EXAMPLE.COM)s/@.*//\nDEFAULT & <more>");
+    config.put("empty", "");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    ConfigXml.write(config, out);
+
+    assertEquals(config, ConfigXml.read(new ByteArrayInputStream(out.toByteArray())));
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadForOtherDocument() throws IOException {
+    ConfigXml.read(new ByteArrayInputStream("<project/>".getBytes("UTF-8")));
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadForMalformedDocument() throws IOException {
+    ConfigXml.read(new ByteArrayInputStream("<configuration><property>".getBytes("UTF-8")));
+  }
+}
@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class HostSelectorTest {
+
+  private HostSelector selector = new HostSelector(asList("node2.local", "node1.local", "node10.local", "master.local"));
+
+  @Test
+  public void testSelectListWithNamesAndWildcards() {
+    Map<String, String> rejected = new LinkedHashMap<String, String>();
+
+    List<String> result = selector.selectList("master.local, node?.local,unknown,db*", rejected);
+
+    assertEquals(asList("master.local", "node1.local", "node2.local"), result);
+    Map<String, String> expected = new LinkedHashMap<String, String>();
+    expected.put("unknown", "unknown host");
+    expected.put("db*", "no matching host");
+    assertEquals(expected, rejected);
+  }
+
+  @Test
+  public void testSelectListRemovesDuplicates() {
+    Map<String, String> rejected = new LinkedHashMap<String, String>();
+
+    List<String> result = selector.selectList("node1.local,node1*", rejected);
+
+    assertEquals(asList("node1.local", "node10.local"), result);
+    assertTrue(rejected.isEmpty());
+  }
+
+  @Test
+  public void testSelectPattern() {
+    List<String> result = selector.select(Pattern.compile("node\\d+\\.local"));
+
+    assertEquals(asList("node1.local", "node10.local", "node2.local"), result);
+  }
+
+  @Test
+  public void testToPatternQuotesLiterals() {
+    Pattern pattern = HostSelector.toPattern("node.*");
+
+    assertTrue(pattern.matcher("node.1").matches());
+    assertFalse(pattern.matcher("nodex1").matches());
+  }
+
+  @Test
+  public void testSelectListFromManyHosts() {
+    List<String> hosts = new ArrayList<String>();
+    StringBuilder list = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      hosts.add("host" + i);
+      list.append("host").append(i).append(',');
+    }
+    Map<String, String> rejected = new LinkedHashMap<String, String>();
+
+    List<String> result = new HostSelector(hosts).selectList(list.append("host-x").toString(), rejected);
+
+    assertEquals(10000, result.size());
+    assertEquals(singletonMap("host-x", "unknown host"), rejected);
+  }
+}
@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+public class RequestTrackerTest {
+
+  private static final String REQUEST_PATH = "clusters/c1/requests/7?fields=Requests/request_status,Requests/progress_percent";
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final List<String> paths = new ArrayList<String>();
+  private final List<Long> sleeps = new ArrayList<Long>();
+  private long time;
+
+  @Test
+  public void testGetState() throws IOException {
+    RequestTracker tracker = createTracker(asList("IN_PROGRESS:42.5"));
+
+    RequestTracker.RequestState state = tracker.getState("c1", 7);
+
+    assertEquals(asList(REQUEST_PATH), paths);
+    assertEquals(7, state.getId());
+    assertEquals("IN_PROGRESS", state.getStatus());
+    assertEquals(42.5, state.getProgress(), 0);
+    assertFalse(state.isFinished());
+  }
+
+  @Test
+  public void testAwaitBacksOffWhileStalledAndResetsOnProgress() throws Exception {
+    RequestTracker tracker = createTracker(asList("IN_PROGRESS:10", "IN_PROGRESS:10", "IN_PROGRESS:10",
+      "IN_PROGRESS:50", "COMPLETED:100"));
+
+    RequestTracker.RequestState state = tracker.await("c1", 7, 60000);
+
+    assertTrue(state.isSuccessful());
+    assertEquals(asList(500L, 750L, 1125L, 500L), sleeps);
+  }
+
+  @Test
+  public void testAwaitForFailedRequest() throws Exception {
+    RequestTracker tracker = createTracker(asList("IN_PROGRESS:10", "FAILED:100"));
+
+    RequestTracker.RequestState state = tracker.await("c1", 7, 60000);
+
+    assertTrue(state.isFinished());
+    assertFalse(state.isSuccessful());
+    assertEquals("FAILED", state.getStatus());
+  }
+
+  @Test
+  public void testAwaitStopsAtTimeout() throws Exception {
+    List<String> responses = new ArrayList<String>();
+    for (int i = 0; i < 100; i++) {
+      responses.add("IN_PROGRESS:10");
+    }
+    RequestTracker tracker = createTracker(responses);
+
+    RequestTracker.RequestState state = tracker.await("c1", 7, 3000);
+
+    assertFalse(state.isFinished());
+    assertEquals(3000, time);
+    assertEquals(asList(500L, 750L, 1125L, 625L), sleeps);
+  }
+
+  private RequestTracker createTracker(List<String> responses) {
+    final Iterator<String> iterator = responses.iterator();
+    AmbariRestClient restClient = new AmbariRestClient("localhost", "8080", "admin", "admin", mapper) {
+      @Override
+      public JsonNode get(String path) throws IOException {
+        paths.add(path);
+        String[] response = iterator.next().split(":");
+        return mapper.readTree(String.format("{\"Requests\": {\"request_status\": \"%s\", \"progress_percent\": %s}}",
+          response[0], response[1]));
+      }
+    };
+    return new RequestTracker(restClient) {
+      @Override
+      protected long currentTime() {
+        return time;
+      }
+
+      @Override
+      protected void sleep(long millis) {
+        sleeps.add(millis);
+        time += millis;
+      }
+    };
+  }
+}
@@ -0,0 +1,154 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RollingRestartTest {
+
+  private static final String HOSTS = "clusters/c1/host_components?HostRoles/component_name=DATANODE&fields=HostRoles/host_name";
+  private static final String BATCH = "clusters/c1/host_components?HostRoles/component_name=DATANODE&HostRoles/host_name.in(%s)";
+  private static final String STATES = "&fields=HostRoles/host_name,HostRoles/state";
+  private static final long TIMEOUT = 60000;
+
+  private ObjectMapper mapper = new ObjectMapper();
+
+  @InjectMocks
+  private RollingRestart rollingRestart;
+
+  @Mock
+  private AmbariRestClient restClient;
+  @Mock
+  private RequestTracker requestTracker;
+
+  @Test
+  public void testRestartInBatches() throws Exception {
+    mockHosts("node1", "node2", "node3");
+    mockBatch("node1,node2", 1, "COMPLETED", "STARTED");
+    mockBatch("node3", 3, "COMPLETED", "STARTED");
+
+    List<RollingRestart.Batch> batches = rollingRestart.plan("c1", "DATANODE", 2);
+    rollingRestart.restart("c1", "DATANODE", batches, 1, 0, TIMEOUT);
+
+    assertEquals(2, batches.size());
+    assertEquals(asList("node1", "node2"), batches.get(0).getHosts());
+    assertTrue(batches.get(0).isSuccessful());
+    assertEquals(asList("node3"), batches.get(1).getHosts());
+    assertTrue(batches.get(1).isSuccessful());
+  }
+
+  @Test
+  public void testRestartStopsAboveFailureThreshold() throws Exception {
+    mockHosts("node1", "node2");
+    mockBatch("node1", 1, "FAILED", "INSTALLED");
+
+    List<RollingRestart.Batch> batches = rollingRestart.plan("c1", "DATANODE", 1);
+    rollingRestart.restart("c1", "DATANODE", batches, 1, 0, TIMEOUT);
+
+    assertEquals("Stop request 1 finished with FAILED", batches.get(0).getResult());
+    assertEquals(asList("node1"), batches.get(0).getFailedHosts());
+    assertEquals("Skipped", batches.get(1).getResult());
+    assertTrue(batches.get(1).isFinished());
+    verify(restClient, never()).submit(eq("PUT"), eq(String.format(BATCH, "node2")), anyString());
+  }
+
+  @Test
+  public void testRestartCountsFailedStopOfStartedHosts() throws Exception {
+    mockHosts("node1", "node2");
+    mockBatch("node1", 1, "FAILED", "STARTED");
+
+    List<RollingRestart.Batch> batches = rollingRestart.plan("c1", "DATANODE", 1);
+    rollingRestart.restart("c1", "DATANODE", batches, 1, 0, TIMEOUT);
+
+    assertEquals("Stop request 1 finished with FAILED", batches.get(0).getResult());
+    assertEquals(asList("node1"), batches.get(0).getFailedHosts());
+    assertEquals("Skipped", batches.get(1).getResult());
+    verify(restClient, never()).submit(eq("PUT"), eq(String.format(BATCH, "node2")), anyString());
+  }
+
+  @Test
+  public void testRestartReportsHostsNotStarted() throws Exception {
+    mockHosts("node1");
+    mockBatch("node1", 1, "COMPLETED", "INSTALLED");
+
+    List<RollingRestart.Batch> batches = rollingRestart.plan("c1", "DATANODE", 1);
+    rollingRestart.restart("c1", "DATANODE", batches, 1, 1, TIMEOUT);
+
+    assertEquals("Not started", batches.get(0).getResult());
+    assertEquals(asList("node1"), batches.get(0).getFailedHosts());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPlanForTooLargeBatch() throws Exception {
+    rollingRestart.plan("c1", "DATANODE", RollingRestart.MAX_BATCH_SIZE + 1);
+  }
+
+  @Test
+  public void testFinishKeepsFirstResult() {
+    RollingRestart.Batch batch = new RollingRestart.Batch(0, asList("node1"));
+    batch.finish(asList("node1"), "Skipped");
+
+    batch.finish(Collections.<String>emptyList(), "Restarted");
+
+    assertEquals("Skipped", batch.getResult());
+    assertEquals(asList("node1"), batch.getFailedHosts());
+  }
+
+  private void mockHosts(String... hosts) throws IOException {
+    StringBuilder items = new StringBuilder();
+    for (String host : hosts) {
+      items.append(items.length() == 0 ? "" : ",").append(String.format("{\"HostRoles\": {\"host_name\": \"%s\"}}", host));
+    }
+    when(restClient.get(HOSTS)).thenReturn(mapper.readTree("{\"items\": [" + items + "]}"));
+  }
+
+  private void mockBatch(String hosts, int stopRequest, String stopStatus, String state) throws Exception {
+    String path = String.format(BATCH, hosts);
+    when(restClient.submit(eq("PUT"), eq(path), startsWith("{\"RequestInfo\": {\"context\": \"Stop"))).thenReturn(stopRequest);
+    when(restClient.submit(eq("PUT"), eq(path), startsWith("{\"RequestInfo\": {\"context\": \"Start"))).thenReturn(stopRequest + 1);
+    when(requestTracker.await("c1", stopRequest, TIMEOUT)).thenReturn(new RequestTracker.RequestState(stopRequest, stopStatus, 100));
+    when(requestTracker.await("c1", stopRequest + 1, TIMEOUT)).thenReturn(
+      new RequestTracker.RequestState(stopRequest + 1, "COMPLETED", 100));
+    StringBuilder items = new StringBuilder();
+    for (String host : hosts.split(",")) {
+      items.append(items.length() == 0 ? "" : ",")
+        .append(String.format("{\"HostRoles\": {\"host_name\": \"%s\", \"state\": \"%s\"}}", host, state));
+    }
+    when(restClient.get(path + STATES)).thenReturn(mapper.readTree("{\"items\": [" + items + "]}"));
+  }
+}
@@ -0,0 +1,174 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import com.sequenceiq.ambari.client.AmbariClient;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ServiceOrchestratorTest {
+
+  private static final long TIMEOUT = 60000;
+
+  @Mock
+  private AmbariClient client;
+  @Mock
+  private RequestTracker requestTracker;
+
+  private File dependencyFile;
+  private ServiceOrchestrator orchestrator;
+  private final List<String> started = new ArrayList<String>();
+
+  @Before
+  public void setUp() throws IOException {
+    dependencyFile = File.createTempFile("service-dependencies", ".properties");
+    dependencyFile.delete();
+    dependencyFile.deleteOnExit();
+    orchestrator = new ServiceOrchestrator(client, requestTracker, dependencyFile);
+  }
+
+  @Test
+  public void testStartFollowsDependencies() throws Exception {
+    mockStart("ZOOKEEPER", 1, "COMPLETED");
+    mockStart("HDFS", 2, "COMPLETED");
+    mockStart("YARN", 3, "COMPLETED");
+    mockStart("HBASE", 4, "COMPLETED");
+
+    List<ServiceOrchestrator.Outcome> outcomes = orchestrator.start("c1", asList("YARN", "HBASE", "HDFS", "ZOOKEEPER"), TIMEOUT);
+
+    assertEquals(4, outcomes.size());
+    assertEquals(asList("ZOOKEEPER", "HDFS"), started.subList(0, 2));
+    assertTrue(started.containsAll(asList("YARN", "HBASE")));
+    for (ServiceOrchestrator.Outcome outcome : outcomes) {
+      assertTrue(outcome.isSuccessful());
+    }
+  }
+
+  @Test
+  public void testStartSkipsDependentsOfFailedService() throws Exception {
+    mockStart("ZOOKEEPER", 1, "COMPLETED");
+    mockStart("HDFS", 2, "FAILED");
+
+    List<ServiceOrchestrator.Outcome> outcomes = orchestrator.start("c1", asList("ZOOKEEPER", "HDFS", "YARN"), TIMEOUT);
+
+    assertEquals("Request 2 finished with FAILED", outcomes.get(1).getMessage());
+    assertEquals("YARN", outcomes.get(2).getService());
+    assertEquals("Skipped", outcomes.get(2).getMessage());
+    assertFalse(outcomes.get(2).isSuccessful());
+    verify(client, never()).startService("YARN");
+  }
+
+  @Test
+  public void testStartContinuesIndependentChainAfterFailure() throws Exception {
+    mockStart("ZOOKEEPER", 1, "COMPLETED");
+    mockStart("HDFS", 2, "FAILED");
+    mockStart("STORM", 3, "COMPLETED");
+    FileUtils.writeStringToFile(dependencyFile, "HDFS=\nSTORM=ZOOKEEPER\n");
+
+    List<ServiceOrchestrator.Outcome> outcomes = orchestrator.start("c1",
+      asList("HDFS", "YARN", "MAPREDUCE2", "ZOOKEEPER", "STORM"), TIMEOUT);
+
+    assertEquals(5, outcomes.size());
+    assertTrue(started.containsAll(asList("HDFS", "ZOOKEEPER", "STORM")));
+    verify(client, never()).startService("YARN");
+    verify(client, never()).startService("MAPREDUCE2");
+    for (ServiceOrchestrator.Outcome outcome : outcomes) {
+      if ("YARN".equals(outcome.getService()) || "MAPREDUCE2".equals(outcome.getService())) {
+        assertEquals("Skipped", outcome.getMessage());
+      } else if ("STORM".equals(outcome.getService()) || "ZOOKEEPER".equals(outcome.getService())) {
+        assertTrue(outcome.isSuccessful());
+      }
+    }
+  }
+
+  @Test
+  public void testStopGoesInReverseOrder() throws Exception {
+    final List<String> stopped = new ArrayList<String>();
+    when(client.stopService(anyString())).thenAnswer(new Answer<Integer>() {
+      @Override
+      public Integer answer(InvocationOnMock invocation) {
+        stopped.add((String) invocation.getArguments()[0]);
+        return -1;
+      }
+    });
+
+    List<ServiceOrchestrator.Outcome> outcomes = orchestrator.stop("c1", asList("ZOOKEEPER", "HDFS", "YARN"), TIMEOUT);
+
+    assertEquals(asList("YARN", "HDFS", "ZOOKEEPER"), stopped);
+    assertEquals("Already stopped", outcomes.get(0).getMessage());
+  }
+
+  @Test
+  public void testDependencyFileOverridesDefaults() throws Exception {
+    FileUtils.writeStringToFile(dependencyFile, "HDFS=\nYARN=HDFS,ZOOKEEPER\n");
+
+    assertEquals(new ArrayList<String>(), orchestrator.getDependencies().get("HDFS"));
+    assertEquals(asList("HDFS", "ZOOKEEPER"), orchestrator.getDependencies().get("YARN"));
+    assertEquals(asList("HDFS", "ZOOKEEPER"), orchestrator.getDependencies().get("HBASE"));
+  }
+
+  @Test
+  public void testWithPrerequisites() throws Exception {
+    List<String> installed = asList("ZOOKEEPER", "HDFS", "YARN", "MAPREDUCE2", "HBASE");
+
+    assertEquals("[HDFS, MAPREDUCE2, YARN, ZOOKEEPER]", orchestrator.withPrerequisites("MAPREDUCE2", installed, true).toString());
+    assertEquals("[HBASE, HDFS, MAPREDUCE2, YARN]", orchestrator.withPrerequisites("HDFS", installed, false).toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testStartForDependencyCycle() throws Exception {
+    FileUtils.writeStringToFile(dependencyFile, "ZOOKEEPER=YARN\n");
+
+    orchestrator.start("c1", asList("ZOOKEEPER", "HDFS", "YARN"), TIMEOUT);
+  }
+
+  private void mockStart(final String service, final int requestId, String status) throws Exception {
+    when(client.startService(service)).thenAnswer(new Answer<Integer>() {
+      @Override
+      public Integer answer(InvocationOnMock invocation) {
+        synchronized (started) {
+          started.add(service);
+        }
+        return requestId;
+      }
+    });
+    when(requestTracker.await("c1", requestId, TIMEOUT)).thenReturn(new RequestTracker.RequestState(requestId, status, 100));
+  }
+}
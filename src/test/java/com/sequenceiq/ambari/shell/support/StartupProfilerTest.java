@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class StartupProfilerTest {
+
+  @Test
+  public void testBeansCreatedByTwoThreadsAreBothRecorded() throws InterruptedException {
+    final StartupProfiler profiler = new StartupProfiler();
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch finish = new CountDownLatch(1);
+    Thread other = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        profiler.postProcessBeforeInstantiation(Object.class, "betaBean");
+        started.countDown();
+        try {
+          finish.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        profiler.postProcessAfterInitialization(new Object(), "betaBean");
+      }
+    });
+    profiler.postProcessBeforeInstantiation(Object.class, "alphaBean");
+    other.start();
+    started.await();
+    profiler.postProcessAfterInitialization(new Object(), "alphaBean");
+    finish.countDown();
+    other.join();
+
+    String result = profiler.getReport();
+
+    assertTrue(result.contains("alphaBean"));
+    assertTrue(result.contains("betaBean"));
+  }
+}
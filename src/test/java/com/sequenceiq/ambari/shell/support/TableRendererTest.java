@@ -22,6 +22,7 @@ import static org.junit.Assert.assertEquals;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -51,4 +52,14 @@ public class TableRendererTest {
     assertEquals(IOUtils.toString(new FileInputStream(new File("src/test/resources/3columns"))),
       TableRenderer.renderMapValueMap(map, "SERVICE", "COMPONENT", "STATE"));
   }
+
+  @Test
+  public void testRenderRows() throws IOException {
+    List<String[]> rows = new ArrayList<String[]>();
+    rows.add(new String[]{"HDFS", "DATANODE", "STARTED"});
+    rows.add(new String[]{"MAPREDUCE2", "HISTORYSERVER", "STARTED"});
+    rows.add(new String[]{"ZOOKEEPER", "ZOOKEEPER_SERVER", "INSTALLED"});
+    assertEquals(IOUtils.toString(new FileInputStream(new File("src/test/resources/3columns"))),
+      TableRenderer.renderRows(rows, "SERVICE", "COMPONENT", "STATE"));
+  }
 }
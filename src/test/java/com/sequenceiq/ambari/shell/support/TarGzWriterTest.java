@@ -0,0 +1,59 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+public class TarGzWriterTest {
+
+  private static final String LONG_CONTENT = new String(new char[1500]).replace('\0', 'x');
+
+  @Test
+  public void testAddIsReadableByArchiveReader() throws IOException {
+    File first = File.createTempFile("first", ".xml");
+    File second = File.createTempFile("second", ".xml");
+    File archive = File.createTempFile("configurations", ".tar.gz");
+    try {
+      FileUtils.writeStringToFile(first, "<configuration/>");
+      FileUtils.writeStringToFile(second, LONG_CONTENT);
+      TarGzWriter writer = new TarGzWriter(archive);
+      writer.add("core-site.xml", first);
+      writer.add("hdfs-site.xml", second);
+      writer.close();
+
+      Map<String, String> result = ArchiveReader.read(archive, ".xml");
+
+      Map<String, String> expected = new LinkedHashMap<String, String>();
+      expected.put("core-site.xml", "<configuration/>");
+      expected.put("hdfs-site.xml", LONG_CONTENT);
+      assertEquals(expected, result);
+    } finally {
+      first.delete();
+      second.delete();
+      archive.delete();
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sequenceiq.ambari.shell.support;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class ThreadBoundClientSourceTest {
+
+  private ThreadBoundClientSource source = new ThreadBoundClientSource("localhost", "8080", "admin", "admin");
+
+  @Test
+  public void testSameThreadGetsSameClient() {
+    assertSame(source.getTarget(), source.getTarget());
+  }
+
+  @Test
+  public void testOtherThreadGetsOtherClient() throws InterruptedException {
+    final AtomicReference<Object> other = new AtomicReference<Object>();
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        other.set(source.getTarget());
+      }
+    });
+    thread.start();
+    thread.join();
+
+    assertFalse(source.getTarget().equals(other.get()));
+  }
+}